@@ -0,0 +1,61 @@
+package com.frausto.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+
+/**
+ * Creates the expression indexes backing config search. JPA can only declare plain column indexes, but the search
+ * filters on lower(column) LIKE 'prefix%', which PostgreSQL can only serve from a text_pattern_ops index on the same
+ * expression. Runs after Hibernate has created/updated the schema and is skipped on other databases.
+ */
+@Configuration
+public class DockerSearchIndexInitializer {
+    private static final Logger log = LoggerFactory.getLogger(DockerSearchIndexInitializer.class);
+
+    private static final List<String> POSTGRES_INDEXES = List.of(
+            // plain column indexes declared by earlier versions of the entity; no search predicate can use them
+            "DROP INDEX IF EXISTS idx_docker_service_config_name",
+            "DROP INDEX IF EXISTS idx_docker_service_config_container_name",
+            "DROP INDEX IF EXISTS idx_docker_service_config_image",
+            "DROP INDEX IF EXISTS idx_docker_service_config_restart_policy",
+            "CREATE INDEX IF NOT EXISTS idx_docker_service_config_name_prefix " +
+                    "ON docker_service_config (lower(name) text_pattern_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_docker_service_config_container_name_prefix " +
+                    "ON docker_service_config (lower(container_name) text_pattern_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_docker_service_config_image_prefix " +
+                    "ON docker_service_config (lower(image) text_pattern_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_docker_service_config_restart_policy_lower " +
+                    "ON docker_service_config (lower(restart_policy))"
+    );
+
+    @Bean
+    @Order(0)
+    CommandLineRunner createSearchIndexes(DataSource dataSource) {
+        return args -> {
+            String product;
+            try (Connection connection = dataSource.getConnection()) {
+                product = connection.getMetaData().getDatabaseProductName();
+            }
+
+            if (!"PostgreSQL".equalsIgnoreCase(product)) {
+                log.info("Skipping search expression indexes on {}", product);
+                return;
+            }
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            for (String ddl : POSTGRES_INDEXES) {
+                jdbcTemplate.execute(ddl);
+            }
+            log.info("Ensured search expression indexes on docker_service_config");
+        };
+    }
+}
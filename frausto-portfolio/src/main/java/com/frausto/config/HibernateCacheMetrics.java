@@ -0,0 +1,61 @@
+package com.frausto.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes hit/miss counters and hit ratios for every Hibernate second-level cache region plus the query cache,
+ * available under /actuator/metrics/hibernate.cache.*.
+ */
+@Component
+public class HibernateCacheMetrics implements MeterBinder {
+
+    private final Statistics statistics;
+
+    public HibernateCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStats = statistics.getCacheRegionStatistics(region);
+            if (regionStats == null) {
+                continue;
+            }
+
+            FunctionCounter.builder("hibernate.cache.region.requests", regionStats, CacheRegionStatistics::getHitCount)
+                    .tags("region", region, "result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("hibernate.cache.region.requests", regionStats, CacheRegionStatistics::getMissCount)
+                    .tags("region", region, "result", "miss")
+                    .register(registry);
+            Gauge.builder("hibernate.cache.region.hit.ratio", regionStats,
+                            s -> ratio(s.getHitCount(), s.getMissCount()))
+                    .tag("region", region)
+                    .register(registry);
+            Gauge.builder("hibernate.cache.region.size", regionStats, CacheRegionStatistics::getElementCountInMemory)
+                    .tag("region", region)
+                    .register(registry);
+        }
+
+        Gauge.builder("hibernate.cache.query.hit.ratio", statistics,
+                        s -> ratio(s.getQueryCacheHitCount(), s.getQueryCacheMissCount()))
+                .register(registry);
+        Gauge.builder("hibernate.cache.second.level.hit.ratio", statistics,
+                        s -> ratio(s.getSecondLevelCacheHitCount(), s.getSecondLevelCacheMissCount()))
+                .register(registry);
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -1,5 +1,6 @@
 package com.frausto.config;
 
+import com.frausto.web.terminal.TerminalMuxWebSocketHandler;
 import com.frausto.web.terminal.TerminalWebSocketHandler;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.WebSocketHandler;
@@ -11,13 +12,17 @@ import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry
 @EnableWebSocket
 public class TerminalWebSocketConfig implements WebSocketConfigurer {
     private final TerminalWebSocketHandler terminalWebSocketHandler;
+    private final TerminalMuxWebSocketHandler terminalMuxWebSocketHandler;
 
-    public TerminalWebSocketConfig(TerminalWebSocketHandler terminalWebSockerHandler) {
+    public TerminalWebSocketConfig(TerminalWebSocketHandler terminalWebSockerHandler,
+                                   TerminalMuxWebSocketHandler terminalMuxWebSocketHandler) {
         this.terminalWebSocketHandler = terminalWebSockerHandler;
+        this.terminalMuxWebSocketHandler = terminalMuxWebSocketHandler;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(terminalWebSocketHandler, "/ws/terminal");
+        registry.addHandler(terminalMuxWebSocketHandler, "/ws/terminal/mux");
     }
 }
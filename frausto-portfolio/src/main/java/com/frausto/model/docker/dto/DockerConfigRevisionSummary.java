@@ -0,0 +1,7 @@
+package com.frausto.model.docker.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record DockerConfigRevisionSummary(Long revision, String kind, List<String> changedFields, Instant createdAt) {
+}
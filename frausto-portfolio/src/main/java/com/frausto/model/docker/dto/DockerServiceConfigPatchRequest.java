@@ -0,0 +1,18 @@
+package com.frausto.model.docker.dto;
+
+/**
+ * Partial update for a stored DockerServiceConfig. Any field left null is kept as-is; a non-null child list replaces
+ * the current set and is diffed against the stored rows. {@code version} is the version the client last read; it is
+ * required and checked against the stored row before anything is applied.
+ */
+public class DockerServiceConfigPatchRequest extends DockerServiceConfigRequest {
+    private Long version;
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
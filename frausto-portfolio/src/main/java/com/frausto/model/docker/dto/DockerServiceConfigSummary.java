@@ -0,0 +1,8 @@
+package com.frausto.model.docker.dto;
+
+/**
+ * Lightweight projection returned by config search; child collections are intentionally not loaded.
+ */
+public record DockerServiceConfigSummary(Long id, String name, String containerName, String image,
+                                         String restartPolicy, Long version) {
+}
@@ -0,0 +1,104 @@
+package com.frausto.model.docker.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Append-only revision row for a DockerServiceConfig. CHECKPOINT rows hold the full config snapshot as JSON, DELTA
+ * rows hold only the top-level fields that changed since the previous revision.
+ */
+@Entity
+@Immutable
+@Table(name = "docker_config_revision",
+        uniqueConstraints = @UniqueConstraint(name = "uk_docker_config_revision", columnNames = {"config_id", "revision"}))
+public class DockerConfigRevision {
+
+    public enum Kind {
+        CHECKPOINT,
+        DELTA
+    }
+
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    @Column(name = "config_id", nullable = false, updatable = false)
+    private Long configId;
+
+    @Column(nullable = false, updatable = false)
+    private Long revision;          // matches DockerServiceConfig.version after the change
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private Kind kind;
+
+    @Column(updatable = false)
+    private String changedFields;   // comma separated top-level field names
+
+    @Column(nullable = false, updatable = false, columnDefinition = "text")
+    private String payload;         // JSON snapshot (CHECKPOINT) or changed fields only (DELTA)
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    public DockerConfigRevision() {
+        // JPA
+    }
+
+    public DockerConfigRevision(Long configId, Long revision, Kind kind, String changedFields, String payload,
+                                Instant createdAt) {
+        this.configId = configId;
+        this.revision = revision;
+        this.kind = kind;
+        this.changedFields = changedFields;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getConfigId() {
+        return configId;
+    }
+
+    public Long getRevision() {
+        return revision;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getChangedFields() {
+        return changedFields;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DockerConfigRevision that)) return false;
+        return Objects.equals(getId(), that.getId()) && Objects.equals(getConfigId(), that.getConfigId()) &&
+                Objects.equals(getRevision(), that.getRevision()) && getKind() == that.getKind() &&
+                Objects.equals(getChangedFields(), that.getChangedFields()) && Objects.equals(getPayload(), that.getPayload()) &&
+                Objects.equals(getCreatedAt(), that.getCreatedAt());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getId(), getConfigId(), getRevision(), getKind(), getChangedFields(), getPayload(),
+                getCreatedAt());
+    }
+}
@@ -2,10 +2,14 @@ package com.frausto.model.docker.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Objects;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "docker-env-var")
 @Table(name = "docker_env_var")
 public class DockerEnvVar {
     @Id
@@ -1,19 +1,35 @@
 package com.frausto.model.docker.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
 @Entity
-@Table(name = "docker_service_config")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "docker-config")
+@Table(name = "docker_service_config", indexes = {
+        // search pages sort by (name, id); the filters themselves use the lower(...) indexes from
+        // DockerSearchIndexInitializer
+        @Index(name = "idx_docker_service_config_name_id", columnList = "name, id")
+})
 public class DockerServiceConfig {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    @ColumnDefault("0")
+    private Long version;         // optimistic lock, bumped on every update
+
+    private Instant updatedAt;      // set on every change, so child-only changes still dirty this row
+
     private String name;            // "portfolio-backend"
     private String containerName;     // "Portfolio Backend"
     private String description;
@@ -29,12 +45,15 @@ public class DockerServiceConfig {
     private String networkName;     // custom network if any
 
     @OneToMany(mappedBy = "config", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "docker-config.ports")
     private List<DockerPortMapping> ports = new ArrayList<>();
 
     @OneToMany(mappedBy = "config", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "docker-config.envVars")
     private List<DockerEnvVar> envVars = new ArrayList<>();
 
     @OneToMany(mappedBy = "config", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "docker-config.volumes")
     private List<DockerVolumeMapping> volumes = new ArrayList<>();
 
     public DockerServiceConfig() {
@@ -68,6 +87,22 @@ public class DockerServiceConfig {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     public String getName() {
         return name;
     }
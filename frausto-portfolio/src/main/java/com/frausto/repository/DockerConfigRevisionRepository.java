@@ -0,0 +1,22 @@
+package com.frausto.repository;
+
+import com.frausto.model.docker.entity.DockerConfigRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DockerConfigRevisionRepository extends JpaRepository<DockerConfigRevision, Long> {
+
+    List<DockerConfigRevision> findByConfigIdOrderByRevisionDesc(Long configId);
+
+    List<DockerConfigRevision> findByConfigIdAndRevisionBetweenOrderByRevisionAsc(Long configId, Long fromRevision,
+                                                                                  Long toRevision);
+
+    Optional<DockerConfigRevision> findFirstByConfigIdAndKindAndRevisionLessThanEqualOrderByRevisionDesc(
+            Long configId, DockerConfigRevision.Kind kind, Long revision);
+
+    boolean existsByConfigIdAndRevision(Long configId, Long revision);
+}
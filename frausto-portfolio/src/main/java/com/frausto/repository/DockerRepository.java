@@ -1,10 +1,21 @@
 package com.frausto.repository;
 
 import com.frausto.model.docker.entity.DockerServiceConfig;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 
-public interface DockerRepository extends JpaRepository<DockerServiceConfig, Long> {
+public interface DockerRepository extends JpaRepository<DockerServiceConfig, Long>, DockerRepositoryCustom {
+
+    /**
+     * Served from the Hibernate query cache; results are invalidated whenever a config row changes.
+     */
+    @Override
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<DockerServiceConfig> findAll();
 }
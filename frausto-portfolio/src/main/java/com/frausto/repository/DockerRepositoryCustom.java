@@ -0,0 +1,15 @@
+package com.frausto.repository;
+
+import com.frausto.model.docker.dto.DockerServiceConfigSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface DockerRepositoryCustom {
+
+    /**
+     * Case-insensitive prefix search over configs. {@code query} matches the start of {@code name} or
+     * {@code containerName}, {@code image} matches the start of the image reference and {@code restartPolicy} must
+     * match exactly. Null or blank filters are ignored.
+     */
+    Page<DockerServiceConfigSummary> search(String query, String image, String restartPolicy, Pageable pageable);
+}
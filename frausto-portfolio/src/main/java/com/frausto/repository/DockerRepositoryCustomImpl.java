@@ -0,0 +1,97 @@
+package com.frausto.repository;
+
+import com.frausto.model.docker.dto.DockerServiceConfigSummary;
+import com.frausto.model.docker.entity.DockerServiceConfig;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Criteria-based search that only emits the predicates actually requested, so the planner can pick the matching
+ * lower(...) prefix index instead of a generic "param is null or ..." plan.
+ */
+public class DockerRepositoryCustomImpl implements DockerRepositoryCustom {
+    private static final char LIKE_ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<DockerServiceConfigSummary> search(String query, String image, String restartPolicy,
+                                                   Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<DockerServiceConfigSummary> select = cb.createQuery(DockerServiceConfigSummary.class);
+        Root<DockerServiceConfig> root = select.from(DockerServiceConfig.class);
+        select.select(cb.construct(DockerServiceConfigSummary.class,
+                        root.get("id"), root.get("name"), root.get("containerName"), root.get("image"),
+                        root.get("restartPolicy"), root.get("version")))
+                .where(buildPredicates(cb, root, query, image, restartPolicy))
+                .orderBy(cb.asc(root.get("name")), cb.asc(root.get("id")));
+
+        TypedQuery<DockerServiceConfigSummary> typedQuery = entityManager.createQuery(select);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<DockerServiceConfigSummary> content = typedQuery.getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            CriteriaQuery<Long> count = cb.createQuery(Long.class);
+            Root<DockerServiceConfig> countRoot = count.from(DockerServiceConfig.class);
+            count.select(cb.count(countRoot))
+                    .where(buildPredicates(cb, countRoot, query, image, restartPolicy));
+            return entityManager.createQuery(count).getSingleResult();
+        });
+    }
+
+    private Predicate[] buildPredicates(CriteriaBuilder cb, Root<DockerServiceConfig> root, String query,
+                                        String image, String restartPolicy) {
+        List<Predicate> predicates = new ArrayList<>();
+
+        if (query != null && !query.isBlank()) {
+            String pattern = prefixPattern(query);
+            predicates.add(cb.or(
+                    prefixLike(cb, root.<String>get("name"), pattern),
+                    prefixLike(cb, root.<String>get("containerName"), pattern)));
+        }
+        if (image != null && !image.isBlank()) {
+            predicates.add(prefixLike(cb, root.<String>get("image"), prefixPattern(image)));
+        }
+        if (restartPolicy != null && !restartPolicy.isBlank()) {
+            predicates.add(cb.equal(cb.lower(root.<String>get("restartPolicy")),
+                    restartPolicy.trim().toLowerCase(Locale.ROOT)));
+        }
+
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    private Predicate prefixLike(CriteriaBuilder cb, Expression<String> column, String pattern) {
+        return cb.like(cb.lower(column), pattern, LIKE_ESCAPE);
+    }
+
+    private String prefixPattern(String raw) {
+        String lowered = raw.trim().toLowerCase(Locale.ROOT);
+        StringBuilder escaped = new StringBuilder(lowered.length() + 1);
+        for (int i = 0; i < lowered.length(); i++) {
+            char c = lowered.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.append('%').toString();
+    }
+}
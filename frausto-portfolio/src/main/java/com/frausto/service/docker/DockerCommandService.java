@@ -0,0 +1,174 @@
+package com.frausto.service.docker;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.frausto.proto.command.DockerCommand;
+import com.frausto.proto.command.DockerCommandReply;
+import com.frausto.proto.service.DockerStatusEvent;
+import com.frausto.service.zmq.RouterRequest;
+import com.frausto.service.zmq.ZMQWrapper;
+import com.google.protobuf.InvalidProtocolBufferException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Binary control plane for automation that already speaks ZeroMQ.
+ * Clients send [docker.command][DockerCommand] to a ROUTER socket and receive [docker.command.reply][DockerCommandReply]
+ * carrying the same correlation id. Commands run on a worker pool, so any number of requests per client can be in
+ * flight and replies come back in completion order rather than request order.
+ */
+@Service
+public class DockerCommandService {
+    private static final Logger log = LoggerFactory.getLogger(DockerCommandService.class);
+    static final String COMMAND_TOPIC = "docker.command";
+    static final String REPLY_TOPIC = "docker.command.reply";
+
+    private final ZMQWrapper zmqWrapper;
+    private final DockerService dockerService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTx;
+    private final String socketName = "docker-command";
+    private final ThreadPoolExecutor executor;
+
+    public DockerCommandService(
+            ZMQWrapper zmqWrapper,
+            DockerService dockerService,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${docker.command.enabled:false}") boolean enabled,
+            @Value("${docker.command.endpoint:tcp://*:5558}") String endpoint,
+            @Value("${docker.command.workers:4}") int workers,
+            @Value("${docker.command.queueCapacity:256}") int queueCapacity) {
+        this.zmqWrapper = zmqWrapper;
+        this.dockerService = dockerService;
+        this.objectMapper = objectMapper;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "docker-command-" + threadIds.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        if (enabled) {
+            zmqWrapper.addRouterSocket(socketName, endpoint, true, this::handleRequest);
+            log.info("Docker command service bound to {} with {} workers (socket {})", endpoint, workers, socketName);
+        }
+    }
+
+    /**
+     * Runs on the reactor thread: decodes the command and hands it to the worker pool.
+     */
+    private void handleRequest(RouterRequest request) {
+        if (!COMMAND_TOPIC.equals(request.getTopic())) {
+            reply(request, DockerCommandReply.newBuilder()
+                    .setStatus(DockerCommandReply.Status.INVALID)
+                    .setError("Unknown topic " + request.getTopic())
+                    .build());
+            return;
+        }
+
+        DockerCommand command;
+        try {
+            command = DockerCommand.parseFrom(request.getPayload());
+        } catch (InvalidProtocolBufferException e) {
+            reply(request, DockerCommandReply.newBuilder()
+                    .setStatus(DockerCommandReply.Status.INVALID)
+                    .setError("Malformed DockerCommand: " + e.getMessage())
+                    .build());
+            return;
+        }
+
+        try {
+            executor.execute(() -> reply(request, execute(command)));
+        } catch (RejectedExecutionException e) {
+            reply(request, DockerCommandReply.newBuilder()
+                    .setCorrelationId(command.getCorrelationId())
+                    .setStatus(DockerCommandReply.Status.BUSY)
+                    .setError("Command queue full")
+                    .build());
+        }
+    }
+
+    private DockerCommandReply execute(DockerCommand command) {
+        DockerCommandReply.Builder reply = DockerCommandReply.newBuilder()
+                .setCorrelationId(command.getCorrelationId())
+                .setStatus(DockerCommandReply.Status.OK);
+        try {
+            switch (command.getCommandCase()) {
+                case START_CONFIG: {
+                    reply.setContainerId(dockerService.startContainer(command.getStartConfig().getConfigId()));
+                    break;
+                }
+                case REMOVE_CONTAINERS: {
+                    dockerService.removeContainersForConfig(command.getRemoveContainers().getConfigId(),
+                            command.getRemoveContainers().getForce());
+                    break;
+                }
+                case GET_STATUS: {
+                    DockerStatusEvent event = DockerStatusEvent.newBuilder()
+                            .addAllStatuses(dockerService.getContainerStatuses())
+                            .setGeneratedAtEpochMs(Instant.now().toEpochMilli())
+                            .build();
+                    reply.setStatusEvent(event.toByteString());
+                    break;
+                }
+                case GET_CONFIG: {
+                    reply.setConfigJson(configJson(command.getGetConfig().getConfigId()));
+                    break;
+                }
+                case COMMAND_NOT_SET:
+                default: {
+                    reply.setStatus(DockerCommandReply.Status.INVALID).setError("No command set");
+                    break;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            reply.setStatus(DockerCommandReply.Status.NOT_FOUND).setError(e.getMessage());
+        } catch (Exception e) {
+            log.warn("Docker command {} failed", command.getCommandCase(), e);
+            reply.setStatus(DockerCommandReply.Status.FAILED).setError(String.valueOf(e.getMessage()));
+        }
+        return reply.build();
+    }
+
+    /** Serializes the config inside a transaction so its lazy port/env/volume collections can load. */
+    private String configJson(long configId) {
+        return readOnlyTx.execute(status -> {
+            try {
+                return objectMapper.writeValueAsString(dockerService.getConfig(configId));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Unable to serialize DockerServiceConfig " + configId, e);
+            }
+        });
+    }
+
+    /** Sends a reply, echoing any frames the client appended after its command. */
+    private void reply(RouterRequest request, DockerCommandReply reply) {
+        try {
+            zmqWrapper.reply(socketName, request, REPLY_TOPIC, reply, request.getTrailer().toArray(new byte[0][]));
+        } catch (RejectedExecutionException e) {
+            log.warn("Dropped reply for command {}: socket queue full", reply.getCorrelationId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
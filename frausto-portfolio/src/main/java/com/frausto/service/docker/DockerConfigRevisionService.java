@@ -0,0 +1,289 @@
+package com.frausto.service.docker;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.frausto.model.docker.dto.DockerConfigRevisionSummary;
+import com.frausto.model.docker.dto.DockerEnvVarRequest;
+import com.frausto.model.docker.dto.DockerPortMappingRequest;
+import com.frausto.model.docker.dto.DockerServiceConfigRequest;
+import com.frausto.model.docker.dto.DockerVolumeMappingRequest;
+import com.frausto.model.docker.entity.DockerConfigRevision;
+import com.frausto.model.docker.entity.DockerEnvVar;
+import com.frausto.model.docker.entity.DockerPortMapping;
+import com.frausto.model.docker.entity.DockerServiceConfig;
+import com.frausto.model.docker.entity.DockerVolumeMapping;
+import com.frausto.repository.DockerConfigRevisionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records every change to a DockerServiceConfig in an append-only revision table. Most rows are deltas that only carry
+ * the top-level fields that changed; a full checkpoint is written every {@code checkpointInterval} revisions so
+ * rebuilding any revision reads at most one checkpoint plus {@code checkpointInterval - 1} deltas.
+ * <p>
+ * Values of secret env vars are never written to the table: snapshots carry a digest of the value instead, which is
+ * enough to notice that a secret changed. A rollback keeps each secret's current value.
+ */
+@Service
+public class DockerConfigRevisionService {
+    static final String REDACTED_PREFIX = "redacted:sha256:";
+
+    private final DockerConfigRevisionRepository revisionRepo;
+    private final ObjectMapper objectMapper;
+    private final int checkpointInterval;
+
+    public DockerConfigRevisionService(DockerConfigRevisionRepository revisionRepository, ObjectMapper objectMapper,
+                                       @Value("${docker.config.revisions.checkpointInterval:10}") int checkpointInterval) {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("docker.config.revisions.checkpointInterval must be at least 1");
+        }
+        this.revisionRepo = revisionRepository;
+        this.objectMapper = objectMapper;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Captures the persisted state of a config in its request shape so it can be diffed or replayed later. Secret env
+     * var values are replaced by their digest.
+     */
+    public DockerServiceConfigRequest snapshot(DockerServiceConfig config) {
+        DockerServiceConfigRequest snapshot = new DockerServiceConfigRequest();
+        snapshot.setName(config.getName());
+        snapshot.setContainerName(config.getContainerName());
+        snapshot.setDescription(config.getDescription());
+        snapshot.setImage(config.getImage());
+        snapshot.setCommand(config.getCommand());
+        snapshot.setEntrypoint(config.getEntrypoint());
+        snapshot.setRestartPolicy(config.getRestartPolicy());
+        snapshot.setNetworkMode(config.getNetworkMode());
+        snapshot.setNetworkName(config.getNetworkName());
+
+        List<DockerPortMappingRequest> ports = new ArrayList<>();
+        for (DockerPortMapping pm : config.getPorts()) {
+            DockerPortMappingRequest port = new DockerPortMappingRequest();
+            port.setContainerPort(pm.getContainerPort());
+            port.setHostPort(pm.getHostPort());
+            port.setProtocol(pm.getProtocol());
+            ports.add(port);
+        }
+        snapshot.setPorts(ports);
+
+        List<DockerEnvVarRequest> envVars = new ArrayList<>();
+        for (DockerEnvVar ev : config.getEnvVars()) {
+            DockerEnvVarRequest envVar = new DockerEnvVarRequest();
+            envVar.setName(ev.getName());
+            envVar.setValue(ev.isSecret() ? redact(ev.getName(), ev.getValue()) : ev.getValue());
+            envVar.setSecret(ev.isSecret());
+            envVars.add(envVar);
+        }
+        snapshot.setEnvVars(envVars);
+
+        List<DockerVolumeMappingRequest> volumes = new ArrayList<>();
+        for (DockerVolumeMapping vm : config.getVolumes()) {
+            DockerVolumeMappingRequest volume = new DockerVolumeMappingRequest();
+            volume.setHostPathOrVolume(vm.getHostPathOrVolume());
+            volume.setContainerPath(vm.getContainerPath());
+            volume.setMode(vm.getMode());
+            volumes.add(volume);
+        }
+        snapshot.setVolumes(volumes);
+
+        return snapshot;
+    }
+
+    /**
+     * Records the initial revision of a freshly created config as a checkpoint.
+     */
+    @Transactional
+    public void recordCreate(DockerServiceConfig config) {
+        ObjectNode current = objectMapper.valueToTree(snapshot(config));
+        append(config, DockerConfigRevision.Kind.CHECKPOINT, fieldNames(current), current);
+    }
+
+    /**
+     * Whether {@code config} differs from {@code before} in any field, including its ports, env vars and volumes.
+     */
+    public boolean hasChanged(DockerServiceConfig config, DockerServiceConfigRequest before) {
+        ObjectNode previous = objectMapper.valueToTree(before);
+        ObjectNode current = objectMapper.valueToTree(snapshot(config));
+        return !diff(previous, current).isEmpty();
+    }
+
+    /**
+     * Records the change from {@code before} to the flushed state of {@code config}. Does nothing when no field
+     * changed (the version is not bumped in that case either).
+     */
+    @Transactional
+    public void recordChange(DockerServiceConfig config, DockerServiceConfigRequest before) {
+        ObjectNode previous = objectMapper.valueToTree(before);
+        ObjectNode current = objectMapper.valueToTree(snapshot(config));
+        ObjectNode delta = diff(previous, current);
+        if (delta.isEmpty()) {
+            return;
+        }
+
+        long revision = config.getVersion();
+        boolean checkpoint = revision % checkpointInterval == 0 ||
+                !revisionRepo.existsByConfigIdAndRevision(config.getId(), revision - 1);
+        List<String> changed = fieldNames(delta);
+        if (checkpoint) {
+            append(config, DockerConfigRevision.Kind.CHECKPOINT, changed, current);
+        } else {
+            append(config, DockerConfigRevision.Kind.DELTA, changed, delta);
+        }
+    }
+
+    public List<DockerConfigRevisionSummary> listRevisions(Long configId) {
+        List<DockerConfigRevisionSummary> summaries = new ArrayList<>();
+        for (DockerConfigRevision revision : revisionRepo.findByConfigIdOrderByRevisionDesc(configId)) {
+            List<String> changed = revision.getChangedFields() == null || revision.getChangedFields().isEmpty()
+                    ? List.of()
+                    : Arrays.asList(revision.getChangedFields().split(","));
+            summaries.add(new DockerConfigRevisionSummary(revision.getRevision(), revision.getKind().name(), changed,
+                    revision.getCreatedAt()));
+        }
+        return summaries;
+    }
+
+    /**
+     * Rebuilds the config as it was at {@code revision} from the nearest checkpoint at or before it plus the deltas
+     * that follow.
+     */
+    @Transactional(readOnly = true)
+    public DockerServiceConfigRequest reconstruct(Long configId, Long revision) {
+        DockerConfigRevision checkpoint = revisionRepo
+                .findFirstByConfigIdAndKindAndRevisionLessThanEqualOrderByRevisionDesc(configId,
+                        DockerConfigRevision.Kind.CHECKPOINT, revision)
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "No revision " + revision + " recorded for DockerServiceConfig " + configId));
+
+        ObjectNode state = (ObjectNode) readPayload(checkpoint);
+        long reached = checkpoint.getRevision();
+
+        if (reached < revision) {
+            List<DockerConfigRevision> deltas = revisionRepo.findByConfigIdAndRevisionBetweenOrderByRevisionAsc(
+                    configId, reached + 1, revision);
+            for (DockerConfigRevision delta : deltas) {
+                state.setAll((ObjectNode) readPayload(delta));
+                reached = delta.getRevision();
+            }
+        }
+
+        if (reached != revision) {
+            throw new IllegalArgumentException(
+                    "No revision " + revision + " recorded for DockerServiceConfig " + configId);
+        }
+
+        try {
+            return objectMapper.treeToValue(state, DockerServiceConfigRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt revision data for DockerServiceConfig " + configId, e);
+        }
+    }
+
+    /**
+     * Puts the real values back into the redacted secrets of a reconstructed {@code target}, taking each from the env
+     * var of the same name in {@code config}. Past secret values are not recorded, so a rollback keeps the current
+     * value of every secret.
+     *
+     * @throws IllegalArgumentException if {@code target} has a secret env var that {@code config} no longer has
+     */
+    public void restoreSecrets(DockerServiceConfigRequest target, DockerServiceConfig config) {
+        if (target.getEnvVars() == null) {
+            return;
+        }
+        Map<String, String> current = new HashMap<>();
+        for (DockerEnvVar ev : config.getEnvVars()) {
+            current.put(ev.getName(), ev.getValue());
+        }
+        for (DockerEnvVarRequest envVar : target.getEnvVars()) {
+            if (!envVar.isSecret() || envVar.getValue() == null || !envVar.getValue().startsWith(REDACTED_PREFIX)) {
+                continue;
+            }
+            if (!current.containsKey(envVar.getName())) {
+                throw new IllegalArgumentException("Secret env var " + envVar.getName() + " of DockerServiceConfig "
+                        + config.getId() + " was removed and its value is not kept in the revision history");
+            }
+            envVar.setValue(current.get(envVar.getName()));
+        }
+    }
+
+    /** Digest standing in for a secret value; salted with the name so equal values do not show up as equal. */
+    static String redact(String name, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(name.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return REDACTED_PREFIX + HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private void append(DockerServiceConfig config, DockerConfigRevision.Kind kind, List<String> changedFields,
+                        ObjectNode payload) {
+        try {
+            revisionRepo.save(new DockerConfigRevision(config.getId(), config.getVersion(), kind,
+                    String.join(",", changedFields), objectMapper.writeValueAsString(payload), Instant.now()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize revision for DockerServiceConfig " + config.getId(), e);
+        }
+    }
+
+    private JsonNode readPayload(DockerConfigRevision revision) {
+        try {
+            return objectMapper.readTree(revision.getPayload());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt revision " + revision.getRevision() +
+                    " for DockerServiceConfig " + revision.getConfigId(), e);
+        }
+    }
+
+    private ObjectNode diff(ObjectNode previous, ObjectNode current) {
+        Set<String> names = new LinkedHashSet<>(fieldNames(previous));
+        names.addAll(fieldNames(current));
+
+        ObjectNode delta = objectMapper.createObjectNode();
+        for (String name : names) {
+            JsonNode before = previous.get(name);
+            JsonNode after = current.get(name);
+            if (after == null) {
+                after = NullNode.getInstance();
+            }
+            if (!after.equals(before == null ? NullNode.getInstance() : before)) {
+                delta.set(name, after);
+            }
+        }
+        return delta;
+    }
+
+    private List<String> fieldNames(ObjectNode node) {
+        List<String> names = new ArrayList<>();
+        Iterator<String> it = node.fieldNames();
+        while (it.hasNext()) {
+            names.add(it.next());
+        }
+        return names;
+    }
+}
@@ -2,7 +2,9 @@ package com.frausto.service.docker;
 
 import com.frausto.model.docker.dto.DockerEnvVarRequest;
 import com.frausto.model.docker.dto.DockerPortMappingRequest;
+import com.frausto.model.docker.dto.DockerServiceConfigPatchRequest;
 import com.frausto.model.docker.dto.DockerServiceConfigRequest;
+import com.frausto.model.docker.dto.DockerServiceConfigSummary;
 import com.frausto.model.docker.dto.DockerVolumeMappingRequest;
 import com.frausto.model.docker.entity.DockerEnvVar;
 import com.frausto.model.docker.entity.DockerPortMapping;
@@ -21,10 +23,17 @@ import com.github.dockerjava.api.exception.DockerException;
 import com.github.dockerjava.api.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -41,6 +50,7 @@ public class DockerService {
     private static final String LABEL_CONFIG_NAME = "portfolio.config.name";
     private static final String LABEL_MANAGED_BY = "portfolio.managed.by";
     private static final String LABEL_MANAGED_BY_VALUE = "portfolio-api";
+    private static final int MAX_SEARCH_PAGE_SIZE = 200;
 
     /* Docker client for interacting with the docker daemon */
     private final DockerClient dockerClient;
@@ -54,15 +64,24 @@ public class DockerService {
     /* ZeroMQ publisher for broadcasting status updates */
     private final DockerStatusPublisher statusPublisher;
 
+    /* Append-only revision history for config changes */
+    private final DockerConfigRevisionService revisionService;
+
+    /* Last built status and its encodings per container */
+    private final DockerStatusEncodingCache statusCache;
+
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
     private ScheduledFuture<?> statusBroadcastTask;
 
     public DockerService(DockerClient dockerClient, InstanceTracker instanceTracker, DockerRepository dockerRepository,
-                         DockerStatusPublisher statusPublisher) {
+                         DockerStatusPublisher statusPublisher, DockerConfigRevisionService revisionService,
+                         DockerStatusEncodingCache statusCache) {
         this.dockerClient = dockerClient;
         this.instanceTracker = instanceTracker;
         this.dockerRepo = dockerRepository;
         this.statusPublisher = statusPublisher;
+        this.revisionService = revisionService;
+        this.statusCache = statusCache;
     }
 
     public List<DockerServiceConfig> getConfigs() {
@@ -75,6 +94,12 @@ public class DockerService {
         ));
     }
 
+    public Page<DockerServiceConfigSummary> searchConfigs(String query, String image, String restartPolicy,
+                                                          int page, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_SEARCH_PAGE_SIZE);
+        return dockerRepo.search(query, image, restartPolicy, PageRequest.of(Math.max(page, 0), pageSize));
+    }
+
     @Transactional
     public DockerServiceConfig createConfig(DockerServiceConfigRequest request) {
         DockerServiceConfig config = new DockerServiceConfig();
@@ -91,10 +116,97 @@ public class DockerService {
         addPorts(config, request.getPorts());
         addEnvVars(config, request.getEnvVars());
         addVolumeMappings(config, request.getVolumes());
+        config.setUpdatedAt(Instant.now());
+
+        DockerServiceConfig saved = dockerRepo.save(config);
+        revisionService.recordCreate(saved);
+        return saved;
+    }
+
+    /**
+     * Applies a partial update to a stored config. Scalar fields are only touched when present in the request, and
+     * child collections are diffed in place so unchanged port/env/volume rows keep their ids. The returned entity
+     * carries the bumped version once the change has been flushed. The request must carry the version the caller last
+     * read.
+     */
+    @Transactional
+    public DockerServiceConfig updateConfig(Long id, DockerServiceConfigPatchRequest request) {
+        DockerServiceConfig config = getConfig(id);
+
+        if (request.getVersion() == null) {
+            throw new IllegalArgumentException("version is required to update DockerServiceConfig " + id);
+        }
+        if (!request.getVersion().equals(config.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(DockerServiceConfig.class, id);
+        }
 
-        return dockerRepo.save(config);
+        DockerServiceConfigRequest before = revisionService.snapshot(config);
+
+        if (request.getName() != null) config.setName(request.getName());
+        if (request.getContainerName() != null) config.setContainerName(request.getContainerName());
+        if (request.getDescription() != null) config.setDescription(request.getDescription());
+        if (request.getImage() != null) config.setImage(request.getImage());
+        if (request.getCommand() != null) config.setCommand(request.getCommand());
+        if (request.getEntrypoint() != null) config.setEntrypoint(request.getEntrypoint());
+        if (request.getRestartPolicy() != null) config.setRestartPolicy(request.getRestartPolicy());
+        if (request.getNetworkMode() != null) config.setNetworkMode(request.getNetworkMode());
+        if (request.getNetworkName() != null) config.setNetworkName(request.getNetworkName());
+
+        if (request.getPorts() != null) diffPorts(config, request.getPorts());
+        if (request.getEnvVars() != null) diffEnvVars(config, request.getEnvVars());
+        if (request.getVolumes() != null) diffVolumeMappings(config, request.getVolumes());
+
+        return saveChange(config, before);
+    }
+
+    /**
+     * Restores a config to the state recorded at {@code revision}. The rollback itself is applied as a regular
+     * update, so it bumps the version and appends a new revision instead of rewriting history. Secret env vars keep
+     * their current values, which the revision history does not store.
+     */
+    @Transactional
+    public DockerServiceConfig rollbackConfig(Long id, Long revision) {
+        DockerServiceConfig config = getConfig(id);
+        DockerServiceConfigRequest target = revisionService.reconstruct(id, revision);
+        revisionService.restoreSecrets(target, config);
+        DockerServiceConfigRequest before = revisionService.snapshot(config);
+
+        config.setName(target.getName());
+        config.setContainerName(target.getContainerName());
+        config.setDescription(target.getDescription());
+        config.setImage(target.getImage());
+        config.setCommand(target.getCommand());
+        config.setEntrypoint(target.getEntrypoint());
+        config.setRestartPolicy(target.getRestartPolicy());
+        config.setNetworkMode(target.getNetworkMode());
+        config.setNetworkName(target.getNetworkName());
+
+        diffPorts(config, target.getPorts() == null ? List.of() : target.getPorts());
+        diffEnvVars(config, target.getEnvVars() == null ? List.of() : target.getEnvVars());
+        diffVolumeMappings(config, target.getVolumes() == null ? List.of() : target.getVolumes());
+
+        return saveChange(config, before);
     }
 
+    /**
+     * Flushes an update and records its revision. Ports, env vars and volumes live in their own tables, so a change
+     * to them alone would leave the config row clean and its version unchanged; touching {@code updatedAt} makes every
+     * real change bump the version through a regular update, which also refreshes the cached entity.
+     */
+    private DockerServiceConfig saveChange(DockerServiceConfig config, DockerServiceConfigRequest before) {
+        if (revisionService.hasChanged(config, before)) {
+            config.setUpdatedAt(Instant.now());
+        }
+        DockerServiceConfig saved = dockerRepo.saveAndFlush(config);
+        revisionService.recordChange(saved, before);
+        return saved;
+    }
+
+    /**
+     * Creates and starts a container from a stored config. Runs in a transaction of its own so the lazy port, env and
+     * volume collections load for callers outside a web request, such as the command channel workers.
+     */
+    @Transactional(readOnly = true)
     public String startContainer(Long configId) {
 
         DockerServiceConfig cfg = dockerRepo.findById(configId).orElseThrow(() -> new IllegalArgumentException(
@@ -225,6 +337,21 @@ public class DockerService {
     }
 
     public List<DockerContainerStatus> getContainerStatuses() {
+        return getStatusEntries().stream().map(DockerStatusEncodingCache.Entry::status).toList();
+    }
+
+    /**
+     * Container statuses as a JSON array, assembled from the cached JSON of each entry.
+     */
+    public byte[] getContainerStatusesJson() {
+        return DockerStatusEncodingCache.toJsonArray(getStatusEntries());
+    }
+
+    /**
+     * Builds the status of every managed container and of every config without one. Statuses whose Docker and config
+     * state did not change since the last call are taken from the encoding cache instead of being rebuilt.
+     */
+    private List<DockerStatusEncodingCache.Entry> getStatusEntries() {
         Map<Long, DockerServiceConfig> configsById = dockerRepo.findAll()
                 .stream()
                 .collect(Collectors.toMap(DockerServiceConfig::getId, c -> c));
@@ -234,27 +361,33 @@ public class DockerService {
         Map<Long, List<InspectContainerResponse>> containersByConfig = inspectedContainers.stream()
                 .collect(Collectors.groupingBy(c -> Long.parseLong(c.getConfig().getLabels().get(LABEL_CONFIG_ID))));
 
-        List<DockerContainerStatus> statuses = new ArrayList<>();
+        List<DockerStatusEncodingCache.Entry> statuses = new ArrayList<>();
+        Set<String> keys = new HashSet<>();
 
         for (InspectContainerResponse container : inspectedContainers) {
             Long cfgId = Long.parseLong(container.getConfig().getLabels().get(LABEL_CONFIG_ID));
             DockerServiceConfig cfg = configsById.get(cfgId);
-            statuses.add(buildStatus(cfg, container));
+            keys.add(container.getId());
+            statuses.add(statusCache.get(container.getId(), fingerprint(cfg, container),
+                    () -> buildStatus(cfg, container)));
         }
 
         for (Map.Entry<Long, DockerServiceConfig> entry : configsById.entrySet()) {
             Long cfgId = entry.getKey();
             if (!containersByConfig.containsKey(cfgId)) {
-                statuses.add(buildMissingStatus(entry.getValue()));
+                String key = "config:" + cfgId;
+                keys.add(key);
+                statuses.add(statusCache.get(key, missingFingerprint(entry.getValue()),
+                        () -> buildMissingStatus(entry.getValue())));
             }
         }
 
+        statusCache.retainAll(keys);
         return statuses;
     }
 
     public DockerStatusEvent broadcastContainerStatuses() {
-        List<DockerContainerStatus> statuses = getContainerStatuses();
-        return statusPublisher.publishStatuses(statuses);
+        return statusPublisher.publishStatuses(getStatusEntries());
     }
 
     private void ensureStatusBroadcasting() {
@@ -265,10 +398,10 @@ public class DockerService {
 
             statusBroadcastTask = scheduler.scheduleAtFixedRate(() -> {
                 try {
-                    List<DockerContainerStatus> statuses = getContainerStatuses();
+                    List<DockerStatusEncodingCache.Entry> statuses = getStatusEntries();
                     statusPublisher.publishStatuses(statuses);
 
-                    boolean anyRunning = statuses.stream().anyMatch(DockerContainerStatus::getRunning);
+                    boolean anyRunning = statuses.stream().anyMatch(entry -> entry.status().getRunning());
                     if (!anyRunning) {
                         stopStatusBroadcasting();
                     }
@@ -288,6 +421,27 @@ public class DockerService {
         }
     }
 
+    /**
+     * The inputs of {@link #buildStatus}; statuses are rebuilt only when this changes.
+     */
+    private DockerStatusEncodingCache.Fingerprint fingerprint(DockerServiceConfig cfg,
+                                                              InspectContainerResponse container) {
+        InspectContainerResponse.ContainerState state = container.getState();
+        return new DockerStatusEncodingCache.Fingerprint(
+                cfg != null ? cfg.getId() : 0L,
+                cfg != null ? cfg.getName() : null,
+                isExpectedToRun(cfg),
+                container.getName(),
+                state.getStatus(),
+                Boolean.TRUE.equals(state.getRunning()),
+                state.getPid() != null && state.getPid() > 1);
+    }
+
+    private DockerStatusEncodingCache.Fingerprint missingFingerprint(DockerServiceConfig cfg) {
+        return new DockerStatusEncodingCache.Fingerprint(cfg.getId(), cfg.getName(), isExpectedToRun(cfg), null,
+                "not_created", false, false);
+    }
+
     private DockerContainerStatus buildStatus(DockerServiceConfig cfg, InspectContainerResponse container) {
         InspectContainerResponse.ContainerState state = container.getState();
         boolean running = Boolean.TRUE.equals(state.getRunning());
@@ -540,4 +694,102 @@ public class DockerService {
             config.getVolumes().add(volumeMapping);
         }
     }
+
+    private void diffPorts(DockerServiceConfig config, List<DockerPortMappingRequest> requests) {
+        diffChildren(config.getPorts(), requests,
+                pm -> portKey(pm.getContainerPort(), pm.getProtocol()),
+                r -> portKey(r.getContainerPort(), r.getProtocol()),
+                (pm, r) -> Objects.equals(pm.getHostPort(), r.getHostPort()) &&
+                        Objects.equals(pm.getProtocol(), r.getProtocol()),
+                (pm, r) -> {
+                    pm.setHostPort(r.getHostPort());
+                    pm.setProtocol(r.getProtocol());
+                },
+                r -> {
+                    DockerPortMapping mapping = new DockerPortMapping();
+                    mapping.setConfig(config);
+                    mapping.setContainerPort(r.getContainerPort());
+                    mapping.setHostPort(r.getHostPort());
+                    mapping.setProtocol(r.getProtocol());
+                    return mapping;
+                });
+    }
+
+    private void diffEnvVars(DockerServiceConfig config, List<DockerEnvVarRequest> requests) {
+        diffChildren(config.getEnvVars(), requests,
+                DockerEnvVar::getName,
+                DockerEnvVarRequest::getName,
+                (ev, r) -> Objects.equals(ev.getValue(), r.getValue()) && ev.isSecret() == r.isSecret(),
+                (ev, r) -> {
+                    ev.setValue(r.getValue());
+                    ev.setSecret(r.isSecret());
+                },
+                r -> {
+                    DockerEnvVar envVar = new DockerEnvVar();
+                    envVar.setConfig(config);
+                    envVar.setName(r.getName());
+                    envVar.setValue(r.getValue());
+                    envVar.setSecret(r.isSecret());
+                    return envVar;
+                });
+    }
+
+    private void diffVolumeMappings(DockerServiceConfig config, List<DockerVolumeMappingRequest> requests) {
+        diffChildren(config.getVolumes(), requests,
+                DockerVolumeMapping::getContainerPath,
+                DockerVolumeMappingRequest::getContainerPath,
+                (vm, r) -> Objects.equals(vm.getHostPathOrVolume(), r.getHostPathOrVolume()) &&
+                        Objects.equals(vm.getMode(), r.getMode()),
+                (vm, r) -> {
+                    vm.setHostPathOrVolume(r.getHostPathOrVolume());
+                    vm.setMode(r.getMode());
+                },
+                r -> {
+                    DockerVolumeMapping volumeMapping = new DockerVolumeMapping();
+                    volumeMapping.setConfig(config);
+                    volumeMapping.setHostPathOrVolume(r.getHostPathOrVolume());
+                    volumeMapping.setContainerPath(r.getContainerPath());
+                    volumeMapping.setMode(r.getMode());
+                    return volumeMapping;
+                });
+    }
+
+    /**
+     * Reconciles a managed child collection with the requested state. Rows are matched by their natural key, updated
+     * only when a value differs, and removed (via orphanRemoval) only when the key is no longer requested, so
+     * Hibernate issues statements for the rows that actually changed.
+     */
+    private <E, R> void diffChildren(List<E> current, List<R> requests, Function<E, String> entityKey,
+                                     Function<R, String> requestKey, BiPredicate<E, R> unchanged,
+                                     BiConsumer<E, R> update, Function<R, E> create) {
+        Map<String, Deque<E>> existingByKey = new HashMap<>();
+        for (E entity : current) {
+            existingByKey.computeIfAbsent(entityKey.apply(entity), k -> new ArrayDeque<>()).add(entity);
+        }
+
+        // Entity equals() walks the parent config, so track retained rows by identity
+        Set<E> retained = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<E> added = new ArrayList<>();
+
+        for (R request : requests) {
+            Deque<E> candidates = existingByKey.get(requestKey.apply(request));
+            E match = candidates == null ? null : candidates.poll();
+            if (match == null) {
+                added.add(create.apply(request));
+                continue;
+            }
+            if (!unchanged.test(match, request)) {
+                update.accept(match, request);
+            }
+            retained.add(match);
+        }
+
+        current.removeIf(entity -> !retained.contains(entity));
+        current.addAll(added);
+    }
+
+    private String portKey(Integer containerPort, String protocol) {
+        String proto = (protocol == null || protocol.isBlank()) ? "tcp" : protocol.toLowerCase(Locale.ROOT);
+        return containerPort + "/" + proto;
+    }
 }
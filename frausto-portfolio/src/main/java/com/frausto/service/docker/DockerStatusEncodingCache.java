@@ -0,0 +1,150 @@
+package com.frausto.service.docker;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.frausto.proto.service.DockerContainerStatus;
+import com.frausto.proto.service.DockerStatusEvent;
+import com.google.protobuf.CodedOutputStream;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the last built {@link DockerContainerStatus} of every container together with its protobuf encoding and its
+ * JSON form, keyed by a fingerprint of the Docker and config state it was built from. Unchanged containers are then
+ * neither rebuilt nor re-serialized between status cycles.
+ * <p>
+ * A repeated message field is encoded as one independent [tag][length][message] record per element, so a
+ * {@link DockerStatusEvent} is assembled by concatenating the cached entry records and appending the timestamp field.
+ */
+@Component
+public class DockerStatusEncodingCache {
+    private static final int STATUSES_FIELD = DockerStatusEvent.STATUSES_FIELD_NUMBER;
+    private static final int GENERATED_AT_FIELD = DockerStatusEvent.GENERATED_AT_EPOCH_MS_FIELD_NUMBER;
+
+    /**
+     * Everything {@code DockerService} builds a status from. Equal fingerprints produce equal statuses.
+     */
+    public record Fingerprint(long configId, String configName, boolean expectedRunning, String containerName,
+                              String state, boolean running, boolean pid1Running) {
+    }
+
+    /**
+     * A built status with its encoded {@code statuses} field record and its JSON object.
+     */
+    public record Entry(Fingerprint fingerprint, DockerContainerStatus status, byte[] encoded, byte[] json) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();  // by container id, or config for missing containers
+    private final JsonFactory jsonFactory;
+
+    public DockerStatusEncodingCache(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Returns the cached entry for {@code key} if it was built from the same state, otherwise builds, encodes and
+     * caches a new one.
+     */
+    public Entry get(String key, Fingerprint fingerprint, Supplier<DockerContainerStatus> builder) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.fingerprint().equals(fingerprint)) {
+            return entry;
+        }
+        DockerContainerStatus status = builder.get();
+        entry = new Entry(fingerprint, status, encode(status), toJson(status));
+        entries.put(key, entry);
+        return entry;
+    }
+
+    /** Drops entries of containers and configs that no longer exist. */
+    public void retainAll(Collection<String> keys) {
+        entries.keySet().retainAll(keys);
+    }
+
+    /**
+     * Serialized {@link DockerStatusEvent} with the given entries and timestamp; parses to the same event as building it
+     * from the entries' statuses.
+     */
+    public static byte[] encodeEvent(List<Entry> statuses, long generatedAtEpochMs) {
+        int size = CodedOutputStream.computeInt64Size(GENERATED_AT_FIELD, generatedAtEpochMs);
+        for (Entry entry : statuses) {
+            size += entry.encoded().length;
+        }
+
+        byte[] event = new byte[size];
+        CodedOutputStream output = CodedOutputStream.newInstance(event);
+        try {
+            for (Entry entry : statuses) {
+                output.writeRawBytes(entry.encoded());
+            }
+            output.writeInt64(GENERATED_AT_FIELD, generatedAtEpochMs);
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new IllegalStateException("Status event does not fit its computed size", e);
+        }
+        return event;
+    }
+
+    /** JSON array of the entries' statuses. */
+    public static byte[] toJsonArray(List<Entry> statuses) {
+        int size = 2 + Math.max(0, statuses.size() - 1);
+        for (Entry entry : statuses) {
+            size += entry.json().length;
+        }
+
+        byte[] array = new byte[size];
+        int position = 0;
+        array[position++] = '[';
+        for (int i = 0; i < statuses.size(); i++) {
+            if (i > 0) {
+                array[position++] = ',';
+            }
+            byte[] json = statuses.get(i).json();
+            System.arraycopy(json, 0, array, position, json.length);
+            position += json.length;
+        }
+        array[position] = ']';
+        return array;
+    }
+
+    private static byte[] encode(DockerContainerStatus status) {
+        byte[] encoded = new byte[CodedOutputStream.computeMessageSize(STATUSES_FIELD, status)];
+        CodedOutputStream output = CodedOutputStream.newInstance(encoded);
+        try {
+            output.writeMessage(STATUSES_FIELD, status);
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new IllegalStateException("Status does not fit its computed size", e);
+        }
+        return encoded;
+    }
+
+    private byte[] toJson(DockerContainerStatus status) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (JsonGenerator json = jsonFactory.createGenerator(bytes)) {
+            json.writeStartObject();
+            json.writeNumberField("configId", status.getConfigId());
+            json.writeStringField("configName", status.getConfigName());
+            json.writeStringField("containerId", status.getContainerId());
+            json.writeStringField("containerName", status.getContainerName());
+            json.writeStringField("status", status.getStatus());
+            json.writeBooleanField("running", status.getRunning());
+            json.writeBooleanField("expectedRunning", status.getExpectedRunning());
+            json.writeBooleanField("pid1Running", status.getPid1Running());
+            json.writeBooleanField("attentionNeeded", status.getAttentionNeeded());
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -1,7 +1,8 @@
 package com.frausto.service.docker;
 
-import com.frausto.proto.service.DockerContainerStatus;
 import com.frausto.proto.service.DockerStatusEvent;
+import com.frausto.service.zmq.DeliveryPolicy;
+import com.frausto.service.zmq.Frames;
 import com.frausto.service.zmq.ZMQWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,7 +10,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class DockerStatusPublisher {
@@ -18,24 +26,171 @@ public class DockerStatusPublisher {
     private final ZMQWrapper zmqWrapper;
     private final String socketName;
     private final String topic;
+    private final boolean perConfigTopics;
+    private final boolean attentionTopic;
+    private final boolean snapshotsEnabled;
 
+    // Guarded by this: per-topic sequence numbers and the latest event on each topic, served to late joiners
+    private final Map<String, Long> topicSequences = new HashMap<>();
+    private final Map<String, RetainedEvent> retained = new LinkedHashMap<>();
+    private final Set<String> publishedThisTick = new HashSet<>();
+    // Immutable copy of retained, sorted by topic and replaced after every tick; read without the lock
+    private volatile List<RetainedEvent> retainedSnapshot = List.of();
+
+    /**
+     * Latest event published on a topic, its serialized form and its sequence number.
+     */
+    public record RetainedEvent(String topic, DockerStatusEvent event, byte[] encoded, long sequence) {
+    }
+
+    /**
+     * @param pubEndpoint Address the PUB socket binds to.
+     * @param perConfigTopics Also publish each config's statuses on {@code docker.status.<configId>}.
+     * @param attentionTopic Also publish entries needing attention on {@code docker.status.attention}.
+     * @param snapshotsEnabled Number every message with a trailing sequence frame and retain the latest event per
+     *                         topic for {@link DockerStatusSnapshotService}.
+     * @param deliveryMode CONFLATE (latest event per topic only), BOUNDED or BLOCKING.
+     * @param highWaterMark Send high-water mark per subscriber.
+     * @param viaProxy Connect to the XSUB/XPUB proxy's frontend instead of binding {@code pubEndpoint}, so several
+     *                 instances can fan in to one endpoint that subscribers connect to.
+     * @param proxyFrontend Proxy frontend the publisher connects to when {@code viaProxy} is set.
+     * @param localEndpoint Optional {@code local://} endpoint in-process subscribers can use to get the events as
+     *                      objects; events are then serialized only while a network subscriber is connected.
+     */
     public DockerStatusPublisher(
             ZMQWrapper zmqWrapper,
-            @Value("${docker.status.pubEndpoint:tcp://*:5556}") String pubEndpoint) {
+            @Value("${docker.status.pubEndpoint:tcp://*:5556}") String pubEndpoint,
+            @Value("${docker.status.perConfigTopics:false}") boolean perConfigTopics,
+            @Value("${docker.status.attentionTopic:false}") boolean attentionTopic,
+            @Value("${docker.status.snapshot.enabled:false}") boolean snapshotsEnabled,
+            @Value("${docker.status.delivery:CONFLATE}") DeliveryPolicy.Mode deliveryMode,
+            @Value("${docker.status.hwm:16}") int highWaterMark,
+            @Value("${docker.status.viaProxy:false}") boolean viaProxy,
+            @Value("${docker.status.proxyFrontend:${zmq.proxy.frontend:ipc:///zmq/xsub.sock}}") String proxyFrontend,
+            @Value("${docker.status.localEndpoint:}") String localEndpoint) {
         this.zmqWrapper = zmqWrapper;
         this.socketName = "docker-status-pub";
         this.topic = "docker.status";
-        this.zmqWrapper.addSocket(socketName, pubEndpoint, "PUB", true);
-        log.info("Docker status publisher bound to {} on topic {} (socket {})", pubEndpoint, topic, socketName);
+        this.perConfigTopics = perConfigTopics;
+        this.attentionTopic = attentionTopic;
+        this.snapshotsEnabled = snapshotsEnabled;
+        this.zmqWrapper.registerTopic(topic, DockerStatusEvent.parser());
+        String endpoint = viaProxy ? proxyFrontend : pubEndpoint;
+        this.zmqWrapper.addSocket(socketName, endpoint, "PUB", !viaProxy,
+                new DeliveryPolicy(deliveryMode, highWaterMark));
+        log.info("Docker status publisher {} {} on topic {} (socket {}, {} delivery, hwm {})",
+                viaProxy ? "connected to proxy" : "bound to", endpoint, topic, socketName, deliveryMode, highWaterMark);
+        if (!localEndpoint.isBlank()) {
+            this.zmqWrapper.addLocalEndpoint(socketName, localEndpoint);
+            log.info("Docker status events also delivered in-process on {}", localEndpoint);
+        }
     }
 
-    public DockerStatusEvent publishStatuses(List<DockerContainerStatus> statuses) {
-        DockerStatusEvent event = DockerStatusEvent.newBuilder()
-                .addAllStatuses(statuses)
-                .setGeneratedAtEpochMs(Instant.now().toEpochMilli())
-                .build();
+    /**
+     * Publishes the statuses on the aggregate topic and, if enabled, the per-config and attention topics. Payloads are
+     * assembled from the entries' cached encodings rather than serialized again.
+     */
+    public synchronized DockerStatusEvent publishStatuses(List<DockerStatusEncodingCache.Entry> statuses) {
+        long generatedAt = Instant.now().toEpochMilli();
+        publishedThisTick.clear();
+        DockerStatusEvent event = publish(topic, statuses, generatedAt);
 
-        zmqWrapper.send(socketName, topic, event);
+        if (perConfigTopics) {
+            publishPerConfig(statuses, generatedAt);
+        }
+        if (attentionTopic) {
+            publishAttention(statuses, generatedAt);
+        }
+
+        if (snapshotsEnabled) {
+            // Topics not refreshed this tick (removed configs, resolved attention) no longer describe current state
+            retained.keySet().retainAll(publishedThisTick);
+            List<RetainedEvent> sorted = new ArrayList<>(retained.values());
+            sorted.sort(Comparator.comparing(RetainedEvent::topic));
+            retainedSnapshot = List.copyOf(sorted);
+        }
         return event;
     }
+
+    /**
+     * Returns the latest event on every topic starting with {@code topicPrefix} and sorting after {@code afterTopic}
+     * (null for the first), in topic order, at most {@code limit} of them. Served from the copy made at the end of
+     * the last broadcast tick, so it never waits for a tick in progress and stays consistent with one tick; a
+     * subscriber applies only updates whose sequence is greater than the sequence of the retained event for the same
+     * topic.
+     */
+    public List<RetainedEvent> snapshot(String topicPrefix, String afterTopic, int limit) {
+        List<RetainedEvent> events = new ArrayList<>();
+        for (RetainedEvent event : retainedSnapshot) {
+            if (events.size() == limit) {
+                break;
+            }
+            if (event.topic().startsWith(topicPrefix)
+                    && (afterTopic == null || event.topic().compareTo(afterTopic) > 0)) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Sends one event. With snapshots enabled the message is [topic][payload][sequence], where the sequence is an
+     * 8-byte big-endian counter per topic that lets subscribers detect gaps.
+     */
+    private DockerStatusEvent publish(String eventTopic, List<DockerStatusEncodingCache.Entry> statuses,
+                                      long generatedAt) {
+        DockerStatusEvent.Builder builder = DockerStatusEvent.newBuilder().setGeneratedAtEpochMs(generatedAt);
+        for (DockerStatusEncodingCache.Entry entry : statuses) {
+            builder.addStatuses(entry.status());
+        }
+        DockerStatusEvent event = builder.build();
+        byte[] encoded = DockerStatusEncodingCache.encodeEvent(statuses, generatedAt);
+
+        if (!snapshotsEnabled) {
+            zmqWrapper.sendEncoded(socketName, eventTopic, event, encoded);
+            return event;
+        }
+
+        long sequence = topicSequences.merge(eventTopic, 1L, Long::sum);
+        retained.put(eventTopic, new RetainedEvent(eventTopic, event, encoded, sequence));
+        publishedThisTick.add(eventTopic);
+        zmqWrapper.sendEncoded(socketName, eventTopic, event, encoded, Frames.longFrame(sequence));
+        return event;
+    }
+
+    /**
+     * Publishes one event per config on {@code docker.status.<configId>} so subscribers interested in a single config
+     * can subscribe to that topic and let the PUB socket filter everything else. Containers without a config are only
+     * part of the aggregate event.
+     */
+    private void publishPerConfig(List<DockerStatusEncodingCache.Entry> statuses, long generatedAt) {
+        Map<Long, List<DockerStatusEncodingCache.Entry>> byConfig = new LinkedHashMap<>();
+        for (DockerStatusEncodingCache.Entry status : statuses) {
+            long configId = status.status().getConfigId();
+            if (configId != 0) {
+                byConfig.computeIfAbsent(configId, id -> new ArrayList<>()).add(status);
+            }
+        }
+
+        for (Map.Entry<Long, List<DockerStatusEncodingCache.Entry>> entry : byConfig.entrySet()) {
+            publish(topic + "." + entry.getKey(), entry.getValue(), generatedAt);
+        }
+    }
+
+    /**
+     * Publishes the entries flagged {@code attentionNeeded} on {@code docker.status.attention}; nothing is sent when
+     * every container is in its expected state.
+     */
+    private void publishAttention(List<DockerStatusEncodingCache.Entry> statuses, long generatedAt) {
+        List<DockerStatusEncodingCache.Entry> attention = new ArrayList<>();
+        for (DockerStatusEncodingCache.Entry status : statuses) {
+            if (status.status().getAttentionNeeded()) {
+                attention.add(status);
+            }
+        }
+
+        if (!attention.isEmpty()) {
+            publish(topic + ".attention", attention, generatedAt);
+        }
+    }
 }
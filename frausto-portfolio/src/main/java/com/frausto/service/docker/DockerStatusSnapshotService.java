@@ -0,0 +1,90 @@
+package com.frausto.service.docker;
+
+import com.frausto.proto.service.DockerStatusEvent;
+import com.frausto.service.zmq.Frames;
+import com.frausto.service.zmq.RouterRequest;
+import com.frausto.service.zmq.SocketManager;
+import com.frausto.service.zmq.ZMQWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Serves the current Docker status to late-joining subscribers over a ROUTER socket (the ZeroMQ "clone" pattern).
+ * A subscriber first subscribes on the PUB socket, then sends a request whose topic frame is the prefix it subscribed
+ * to. The service replies with one [topic][DockerStatusEvent][sequence] message per retained topic, in topic order,
+ * followed by [snapshot.end][empty][count], plus a [next] frame when more topics remain. The subscriber then applies
+ * only PUB updates whose sequence is greater than the snapshot's for the same topic, and treats a jump of more than
+ * one as a missed message.
+ * <p>
+ * Replies are paged so every page, end marker included, fits in the socket's task queue: requests are handled on the
+ * reactor thread, which is the only producer on this socket, so the room it sees cannot shrink while it replies. To
+ * fetch the next page the subscriber repeats the request with the {@code next} frame as its payload.
+ */
+@Service
+public class DockerStatusSnapshotService {
+    private static final Logger log = LoggerFactory.getLogger(DockerStatusSnapshotService.class);
+    static final String END_TOPIC = "snapshot.end";
+
+    private final ZMQWrapper zmqWrapper;
+    private final DockerStatusPublisher publisher;
+    private final int pageSize;
+    private final String socketName = "docker-status-snapshot";
+
+    /**
+     * @param pageSize Most topics sent per request; further topics are fetched with the returned cursor. Must stay
+     *                 below the ROUTER socket's send high-water mark, beyond which ZeroMQ drops replies silently.
+     */
+    public DockerStatusSnapshotService(
+            ZMQWrapper zmqWrapper,
+            DockerStatusPublisher publisher,
+            @Value("${docker.status.snapshot.enabled:false}") boolean enabled,
+            @Value("${docker.status.snapshotEndpoint:tcp://*:5557}") String snapshotEndpoint,
+            @Value("${docker.status.snapshot.pageSize:256}") int pageSize) {
+        if (pageSize < 1 || pageSize >= SocketManager.DEFAULT_SND_HWM) {
+            throw new IllegalArgumentException("docker.status.snapshot.pageSize must be between 1 and "
+                    + (SocketManager.DEFAULT_SND_HWM - 1) + ": " + pageSize);
+        }
+        this.zmqWrapper = zmqWrapper;
+        this.publisher = publisher;
+        this.pageSize = pageSize;
+        if (enabled) {
+            zmqWrapper.addRouterSocket(socketName, snapshotEndpoint, true, this::handleSnapshotRequest);
+            log.info("Docker status snapshot service bound to {} (socket {})", snapshotEndpoint, socketName);
+        }
+    }
+
+    private void handleSnapshotRequest(RouterRequest request) {
+        int room = zmqWrapper.queueRemaining(socketName) - 1;  // keep a slot for the end marker
+        if (room < 0) {
+            log.warn("Snapshot socket queue full, dropping request for prefix {}", request.getTopic());
+            return;
+        }
+        byte[] cursor = request.getPayload();
+        String after = cursor.length == 0 ? null : new String(cursor, StandardCharsets.UTF_8);
+        int limit = Math.min(pageSize, room);
+
+        List<DockerStatusPublisher.RetainedEvent> events = publisher.snapshot(request.getTopic(), after, limit + 1);
+        boolean more = events.size() > limit;
+        if (more) {
+            events = events.subList(0, limit);
+        }
+        for (DockerStatusPublisher.RetainedEvent event : events) {
+            zmqWrapper.reply(socketName, request, event.topic(), event.encoded(), Frames.longFrame(event.sequence()));
+        }
+
+        // An empty message serializes to zero bytes, so the end marker's payload frame is empty
+        byte[] count = Frames.longFrame(events.size());
+        if (!more) {
+            zmqWrapper.reply(socketName, request, END_TOPIC, DockerStatusEvent.getDefaultInstance(), count);
+            return;
+        }
+        String next = events.isEmpty() ? (after == null ? "" : after) : events.get(events.size() - 1).topic();
+        zmqWrapper.reply(socketName, request, END_TOPIC, DockerStatusEvent.getDefaultInstance(), count,
+                next.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,13 @@
+package com.frausto.service.journal;
+
+/**
+ * One journaled message.
+ *
+ * @param offset    position of the record in the journal, assigned on append and increasing by one per record
+ * @param timestamp epoch milliseconds at which the message was published, non-decreasing across the journal
+ * @param topic     message topic (first frame)
+ * @param sequence  publisher sequence from the message's trailing sequence frame, or 0 when it had none
+ * @param payload   serialized payload frame
+ */
+public record JournalRecord(long offset, long timestamp, String topic, long sequence, byte[] payload) {
+}
@@ -0,0 +1,165 @@
+package com.frausto.service.journal;
+
+import com.frausto.service.zmq.Frames;
+import com.frausto.service.zmq.RouterRequest;
+import com.frausto.service.zmq.SocketManager;
+import com.frausto.service.zmq.ZMQWrapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays journaled messages over a ROUTER socket.
+ * A request is [topic prefix][range], where the range is 16 bytes ([from epoch ms][to epoch ms]), 8 bytes ([from
+ * journal offset]) or 24 bytes ([from epoch ms][to epoch ms][from journal offset], resuming a time range). The service
+ * answers with one [topic][payload][sequence][timestamp] message per record, followed by [replay.end][empty][count],
+ * plus a [next offset] frame when the page is full and more records may follow.
+ * <p>
+ * A ROUTER socket drops messages beyond a peer's high-water mark without telling the sender, so a reply is one page
+ * that always fits below it; the client asks for the next page once it has read this one. Replays run on their own
+ * thread so a long range does not hold up the reactor; when the socket's queue is full the replay waits for it to
+ * drain, and gives up when the service shuts down.
+ */
+@Service
+public class JournalReplayService {
+    private static final Logger log = LoggerFactory.getLogger(JournalReplayService.class);
+    static final String END_TOPIC = "replay.end";
+    private static final long QUEUE_FULL_BACKOFF_NANOS = 1_000_000L;
+
+    private final ZMQWrapper zmqWrapper;
+    private final MessageJournal journal;
+    private final int pageSize;
+    private final String socketName = "journal-replay";
+    private ExecutorService replayExecutor;
+
+    /**
+     * @param pageSize Most records sent per request; must stay below the ROUTER socket's send high-water mark, which
+     *                 also has to hold the end marker.
+     */
+    public JournalReplayService(
+            ZMQWrapper zmqWrapper,
+            MessageJournal journal,
+            @Value("${zmq.journal.replayEndpoint:tcp://*:5559}") String replayEndpoint,
+            @Value("${zmq.journal.replay.pageSize:500}") int pageSize) {
+        if (pageSize < 1 || pageSize >= SocketManager.DEFAULT_SND_HWM) {
+            throw new IllegalArgumentException("zmq.journal.replay.pageSize must be between 1 and "
+                    + (SocketManager.DEFAULT_SND_HWM - 1) + ": " + pageSize);
+        }
+        this.zmqWrapper = zmqWrapper;
+        this.journal = journal;
+        this.pageSize = pageSize;
+        if (journal.isEnabled()) {
+            this.replayExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "ZMQJournalReplay");
+                thread.setDaemon(true);
+                return thread;
+            });
+            zmqWrapper.addRouterSocket(socketName, replayEndpoint, true, this::handleReplayRequest);
+            log.info("Journal replay service bound to {} (socket {})", replayEndpoint, socketName);
+        }
+    }
+
+    /** Runs on the reactor thread, so it never waits for queue space. */
+    private void handleReplayRequest(RouterRequest request) {
+        byte[] range = request.getPayload();
+        if (range.length != 3 * Long.BYTES && range.length != 2 * Long.BYTES && range.length != Long.BYTES) {
+            log.debug("Ignoring journal replay request with a {}-byte range frame", range.length);
+            try {
+                zmqWrapper.reply(socketName, request, END_TOPIC, Frames.EMPTY, Frames.longFrame(0));
+            } catch (RejectedExecutionException e) {
+                log.debug("Replay socket queue full, no reply to an invalid request");
+            }
+            return;
+        }
+        replayExecutor.execute(() -> replay(request, ByteBuffer.wrap(range)));
+    }
+
+    private void replay(RouterRequest request, ByteBuffer range) {
+        Page page = new Page(request);
+        try {
+            if (range.remaining() == Long.BYTES) {
+                journal.replayFrom(range.getLong(), request.getTopic(), pageSize + 1L, page::accept);
+            } else {
+                long fromMs = range.getLong();
+                long toMs = range.getLong();
+                if (range.hasRemaining()) {
+                    journal.replayFrom(range.getLong(), toMs, request.getTopic(), pageSize + 1L, page::accept);
+                } else {
+                    journal.replay(fromMs, toMs, request.getTopic(), pageSize + 1L, page::accept);
+                }
+            }
+        } catch (CancellationException e) {
+            log.debug("Journal replay for prefix {} cancelled", request.getTopic());
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Journal replay for prefix {} failed", request.getTopic(), e);
+            page.next = 0;
+        }
+
+        try {
+            if (page.next == 0) {
+                replyWhenQueued(request, END_TOPIC, Frames.EMPTY, Frames.longFrame(page.count));
+            } else {
+                replyWhenQueued(request, END_TOPIC, Frames.EMPTY, Frames.longFrame(page.count),
+                        Frames.longFrame(page.next));
+            }
+        } catch (CancellationException e) {
+            log.debug("Journal replay for prefix {} cancelled", request.getTopic());
+        }
+    }
+
+    /**
+     * Waits for room in the socket's queue. Only called on the replay thread; interrupting it (shutdown) ends the
+     * wait with a CancellationException.
+     */
+    private void replyWhenQueued(RouterRequest request, String topic, byte[] payload, byte[]... trailer) {
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Journal replay interrupted");
+            }
+            try {
+                zmqWrapper.reply(socketName, request, topic, payload, trailer);
+                return;
+            } catch (RejectedExecutionException e) {
+                LockSupport.parkNanos(this, QUEUE_FULL_BACKOFF_NANOS);
+            }
+        }
+    }
+
+    /** Sends up to pageSize records; the record after them only marks where the next page starts. */
+    private final class Page {
+        private final RouterRequest request;
+        private long count;
+        private long next;  // offset the next page starts at, 0 when this page is the last
+
+        private Page(RouterRequest request) {
+            this.request = request;
+        }
+
+        private void accept(JournalRecord record) {
+            if (count == pageSize) {
+                next = record.offset();
+                return;
+            }
+            replyWhenQueued(request, record.topic(), record.payload(), Frames.longFrame(record.sequence()),
+                    Frames.longFrame(record.timestamp()));
+            count++;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (replayExecutor != null) {
+            replayExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.frausto.service.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * One memory-mapped journal segment: a preallocated log file of records and a dense index file with one entry per
+ * record.
+ * <pre>
+ * log record:  [int length][long offset][long timestamp][long sequence][short topic length][topic][payload]
+ * index entry: [long offset][long timestamp][int log position]
+ * </pre>
+ * Only the journal's writer thread appends. Readers may run concurrently: the writer fills in a record and its index
+ * entry before publishing the new entry count through a volatile write, and readers never look past the count they
+ * read. Offsets start at 1, so an index entry whose offset is 0 marks the end of the segment after a restart.
+ */
+class JournalSegment {
+    static final String LOG_SUFFIX = ".log";
+    static final String INDEX_SUFFIX = ".idx";
+    static final int RECORD_HEADER_BYTES = 4 + 8 + 8 + 8 + 2;
+    private static final int INDEX_ENTRY_BYTES = 8 + 8 + 4;
+
+    private final long baseOffset;
+    private final Path logPath;
+    private final Path indexPath;
+    private final MappedByteBuffer log;
+    private final MappedByteBuffer index;
+    private final int indexCapacity;  // entries
+    private volatile int entries;  // published entry count, written last by append
+    private volatile long firstTimestamp;
+    private volatile long lastTimestamp;
+    private int writePosition;  // writer thread only
+
+    private JournalSegment(long baseOffset, Path logPath, Path indexPath, MappedByteBuffer log, MappedByteBuffer index) {
+        this.baseOffset = baseOffset;
+        this.logPath = logPath;
+        this.indexPath = indexPath;
+        this.log = log;
+        this.index = index;
+        this.indexCapacity = index.capacity() / INDEX_ENTRY_BYTES;
+    }
+
+    /**
+     * Creates and maps a new, empty segment whose first record will get {@code baseOffset}.
+     */
+    static JournalSegment create(Path directory, long baseOffset, int logBytes, int indexEntries) throws IOException {
+        Path logPath = directory.resolve(fileName(baseOffset, LOG_SUFFIX));
+        Path indexPath = directory.resolve(fileName(baseOffset, INDEX_SUFFIX));
+        return new JournalSegment(baseOffset, logPath, indexPath,
+                map(logPath, logBytes), map(indexPath, indexEntries * INDEX_ENTRY_BYTES));
+    }
+
+    /**
+     * Maps an existing segment and recovers its end: index entries are counted up to the first empty one, then any
+     * complete records written after the last indexed one (e.g. before a crash) are indexed.
+     */
+    static JournalSegment open(Path logPath) throws IOException {
+        String name = logPath.getFileName().toString();
+        long baseOffset = Long.parseLong(name.substring(0, name.length() - LOG_SUFFIX.length()));
+        Path indexPath = logPath.resolveSibling(fileName(baseOffset, INDEX_SUFFIX));
+        JournalSegment segment = new JournalSegment(baseOffset, logPath, indexPath,
+                map(logPath, (int) Files.size(logPath)), map(indexPath, (int) Files.size(indexPath)));
+        segment.recover();
+        return segment;
+    }
+
+    private static MappedByteBuffer map(Path path, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);  // the mapping outlives the channel
+        }
+    }
+
+    static String fileName(long baseOffset, String suffix) {
+        return String.format("%020d%s", baseOffset, suffix);
+    }
+
+    private void recover() {
+        int count = 0;
+        while (count < indexCapacity && index.getLong(count * INDEX_ENTRY_BYTES) != 0) {
+            count++;
+        }
+
+        int position = 0;
+        long expectedOffset = baseOffset;
+        if (count > 0) {
+            int lastPosition = index.getInt((count - 1) * INDEX_ENTRY_BYTES + 16);
+            position = lastPosition + 4 + log.getInt(lastPosition);
+            expectedOffset = index.getLong((count - 1) * INDEX_ENTRY_BYTES) + 1;
+        }
+        while (count < indexCapacity && position + RECORD_HEADER_BYTES <= log.capacity()) {
+            int length = log.getInt(position);
+            if (length < RECORD_HEADER_BYTES - 4 || position + 4 + length > log.capacity()
+                    || log.getLong(position + 4) != expectedOffset) {
+                break;
+            }
+            writeIndexEntry(count++, expectedOffset++, log.getLong(position + 12), position);
+            position += 4 + length;
+        }
+
+        writePosition = position;
+        if (count > 0) {
+            firstTimestamp = index.getLong(8);
+            lastTimestamp = index.getLong((count - 1) * INDEX_ENTRY_BYTES + 8);
+        }
+        entries = count;
+    }
+
+    /**
+     * Appends a record. Writer thread only.
+     *
+     * @return false if the segment has no room left for it
+     */
+    boolean append(long offset, long timestamp, byte[] topic, long sequence, byte[] payload) {
+        int count = entries;
+        int length = RECORD_HEADER_BYTES - 4 + topic.length + payload.length;
+        int position = writePosition;
+        if (count >= indexCapacity || (long) position + 4 + length > log.capacity()) {
+            return false;
+        }
+
+        log.putLong(position + 4, offset);
+        log.putLong(position + 12, timestamp);
+        log.putLong(position + 20, sequence);
+        log.putShort(position + 28, (short) topic.length);
+        log.put(position + RECORD_HEADER_BYTES, topic);
+        log.put(position + RECORD_HEADER_BYTES + topic.length, payload);
+        log.putInt(position, length);  // a record only counts once its length is set
+        writeIndexEntry(count, offset, timestamp, position);
+
+        writePosition = position + 4 + length;
+        if (count == 0) firstTimestamp = timestamp;
+        lastTimestamp = timestamp;
+        entries = count + 1;  // publishes the record to readers
+        return true;
+    }
+
+    private void writeIndexEntry(int entry, long offset, long timestamp, int position) {
+        int at = entry * INDEX_ENTRY_BYTES;
+        index.putLong(at + 8, timestamp);
+        index.putInt(at + 16, position);
+        index.putLong(at, offset);  // non-zero offset marks the entry as present
+    }
+
+    /**
+     * Visits records with {@code fromMs <= timestamp <= toMs} whose topic starts with {@code topicPrefix}, locating the
+     * first one by binary search over the index.
+     *
+     * @return number of records visited
+     */
+    long readByTime(long fromMs, long toMs, String topicPrefix, long limit, Consumer<JournalRecord> visitor) {
+        int count = entries;
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (index.getLong(mid * INDEX_ENTRY_BYTES + 8) < fromMs) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return readEntries(low, count, toMs, topicPrefix, limit, visitor);
+    }
+
+    /**
+     * Visits records from {@code fromOffset} on whose topic starts with {@code topicPrefix}. The index is dense, so
+     * the first entry is found directly.
+     *
+     * @return number of records visited
+     */
+    long readByOffset(long fromOffset, String topicPrefix, long limit, Consumer<JournalRecord> visitor) {
+        return readByOffset(fromOffset, Long.MAX_VALUE, topicPrefix, limit, visitor);
+    }
+
+    /**
+     * Visits records from {@code fromOffset} on, published up to {@code toMs}, whose topic starts with
+     * {@code topicPrefix}; used to resume a time-range read where an earlier one stopped.
+     *
+     * @return number of records visited
+     */
+    long readByOffset(long fromOffset, long toMs, String topicPrefix, long limit, Consumer<JournalRecord> visitor) {
+        int count = entries;
+        long first = Math.max(0, fromOffset - baseOffset);
+        if (first >= count) {
+            return 0;
+        }
+        return readEntries((int) first, count, toMs, topicPrefix, limit, visitor);
+    }
+
+    private long readEntries(int from, int count, long toMs, String topicPrefix, long limit,
+                             Consumer<JournalRecord> visitor) {
+        byte[] prefix = topicPrefix == null ? new byte[0] : topicPrefix.getBytes(StandardCharsets.UTF_8);
+        long visited = 0;
+        for (int entry = from; entry < count && visited < limit; entry++) {
+            int at = entry * INDEX_ENTRY_BYTES;
+            long timestamp = index.getLong(at + 8);
+            if (timestamp > toMs) {
+                break;
+            }
+
+            int position = index.getInt(at + 16);
+            int topicLength = log.getShort(position + 28);
+            if (!topicStartsWith(position + RECORD_HEADER_BYTES, topicLength, prefix)) {
+                continue;
+            }
+            byte[] topic = new byte[topicLength];
+            log.get(position + RECORD_HEADER_BYTES, topic);
+            byte[] payload = new byte[log.getInt(position) - (RECORD_HEADER_BYTES - 4) - topicLength];
+            log.get(position + RECORD_HEADER_BYTES + topicLength, payload);
+
+            visitor.accept(new JournalRecord(index.getLong(at), timestamp, new String(topic, StandardCharsets.UTF_8),
+                    log.getLong(position + 20), payload));
+            visited++;
+        }
+        return visited;
+    }
+
+    private boolean topicStartsWith(int topicPosition, int topicLength, byte[] prefix) {
+        if (topicLength < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (log.get(topicPosition + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Flushes written pages to disk. */
+    void force() {
+        log.force();
+        index.force();
+    }
+
+    /** Removes the segment's files; existing mappings stay readable until they are garbage collected. */
+    void delete() throws IOException {
+        Files.deleteIfExists(logPath);
+        Files.deleteIfExists(indexPath);
+    }
+
+    boolean isEmpty() {
+        return entries == 0;
+    }
+
+    long getBaseOffset() {
+        return baseOffset;
+    }
+
+    /** Offset the next record appended to this segment gets. */
+    long getNextOffset() {
+        return baseOffset + entries;
+    }
+
+    long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /** Bytes the segment occupies on disk; files are preallocated to their full size. */
+    long getSizeBytes() {
+        return (long) log.capacity() + index.capacity();
+    }
+}
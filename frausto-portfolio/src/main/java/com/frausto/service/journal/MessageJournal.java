@@ -0,0 +1,351 @@
+package com.frausto.service.journal;
+
+import com.frausto.service.zmq.Frames;
+import com.frausto.service.zmq.TaskRingBuffer;
+import com.frausto.service.zmq.ZMQWrapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Optional append-only journal of published ZeroMQ messages, stored in memory-mapped {@link JournalSegment}s.
+ * The journal taps the configured sockets (and optionally the proxy's capture stream): after a message has been sent,
+ * its payload is copied and offered to a ring buffer, and a dedicated writer thread appends it to the active segment.
+ * A full ring drops the record (counted in zmq.journal.dropped) rather than slowing the publisher. The writer rolls to
+ * a new segment when the active one is full, flushes once a second and deletes the oldest segments once the journal
+ * exceeds its size or age limit.
+ * <p>
+ * Records are looked up by time (binary search over each segment's index) or by journal offset, and can be replayed
+ * over HTTP ({@code GET /api/journal/replay}) or ZeroMQ ({@link JournalReplayService}).
+ */
+@Service
+public class MessageJournal {
+    private static final Logger log = LoggerFactory.getLogger(MessageJournal.class);
+    private static final long MAINTENANCE_INTERVAL_MS = 1000;
+    private static final long IDLE_PARK_NANOS = 5_000_000L;
+    private static final int MIN_SEGMENT_BYTES = 1024 * 1024;
+
+    private record PendingRecord(long timestamp, String topic, long sequence, byte[] payload) {
+    }
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final int indexEntries;
+    private final long maxBytes;
+    private final long maxAgeMs;
+    private final TaskRingBuffer<PendingRecord> pending;
+    private final List<JournalSegment> segments = new CopyOnWriteArrayList<>();  // oldest first, last is active
+    private final AtomicLong appendedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private Thread writer;
+    private volatile boolean running;
+
+    // Writer thread only
+    private long nextOffset = 1;
+    private long lastTimestamp;
+
+    /**
+     * @param enabled Journal messages sent on {@code sockets}.
+     * @param directory Directory holding the segment files.
+     * @param sockets Names of the sockets to journal.
+     * @param captureProxy Also journal every message forwarded by the XSUB/XPUB proxy (needs proxy capture).
+     * @param segmentBytes Size of each segment's log file.
+     * @param maxBytes Oldest segments are deleted while the journal is larger than this.
+     * @param maxAge Segments whose newest record is older than this are deleted.
+     * @param queueCapacity Records waiting for the writer before new ones are dropped.
+     */
+    public MessageJournal(
+            ZMQWrapper zmqWrapper,
+            MeterRegistry meterRegistry,
+            @Value("${zmq.journal.enabled:false}") boolean enabled,
+            @Value("${zmq.journal.directory:./data/journal}") String directory,
+            @Value("${zmq.journal.sockets:docker-status-pub}") String[] sockets,
+            @Value("${zmq.journal.captureProxy:false}") boolean captureProxy,
+            @Value("${zmq.journal.segmentBytes:67108864}") int segmentBytes,
+            @Value("${zmq.journal.retention.maxBytes:1073741824}") long maxBytes,
+            @Value("${zmq.journal.retention.maxAge:7d}") Duration maxAge,
+            @Value("${zmq.journal.queueCapacity:8192}") int queueCapacity) {
+        if (segmentBytes < MIN_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("zmq.journal.segmentBytes must be at least " + MIN_SEGMENT_BYTES);
+        }
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+        this.indexEntries = segmentBytes / 128;  // average record of 128 bytes before the index fills first
+        this.maxBytes = maxBytes;
+        this.maxAgeMs = maxAge.toMillis();
+        this.pending = new TaskRingBuffer<>(queueCapacity, TaskRingBuffer.WaitStrategy.BLOCKING,
+                TaskRingBuffer.OverflowPolicy.REJECT, null);
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            openSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open message journal in " + this.directory, e);
+        }
+        registerMetrics(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::runWriter, "ZMQJournalWriter");
+        writer.setDaemon(true);
+        writer.start();
+
+        for (String socket : sockets) {
+            if (!socket.isBlank()) {
+                zmqWrapper.addTap(socket.trim(), this::onSent);
+            }
+        }
+        if (captureProxy) {
+            zmqWrapper.addProxyTap(this::onSent);
+        }
+        log.info("Message journal in {} recording sockets {} from offset {}", this.directory, List.of(sockets),
+                nextOffset);
+    }
+
+    private void openSegments() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> logs;
+        try (Stream<Path> files = Files.list(directory)) {
+            logs = files.filter(path -> path.getFileName().toString().endsWith(JournalSegment.LOG_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        for (Path path : logs) {
+            segments.add(JournalSegment.open(path));
+        }
+
+        if (segments.isEmpty()) {
+            segments.add(JournalSegment.create(directory, nextOffset, segmentBytes, indexEntries));
+        }
+        JournalSegment active = activeSegment();
+        nextOffset = active.getNextOffset();
+        lastTimestamp = active.getLastTimestamp();
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("zmq.journal.appended", appendedCount, AtomicLong::get)
+                .description("Messages written to the journal")
+                .register(registry);
+        FunctionCounter.builder("zmq.journal.dropped", droppedCount, AtomicLong::get)
+                .description("Messages not journaled because the writer fell behind or the record was too large")
+                .register(registry);
+        Gauge.builder("zmq.journal.segments", segments, List::size)
+                .register(registry);
+        Gauge.builder("zmq.journal.bytes", this, MessageJournal::getSizeBytes)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /** Socket tap: copies the payload and hands it to the writer without blocking. */
+    private void onSent(String topic, ByteBuffer payload, byte[][] trailer) {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        long sequence = 0;
+        if (trailer != null && trailer.length > 0 && trailer[0].length == Long.BYTES) {
+            sequence = Frames.readLong(trailer[0]);
+        }
+        append(topic, sequence, bytes);
+    }
+
+    /**
+     * Queues a message for the journal, stamped with the current time. Never blocks; returns false and counts a drop
+     * when the writer is too far behind.
+     */
+    public boolean append(String topic, long sequence, byte[] payload) {
+        if (!running) {
+            return false;
+        }
+        if (!pending.offer(new PendingRecord(System.currentTimeMillis(), topic, sequence, payload))) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private void runWriter() {
+        long lastMaintenance = System.currentTimeMillis();
+        while (running || !pending.isEmpty()) {
+            int drained = pending.drain(this::write, pending.capacity());
+
+            long now = System.currentTimeMillis();
+            if (now - lastMaintenance >= MAINTENANCE_INTERVAL_MS) {
+                activeSegment().force();
+                enforceRetention(now);
+                lastMaintenance = now;
+            }
+            if (drained == 0) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+        activeSegment().force();
+    }
+
+    private void write(PendingRecord record) {
+        byte[] topic = record.topic().getBytes(StandardCharsets.UTF_8);
+        long timestamp = Math.max(record.timestamp(), lastTimestamp);  // keeps time lookups monotonic across producers
+        if (topic.length > Short.MAX_VALUE
+                || JournalSegment.RECORD_HEADER_BYTES + topic.length + record.payload().length > segmentBytes) {
+            log.warn("Message on topic {} is too large for a journal segment, not journaled", record.topic());
+            droppedCount.incrementAndGet();
+            return;
+        }
+
+        JournalSegment active = activeSegment();
+        if (!active.append(nextOffset, timestamp, topic, record.sequence(), record.payload())) {
+            try {
+                active.force();
+                active = JournalSegment.create(directory, nextOffset, segmentBytes, indexEntries);
+                segments.add(active);
+                log.debug("Rolled message journal to segment {}", nextOffset);
+            } catch (IOException e) {
+                log.error("Failed to create journal segment {}, message on topic {} not journaled", nextOffset,
+                        record.topic(), e);
+                droppedCount.incrementAndGet();
+                return;
+            }
+            enforceRetention(System.currentTimeMillis());
+            active.append(nextOffset, timestamp, topic, record.sequence(), record.payload());
+        }
+
+        nextOffset++;
+        lastTimestamp = timestamp;
+        appendedCount.incrementAndGet();
+    }
+
+    /** Deletes the oldest segments while the journal is over its size or age limit. The active segment is kept. */
+    private void enforceRetention(long now) {
+        long total = getSizeBytes();
+        while (segments.size() > 1) {
+            JournalSegment oldest = segments.get(0);
+            boolean tooLarge = total > maxBytes;
+            boolean tooOld = !oldest.isEmpty() && oldest.getLastTimestamp() < now - maxAgeMs;
+            if (!tooLarge && !tooOld) {
+                break;
+            }
+
+            segments.remove(0);
+            total -= oldest.getSizeBytes();
+            try {
+                oldest.delete();
+                log.debug("Deleted journal segment {}", oldest.getBaseOffset());
+            } catch (IOException e) {
+                log.warn("Failed to delete journal segment {}", oldest.getBaseOffset(), e);
+            }
+        }
+    }
+
+    private JournalSegment activeSegment() {
+        return segments.get(segments.size() - 1);
+    }
+
+    /**
+     * Visits journaled messages published between {@code fromMs} and {@code toMs} (inclusive) on topics starting with
+     * {@code topicPrefix}, oldest first.
+     *
+     * @param limit Maximum number of records to visit.
+     * @return number of records visited
+     */
+    public long replay(long fromMs, long toMs, String topicPrefix, long limit, Consumer<JournalRecord> visitor) {
+        requireEnabled();
+        long visited = 0;
+        for (JournalSegment segment : segments) {  // iterates a snapshot, concurrent rolls and deletes are safe
+            if (segment.isEmpty() || segment.getLastTimestamp() < fromMs) {
+                continue;
+            }
+            if (segment.getFirstTimestamp() > toMs || visited >= limit) {
+                break;
+            }
+            visited += segment.readByTime(fromMs, toMs, topicPrefix, limit - visited, visitor);
+        }
+        return visited;
+    }
+
+    /**
+     * Visits journaled messages from journal offset {@code fromOffset} on, on topics starting with
+     * {@code topicPrefix}, oldest first.
+     *
+     * @param limit Maximum number of records to visit.
+     * @return number of records visited
+     */
+    public long replayFrom(long fromOffset, String topicPrefix, long limit, Consumer<JournalRecord> visitor) {
+        return replayFrom(fromOffset, Long.MAX_VALUE, topicPrefix, limit, visitor);
+    }
+
+    /**
+     * Visits journaled messages from journal offset {@code fromOffset} on that were published up to {@code toMs}
+     * (inclusive), on topics starting with {@code topicPrefix}, oldest first. Resumes a time-range replay from the
+     * offset of the first record it did not deliver.
+     *
+     * @param limit Maximum number of records to visit.
+     * @return number of records visited
+     */
+    public long replayFrom(long fromOffset, long toMs, String topicPrefix, long limit,
+                           Consumer<JournalRecord> visitor) {
+        requireEnabled();
+        long visited = 0;
+        for (JournalSegment segment : segments) {
+            if (segment.getNextOffset() <= fromOffset) {
+                continue;
+            }
+            if (visited >= limit || (!segment.isEmpty() && segment.getFirstTimestamp() > toMs)) {
+                break;
+            }
+            visited += segment.readByOffset(fromOffset, toMs, topicPrefix, limit - visited, visitor);
+        }
+        return visited;
+    }
+
+    private void requireEnabled() {
+        if (!enabled) {
+            throw new IllegalStateException("Message journal is disabled (zmq.journal.enabled=false)");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getSizeBytes() {
+        long total = 0;
+        for (JournalSegment segment : segments) {
+            total += segment.getSizeBytes();
+        }
+        return total;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;  // the writer drains what is queued, then flushes
+        try {
+            writer.join(MAINTENANCE_INTERVAL_MS * 5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.frausto.service.terminal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A terminal session that outlives its client connection. It is the output sink of the exec: every chunk is kept in
+ * a scrollback ring and forwarded to the attached client, if any. While no client is attached output only goes to
+ * the scrollback, so the process keeps running; a client attaching later first receives the scrollback and then the
+ * live output.
+ * <p>
+ * The monitor only guards the scrollback and the expiry, so it is never held while writing to a client: a slow
+ * client cannot stall the input path, which checks the current client on every frame without locking. Writes to the
+ * client are ordered by a separate send lock, which keeps the scrollback replay ahead of live output.
+ */
+public class DetachableTerminalSession implements TerminalOutputSink {
+    private static final Logger log = LoggerFactory.getLogger(DetachableTerminalSession.class);
+
+    private final String token;
+    private final String containerId;
+    private final TerminalScrollback scrollback;  // guarded by this
+    private final Consumer<DetachableTerminalSession> onEnded;
+    private final AtomicBoolean ended = new AtomicBoolean();
+    private final AtomicReference<TerminalOutputSink> client = new AtomicReference<>();  // set under this
+    private final ReentrantLock sendLock = new ReentrantLock();  // orders writes to the client
+    private volatile TerminalSessionHandle handle;
+    private ScheduledFuture<?> expiry;  // guarded by this, pending while detached
+
+    DetachableTerminalSession(String token, String containerId, int scrollbackBytes,
+                              Consumer<DetachableTerminalSession> onEnded) {
+        this.token = token;
+        this.containerId = containerId;
+        this.scrollback = new TerminalScrollback(scrollbackBytes);
+        this.onEnded = onEnded;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public String getContainerId() {
+        return containerId;
+    }
+
+    public TerminalSessionHandle getHandle() {
+        return handle;
+    }
+
+    void setHandle(TerminalSessionHandle handle) {
+        this.handle = handle;
+    }
+
+    int getScrollbackCapacity() {
+        return scrollback.capacity();
+    }
+
+    /**
+     * Makes {@code newClient} the session's client, replacing any current one, and sends it the scrollback.
+     *
+     * @return false if the session has ended
+     */
+    boolean attach(TerminalOutputSink newClient) {
+        TerminalOutputSink previous;
+        synchronized (this) {
+            if (ended.get()) {
+                return false;
+            }
+            cancelExpiry();
+            previous = client.getAndSet(null);
+        }
+        if (previous != null && previous != newClient) {
+            // Also fails a write still blocked on it, which frees the send lock
+            previous.close(CloseStatus.NORMAL.withReason("Terminal session attached elsewhere"));
+        }
+
+        sendLock.lock();
+        try {
+            byte[] history;
+            synchronized (this) {
+                if (ended.get()) {
+                    return false;
+                }
+                // Installed together with the snapshot: chunks appended after it go live and queue behind the replay
+                history = scrollback.snapshot();
+                client.set(newClient);
+            }
+            if (history.length > 0) {
+                try {
+                    newClient.send(history);
+                } catch (IOException e) {
+                    log.debug("Unable to replay scrollback of terminal session {}", token, e);
+                    client.compareAndSet(newClient, null);  // stays detached, the client is gone
+                }
+            }
+            return true;
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    /**
+     * Detaches {@code oldClient} if it is still the session's client.
+     *
+     * @return true if the session is now detached and still running
+     */
+    boolean detach(TerminalOutputSink oldClient) {
+        client.compareAndSet(oldClient, null);
+        return client.get() == null && !ended.get();
+    }
+
+    boolean isClient(TerminalOutputSink sink) {
+        return client.get() == sink;
+    }
+
+    boolean isAttached() {
+        return client.get() != null;
+    }
+
+    synchronized void setExpiry(ScheduledFuture<?> expiry) {
+        cancelExpiry();
+        this.expiry = expiry;
+    }
+
+    synchronized void cancelExpiry() {
+        if (expiry != null) {
+            expiry.cancel(false);
+            expiry = null;
+        }
+    }
+
+    @Override
+    public void send(byte[] chunk) {
+        TerminalOutputSink target;
+        synchronized (this) {
+            scrollback.append(chunk);
+            target = client.get();
+        }
+        if (target == null) {
+            return;
+        }
+        sendLock.lock();
+        try {
+            if (client.get() != target) {
+                return;  // replaced meanwhile; a new client got this chunk with the scrollback
+            }
+            target.send(chunk);
+        } catch (IOException | RuntimeException e) {
+            // The client went away; output keeps going to the scrollback until someone reattaches
+            log.debug("Terminal session {} lost its client", token, e);
+            client.compareAndSet(target, null);
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    @Override
+    public int writableBytes() {
+        TerminalOutputSink current = client.get();
+        return current == null ? Integer.MAX_VALUE : current.writableBytes();
+    }
+
+    /** Ends the session, e.g. because the exec exited, and closes the attached client with {@code status}. */
+    @Override
+    public void close(CloseStatus status) {
+        if (!ended.compareAndSet(false, true)) {
+            return;
+        }
+        TerminalOutputSink current;
+        synchronized (this) {
+            current = client.getAndSet(null);
+            cancelExpiry();
+        }
+        onEnded.accept(this);
+        if (current != null) {
+            current.close(status);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !ended.get();
+    }
+}
@@ -0,0 +1,219 @@
+package com.frausto.service.terminal;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Terminal sessions that survive client disconnects. Each session gets a random token; a client that loses its
+ * connection can reattach with the token within the grace period and receives the scrollback before live output.
+ * Sessions left detached longer than the grace period are closed.
+ * <p>
+ * Scrollback memory is reserved when a session opens: {@code scrollbackBytes} per session, and at most
+ * {@code scrollbackBudgetBytes} across all sessions. A session that does not fit in the budget is refused.
+ */
+@Component
+public class DetachableTerminalSessions {
+    private static final Logger log = LoggerFactory.getLogger(DetachableTerminalSessions.class);
+    private static final int TOKEN_BYTES = 24;
+
+    private final TerminalSessionService terminalSessionService;
+    private final boolean enabled;
+    private final Duration grace;
+    private final int scrollbackBytes;
+    private final long scrollbackBudgetBytes;
+    private final AtomicLong scrollbackReserved = new AtomicLong();
+    private final Map<String, DetachableTerminalSession> sessions = new ConcurrentHashMap<>();  // by token
+    private final SecureRandom random = new SecureRandom();
+    private final ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "TerminalSessionReaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param enabled Keep sessions open across disconnects; when false sessions end with their connection.
+     * @param grace How long a detached session waits for a client to reattach.
+     * @param scrollbackBytes Output kept per session for reattaching clients.
+     * @param scrollbackBudgetBytes Scrollback memory across all sessions.
+     */
+    public DetachableTerminalSessions(TerminalSessionService terminalSessionService,
+                                      @Value("${terminal.detach.enabled:true}") boolean enabled,
+                                      @Value("${terminal.detach.grace:60s}") Duration grace,
+                                      @Value("${terminal.detach.scrollbackBytes:262144}") int scrollbackBytes,
+                                      @Value("${terminal.detach.scrollbackBudgetBytes:67108864}") long scrollbackBudgetBytes,
+                                      MeterRegistry meterRegistry) {
+        this.terminalSessionService = terminalSessionService;
+        this.enabled = enabled;
+        this.grace = grace;
+        this.scrollbackBytes = scrollbackBytes;
+        this.scrollbackBudgetBytes = scrollbackBudgetBytes;
+        Gauge.builder("terminal.sessions.detached", this, DetachableTerminalSessions::getDetachedSessions)
+                .register(meterRegistry);
+        Gauge.builder("terminal.scrollback.bytes", scrollbackReserved, AtomicLong::get)
+                .description("Scrollback memory reserved by open sessions")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Most scrollback a client receives at once when it attaches. */
+    public int getScrollbackBytes() {
+        return scrollbackBytes;
+    }
+
+    /**
+     * Starts a detachable session. It has no client yet; output until the first {@link #attach} is kept in the
+     * scrollback and replayed on attach. Like any detached session it closes if nobody attaches within the grace
+     * period.
+     *
+     * @throws TerminalSessionLimitException if a session cap or the scrollback budget is reached
+     */
+    public DetachableTerminalSession open(String containerId, List<String> command) throws IOException {
+        if (scrollbackReserved.addAndGet(scrollbackBytes) > scrollbackBudgetBytes) {
+            scrollbackReserved.addAndGet(-scrollbackBytes);
+            throw new TerminalSessionLimitException("Terminal scrollback budget of " + scrollbackBudgetBytes
+                    + " bytes reached");
+        }
+
+        DetachableTerminalSession session = new DetachableTerminalSession(newToken(), containerId, scrollbackBytes,
+                this::onEnded);
+        sessions.put(session.getToken(), session);
+        try {
+            session.setHandle(terminalSessionService.openSession(containerId, command, session));
+        } catch (IOException | RuntimeException e) {
+            onEnded(session);
+            throw e;
+        }
+        scheduleExpiry(session);
+        return session;
+    }
+
+    /**
+     * Looks up a running session by token.
+     */
+    public DetachableTerminalSession find(String token) {
+        DetachableTerminalSession session = token == null ? null : sessions.get(token);
+        if (session == null) {
+            throw new IllegalArgumentException("Terminal session not found or expired");
+        }
+        return session;
+    }
+
+    /**
+     * Makes {@code client} the session's client: it receives the scrollback, then live output. A client attached
+     * elsewhere is closed.
+     */
+    public void attach(DetachableTerminalSession session, TerminalOutputSink client) {
+        if (!session.attach(client)) {
+            throw new IllegalArgumentException("Terminal session not found or expired");
+        }
+        resumeOutput(session);
+    }
+
+    /**
+     * Called when {@code client}'s connection dropped: the session keeps running for the grace period.
+     */
+    public void detach(DetachableTerminalSession session, TerminalOutputSink client) {
+        if (session.detach(client)) {
+            scheduleExpiry(session);
+            resumeOutput(session);
+            log.debug("Terminal session on container {} detached, kept for {}", session.getContainerId(), grace);
+        }
+    }
+
+    /**
+     * Whether {@code client} is the session's current client. Input from a connection the session was taken away
+     * from is dropped, so only one connection feeds the session's stdin.
+     */
+    public boolean isClient(DetachableTerminalSession session, TerminalOutputSink client) {
+        return session.isClient(client);
+    }
+
+    /**
+     * The session's writable bytes change with its client: the previous one may have had no credit left, and the
+     * coalescer waits for a wakeup before it asks again.
+     */
+    private void resumeOutput(DetachableTerminalSession session) {
+        TerminalSessionHandle handle = session.getHandle();
+        if (handle != null) {
+            handle.getOutput().onWritable();
+        }
+    }
+
+    /**
+     * Ends the session on behalf of {@code client}, e.g. because the user closed the terminal. Ignored when another
+     * client has taken the session over.
+     */
+    public void close(DetachableTerminalSession session, TerminalOutputSink client) {
+        if (session.isClient(client)) {
+            terminate(session);
+        }
+    }
+
+    private void scheduleExpiry(DetachableTerminalSession session) {
+        session.setExpiry(reaper.schedule(() -> expire(session), grace.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    private void expire(DetachableTerminalSession session) {
+        if (!session.isAttached()) {
+            log.info("Terminal session on container {} was not reattached within {}, closing",
+                    session.getContainerId(), grace);
+            terminate(session);
+        }
+    }
+
+    private void terminate(DetachableTerminalSession session) {
+        TerminalSessionHandle handle = session.getHandle();
+        session.close(CloseStatus.NORMAL);
+        terminalSessionService.close(handle);
+    }
+
+    /** Releases the session's token and scrollback reservation once, whichever way it ended. */
+    private void onEnded(DetachableTerminalSession session) {
+        if (sessions.remove(session.getToken(), session)) {
+            scrollbackReserved.addAndGet(-session.getScrollbackCapacity());
+        }
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public int getDetachedSessions() {
+        int detached = 0;
+        for (DetachableTerminalSession session : sessions.values()) {
+            if (!session.isAttached()) {
+                detached++;
+            }
+        }
+        return detached;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reaper.shutdownNow();
+    }
+}
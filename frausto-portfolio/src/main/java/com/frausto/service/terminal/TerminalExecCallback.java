@@ -4,41 +4,57 @@ import com.github.dockerjava.api.async.ResultCallbackTemplate;
 import com.github.dockerjava.api.model.Frame;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.web.socket.BinaryMessage;
-import org.springframework.web.socket.CloseStatus;
-import org.springframework.web.socket.WebSocketSession;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 public class TerminalExecCallback extends ResultCallbackTemplate<TerminalExecCallback, Frame> {
     private static final Logger log = LoggerFactory.getLogger(TerminalExecCallback.class);
 
-    private final WebSocketSession session;
+    private final TerminalOutputCoalescer output;
+    private final Consumer<Throwable> onFinished;
+    private final AtomicBoolean finished = new AtomicBoolean();
 
-    public TerminalExecCallback(WebSocketSession session) {
-        this.session = session;
+    /**
+     * @param onFinished Runs once when the exec stream ends, with the error or null; no thread waits for it.
+     */
+    public TerminalExecCallback(TerminalOutputCoalescer output, Consumer<Throwable> onFinished) {
+        this.output = output;
+        this.onFinished = onFinished;
     }
 
     @Override
     public void onNext(Frame frame) {
-        if (!session.isOpen()) {
+        // Queued for coalesced sending; with the PAUSE policy this holds the Docker stream while the client catches up
+        if (!output.accept(frame.getPayload())) {
             try {
                 close();
             } catch (IOException e) {
-                log.debug("Error closing callback after socket closed", e);
+                log.debug("Error closing callback after terminal output closed", e);
             }
-            return;
         }
+    }
 
-        try {
-            session.sendMessage(new BinaryMessage(frame.getPayload()));
-        } catch (IOException e) {
-            log.warn("Unable to forward terminal data to websocket", e);
-            try {
-                session.close(CloseStatus.SERVER_ERROR);
-            } catch (IOException ignored) {
-                // ignore secondary close errors
-            }
+    @Override
+    public void onError(Throwable throwable) {
+        super.onError(throwable);
+        finish(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        super.onComplete();
+        finish(null);
+    }
+
+    private void finish(Throwable error) {
+        if (finished.compareAndSet(false, true)) {
+            onFinished.accept(error);
         }
     }
-}
\ No newline at end of file
+
+    public TerminalOutputCoalescer getOutput() {
+        return output;
+    }
+}
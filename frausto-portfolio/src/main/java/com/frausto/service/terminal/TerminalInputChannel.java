@@ -0,0 +1,253 @@
+package com.frausto.service.terminal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Bounded single-consumer byte ring carrying terminal input to a Docker exec's stdin.
+ * The WebSocket side writes keystrokes and pastes with {@link #write}, or with {@link #offer} where it must not wait;
+ * docker-java's stdin pump reads the channel as an {@link InputStream}. A read returns as soon as any bytes are
+ * queued instead of waiting for a full buffer, and both sides park only while the ring is empty or full, woken
+ * directly by the other side.
+ * <p>
+ * One thread reads. Writers are serialized by a lock: messages of one connection arrive in order, but when a
+ * detachable session is reattached, input from the old connection may still be in flight while the new one writes.
+ * The handlers drop input from a connection that is no longer the session's client, and the lock keeps the ring
+ * consistent in the window between that check and the write.
+ * <p>
+ * Positions count bytes since the channel was created, so a writer that must not overrun the ring (the mux
+ * protocol's input credit) can track free space from {@link #readPosition()} and a {@link #setReadListener
+ * read listener} without taking the lock.
+ */
+public class TerminalInputChannel extends InputStream {
+    private static final long MAX_PARK_NANOS = 100_000_000L;  // safety net, wakeups are signalled
+    private static final long OFFER_LOCK_NANOS = 1_000_000L;  // a writer holds the lock longer only on a full ring
+
+    private final byte[] buffer;
+    private final int mask;
+    private final long writeTimeoutNanos;
+    private final AtomicLong head = new AtomicLong();  // next byte to read, advanced by the reader
+    private final AtomicLong tail = new AtomicLong();  // next byte to write, advanced by the writer
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Thread waitingReader;
+    private volatile Thread waitingWriter;
+    private volatile LongConsumer readListener;
+    private volatile boolean closed;
+
+    /**
+     * @param capacity Ring size in bytes, rounded up to the next power of two.
+     * @param writeTimeout How long a write waits for the container to drain a full ring before failing.
+     */
+    public TerminalInputChannel(int capacity, Duration writeTimeout) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Terminal input capacity must be at least 2 bytes");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new byte[size];
+        this.mask = size - 1;
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+    }
+
+    /**
+     * Queues input for the container, waiting while the ring is full.
+     *
+     * @throws IOException if the channel is closed, or the container did not read its stdin within the write timeout
+     */
+    public void write(byte[] data, int offset, int length) throws IOException {
+        long deadline = System.nanoTime() + writeTimeoutNanos;
+        try {
+            writeLock.lockInterruptibly();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to write terminal input");
+        }
+        try {
+            writeLocked(data, offset, length, deadline);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void writeLocked(byte[] data, int offset, int length, long deadline) throws IOException {
+        while (length > 0) {
+            if (closed) {
+                throw new IOException("Terminal input closed");
+            }
+            long position = tail.get();
+            int free = buffer.length - (int) (position - head.get());
+            if (free == 0) {
+                awaitSpace(deadline);
+                continue;
+            }
+
+            int count = Math.min(free, length);
+            put(data, offset, count, position);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /** Bytes read so far. */
+    public long readPosition() {
+        return head.get();
+    }
+
+    /** Bytes written so far. */
+    public long writePosition() {
+        return tail.get();
+    }
+
+    /**
+     * Calls {@code listener} on the reading thread after every read with the new {@link #readPosition()}; replaces
+     * any earlier listener. It runs before the read returns, so it must not block for long.
+     */
+    public void setReadListener(LongConsumer listener) {
+        this.readListener = listener;
+    }
+
+    public void write(byte[] data) throws IOException {
+        write(data, 0, data.length);
+    }
+
+    /**
+     * Queues {@code data} if the ring has room for all of it right now, without waiting.
+     *
+     * @return false if it does not fit, or another writer is waiting for space; nothing is queued then
+     * @throws IOException if the channel is closed
+     */
+    public boolean offer(byte[] data) throws IOException {
+        try {
+            if (!writeLock.tryLock(OFFER_LOCK_NANOS, TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to write terminal input");
+        }
+        try {
+            if (closed) {
+                throw new IOException("Terminal input closed");
+            }
+            long position = tail.get();
+            int free = buffer.length - (int) (position - head.get());
+            if (data.length > free) {
+                return false;
+            }
+            put(data, 0, data.length, position);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void put(byte[] data, int offset, int count, long position) {
+        int index = (int) position & mask;
+        int first = Math.min(count, buffer.length - index);
+        System.arraycopy(data, offset, buffer, index, first);
+        System.arraycopy(data, offset + first, buffer, 0, count - first);
+        tail.set(position + count);  // volatile publish, pairs with the waiting-reader check
+        Thread reader = waitingReader;
+        if (reader != null) {
+            LockSupport.unpark(reader);
+        }
+    }
+
+    private void awaitSpace(long deadline) throws IOException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new IOException("Terminal input full (" + buffer.length + " bytes), container is not reading stdin");
+        }
+        waitingWriter = Thread.currentThread();
+        if (tail.get() - head.get() == buffer.length && !closed) {
+            LockSupport.parkNanos(this, Math.min(remaining, MAX_PARK_NANOS));
+        }
+        waitingWriter = null;
+        if (Thread.interrupted()) {
+            throw new InterruptedIOException("Interrupted while waiting for terminal input space");
+        }
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        long position = head.get();
+        long available;
+        while ((available = tail.get() - position) == 0) {
+            if (closed) {
+                return -1;
+            }
+            awaitData();
+        }
+
+        int count = (int) Math.min(available, length);
+        int index = (int) position & mask;
+        int first = Math.min(count, buffer.length - index);
+        System.arraycopy(buffer, index, target, offset, first);
+        System.arraycopy(buffer, 0, target, offset + first, count - first);
+        head.set(position + count);
+        Thread writer = waitingWriter;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+        }
+        LongConsumer listener = readListener;
+        if (listener != null) {
+            listener.accept(position + count);
+        }
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    private void awaitData() throws IOException {
+        waitingReader = Thread.currentThread();
+        if (tail.get() == head.get() && !closed) {
+            LockSupport.parkNanos(this, MAX_PARK_NANOS);
+        }
+        waitingReader = null;
+        if (Thread.interrupted()) {
+            throw new InterruptedIOException("Interrupted while waiting for terminal input");
+        }
+    }
+
+    @Override
+    public int available() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * Ends the input: queued bytes can still be read, then reads return end of stream and writes fail.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Thread reader = waitingReader;
+        if (reader != null) {
+            LockSupport.unpark(reader);
+        }
+        Thread writer = waitingWriter;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
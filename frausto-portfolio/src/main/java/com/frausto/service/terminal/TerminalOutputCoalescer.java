@@ -0,0 +1,334 @@
+package com.frausto.service.terminal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects terminal output from the Docker stream into a bounded buffer and sends it in larger chunks, so a burst of
+ * tiny Docker frames becomes a few WebSocket messages. Output is flushed once the buffer holds a full chunk, or after
+ * the flush interval has passed since the first unsent byte.
+ * <p>
+ * Sending happens on the send executor with at most one send in flight per terminal, never on the Docker callback
+ * thread. When the client does not keep up and the buffer fills, the {@link SlowClientPolicy} decides what happens.
+ */
+public class TerminalOutputCoalescer {
+    private static final Logger log = LoggerFactory.getLogger(TerminalOutputCoalescer.class);
+
+    /** What to do with new output while the send buffer is full. */
+    public enum SlowClientPolicy {
+        PAUSE,           // block the Docker stream until the client catches up
+        DROP_TO_LATEST,  // discard the oldest unsent output and keep the latest
+        DISCONNECT       // close the terminal
+    }
+
+    private final TerminalOutputSink sink;
+    private final ScheduledExecutorService timer;
+    private final Executor sendExecutor;
+    private final SlowClientPolicy policy;
+    private final long flushIntervalNanos;
+    private final int maxChunkBytes;
+
+    // Guarded by this: unsent output as a circular buffer and the flush state
+    private final byte[] pending;
+    private int pendingStart;
+    private int pendingSize;
+    private boolean flushQueued;  // a flush is submitted or running; it sends everything pending before it stops
+    private ScheduledFuture<?> flushTimer;
+    private boolean closed;
+    private long droppedBytes;
+    private long pauses;
+
+    /**
+     * @param timer Schedules interval flushes.
+     * @param sendExecutor Runs the (blocking) sends.
+     * @param policy Behaviour when {@code bufferBytes} of output are waiting to be sent.
+     * @param flushInterval Longest time output waits to be coalesced.
+     * @param maxChunkBytes Largest message sent.
+     * @param bufferBytes Unsent output kept per terminal.
+     */
+    public TerminalOutputCoalescer(TerminalOutputSink sink, ScheduledExecutorService timer, Executor sendExecutor,
+                                   SlowClientPolicy policy, Duration flushInterval, int maxChunkBytes,
+                                   int bufferBytes) {
+        if (maxChunkBytes < 1 || bufferBytes < maxChunkBytes) {
+            throw new IllegalArgumentException("Terminal output buffer must hold at least one chunk");
+        }
+        this.sink = sink;
+        this.timer = timer;
+        this.sendExecutor = sendExecutor;
+        this.policy = policy;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.maxChunkBytes = maxChunkBytes;
+        this.pending = new byte[bufferBytes];
+    }
+
+    /**
+     * Queues output read from Docker. With the PAUSE policy this blocks while the buffer is full.
+     *
+     * @return false once the terminal is closed; the caller should stop reading
+     */
+    public boolean accept(byte[] data) {
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            if (!makeRoom(data.length)) {
+                return false;
+            }
+
+            int offset = 0;
+            int length = data.length;
+            if (length > pending.length) {  // DROP_TO_LATEST with output larger than the buffer
+                offset = length - pending.length;
+                length = pending.length;
+            }
+            append(data, offset, length);
+
+            if (flushQueued) {
+                return true;  // the running flush picks it up
+            }
+            if (pendingSize >= maxChunkBytes) {
+                if (flushTimer != null) {
+                    flushTimer.cancel(false);
+                    flushTimer = null;
+                }
+                flushQueued = true;
+            } else {
+                if (flushTimer == null) {
+                    flushTimer = timer.schedule(this::onFlushTimer, flushIntervalNanos, TimeUnit.NANOSECONDS);
+                }
+                return true;
+            }
+        }
+        submitFlush();
+        return true;
+    }
+
+    /**
+     * Makes room for {@code length} more bytes according to the policy.
+     *
+     * @return false if the output must not be queued
+     */
+    private boolean makeRoom(int length) {
+        int free = pending.length - pendingSize;
+        if (length <= free) {
+            return true;
+        }
+
+        switch (policy) {
+            case DROP_TO_LATEST: {
+                int drop = Math.min(pendingSize, length - free);
+                if (droppedBytes == 0) {
+                    log.info("Terminal client is not keeping up, dropping old output");
+                }
+                pendingStart = (pendingStart + drop) % pending.length;
+                pendingSize -= drop;
+                droppedBytes += drop + Math.max(0, length - pending.length);
+                return true;
+            }
+            case DISCONNECT: {
+                log.info("Terminal client is not keeping up, disconnecting");
+                closed = true;
+                notifyAll();
+                sink.close(CloseStatus.SESSION_NOT_RELIABLE.withReason("Terminal output buffer full"));
+                return false;
+            }
+            case PAUSE:
+            default: {
+                // Output larger than the whole buffer waits for an empty buffer and is then appended in parts
+                pauses++;
+                while (!closed && pending.length - pendingSize < Math.min(length, pending.length)) {
+                    try {
+                        wait();  // woken by every send
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+                return !closed;
+            }
+        }
+    }
+
+    private void append(byte[] data, int offset, int length) {
+        if (length > pending.length - pendingSize) {
+            appendInParts(data, offset, length);
+            return;
+        }
+        int end = (pendingStart + pendingSize) % pending.length;
+        int first = Math.min(length, pending.length - end);
+        System.arraycopy(data, offset, pending, end, first);
+        System.arraycopy(data, offset + first, pending, 0, length - first);
+        pendingSize += length;
+    }
+
+    /** PAUSE with output larger than the buffer: waits for each send to make room for the next part. */
+    private void appendInParts(byte[] data, int offset, int length) {
+        while (length > 0 && !closed) {
+            int part = Math.min(length, pending.length - pendingSize);
+            if (part == 0) {
+                if (!flushQueued && sink.writableBytes() > 0) {  // otherwise onWritable() restarts the flush
+                    flushQueued = true;
+                    submitFlushLocked();
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+            append(data, offset, part);
+            offset += part;
+            length -= part;
+        }
+    }
+
+    private void onFlushTimer() {
+        synchronized (this) {
+            flushTimer = null;
+            if (flushQueued || pendingSize == 0 || closed) {
+                return;
+            }
+            flushQueued = true;
+        }
+        submitFlush();
+    }
+
+    private void submitFlush() {
+        try {
+            sendExecutor.execute(this::flush);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                flushQueued = false;  // shutting down
+            }
+        }
+    }
+
+    private void submitFlushLocked() {
+        try {
+            sendExecutor.execute(this::flush);
+        } catch (RejectedExecutionException e) {
+            flushQueued = false;
+        }
+    }
+
+    /** Sends everything pending in chunks of at most {@code maxChunkBytes}. */
+    private void flush() {
+        while (true) {
+            byte[] chunk;
+            synchronized (this) {
+                int writable = sink.writableBytes();
+                if (closed || pendingSize == 0 || writable <= 0) {
+                    flushQueued = false;  // out of credit: onWritable() restarts the flush
+                    notifyAll();
+                    return;
+                }
+                chunk = take(Math.min(Math.min(pendingSize, maxChunkBytes), writable));
+                notifyAll();  // room for a paused Docker stream
+            }
+
+            try {
+                sink.send(chunk);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Unable to forward terminal data to websocket", e);
+                synchronized (this) {
+                    closed = true;
+                    flushQueued = false;
+                    notifyAll();
+                }
+                sink.close(CloseStatus.SERVER_ERROR);
+                return;
+            }
+        }
+    }
+
+    private byte[] take(int length) {
+        byte[] chunk = new byte[length];
+        int first = Math.min(length, pending.length - pendingStart);
+        System.arraycopy(pending, pendingStart, chunk, 0, first);
+        System.arraycopy(pending, 0, chunk, first, length - first);
+        pendingStart = (pendingStart + length) % pending.length;
+        pendingSize -= length;
+        return chunk;
+    }
+
+    /**
+     * Resumes sending after the sink's flow-control window reopened.
+     */
+    public void onWritable() {
+        synchronized (this) {
+            if (closed || flushQueued || pendingSize == 0) {
+                return;
+            }
+            flushQueued = true;
+        }
+        submitFlush();
+    }
+
+    /**
+     * Sends what is still buffered (waiting at most {@code timeout}) and stops accepting output. Used when the
+     * Docker stream ends, before the terminal is closed.
+     */
+    public void finish(Duration timeout) {
+        synchronized (this) {
+            if (!closed && pendingSize > 0 && !flushQueued) {
+                if (flushTimer != null) {
+                    flushTimer.cancel(false);
+                    flushTimer = null;
+                }
+                flushQueued = true;
+                submitFlushLocked();
+            }
+            long deadline = System.nanoTime() + timeout.toNanos();
+            long remaining;
+            while (!closed && (pendingSize > 0 || flushQueued) && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        close();
+    }
+
+    /** Discards unsent output and releases a paused Docker stream. */
+    public synchronized void close() {
+        closed = true;
+        pendingSize = 0;
+        if (flushTimer != null) {
+            flushTimer.cancel(false);
+            flushTimer = null;
+        }
+        notifyAll();
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /** Output bytes discarded by the DROP_TO_LATEST policy. */
+    public synchronized long getDroppedBytes() {
+        return droppedBytes;
+    }
+
+    /** Times the Docker stream was paused by the PAUSE policy. */
+    public synchronized long getPauses() {
+        return pauses;
+    }
+
+    public SlowClientPolicy getPolicy() {
+        return policy;
+    }
+}
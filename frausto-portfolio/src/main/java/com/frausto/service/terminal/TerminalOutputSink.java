@@ -0,0 +1,28 @@
+package com.frausto.service.terminal;
+
+import org.springframework.web.socket.CloseStatus;
+
+import java.io.IOException;
+
+/**
+ * Destination of a terminal's coalesced output. {@link TerminalOutputCoalescer} calls {@link #send} from one thread
+ * at a time.
+ */
+public interface TerminalOutputSink {
+
+    /** Sends one coalesced chunk, blocking until the transport accepts it. */
+    void send(byte[] chunk) throws IOException;
+
+    /** Ends the terminal on the client side, e.g. because the client cannot keep up. */
+    void close(CloseStatus status);
+
+    boolean isOpen();
+
+    /**
+     * Bytes the sink accepts right now under its flow control. At 0 the coalescer stops sending and keeps buffering
+     * (subject to its slow-client policy) until {@link TerminalOutputCoalescer#onWritable()} is called.
+     */
+    default int writableBytes() {
+        return Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,45 @@
+package com.frausto.service.terminal;
+
+/**
+ * Fixed-size ring holding the most recent output of a terminal; older bytes are overwritten. Not thread-safe, the
+ * owning session guards it.
+ */
+class TerminalScrollback {
+    private final byte[] ring;
+    private int start;
+    private int size;
+
+    TerminalScrollback(int capacity) {
+        this.ring = new byte[capacity];
+    }
+
+    void append(byte[] data) {
+        int offset = Math.max(0, data.length - ring.length);  // only the tail fits
+        int length = data.length - offset;
+        int end = (start + size) % ring.length;
+        int first = Math.min(length, ring.length - end);
+        System.arraycopy(data, offset, ring, end, first);
+        System.arraycopy(data, offset + first, ring, 0, length - first);
+
+        int overflow = size + length - ring.length;
+        if (overflow > 0) {
+            start = (start + overflow) % ring.length;
+            size = ring.length;
+        } else {
+            size += length;
+        }
+    }
+
+    /** The retained output, oldest byte first. */
+    byte[] snapshot() {
+        byte[] copy = new byte[size];
+        int first = Math.min(size, ring.length - start);
+        System.arraycopy(ring, start, copy, 0, first);
+        System.arraycopy(ring, 0, copy, first, size - first);
+        return copy;
+    }
+
+    int capacity() {
+        return ring.length;
+    }
+}
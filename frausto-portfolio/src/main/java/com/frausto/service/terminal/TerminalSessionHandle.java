@@ -1,37 +1,50 @@
 package com.frausto.service.terminal;
 
-import com.github.dockerjava.api.async.ResultCallbackTemplate;
-
 import java.io.Closeable;
 import java.io.IOException;
-import java.io.OutputStream;
 
 public class TerminalSessionHandle implements Closeable {
     private final String execId;
-    private final OutputStream stdinSink;
-    private final ResultCallbackTemplate<?, ?> callback;
+    private final TerminalInputChannel stdin;
+    private final TerminalExecCallback callback;
+    private final TerminalSessionRegistry.Registration registration;
 
-    public TerminalSessionHandle(String execId, OutputStream stdinSink, ResultCallbackTemplate<?, ?> callback) {
+    public TerminalSessionHandle(String execId, TerminalInputChannel stdin, TerminalExecCallback callback,
+                                 TerminalSessionRegistry.Registration registration) {
         this.execId = execId;
-        this.stdinSink = stdinSink;
+        this.stdin = stdin;
         this.callback = callback;
+        this.registration = registration;
     }
 
     public String getExecId() {
         return execId;
     }
 
+    public TerminalOutputCoalescer getOutput() {
+        return callback.getOutput();
+    }
+
+    public TerminalInputChannel getInput() {
+        return stdin;
+    }
+
     public void forwardInput(byte[] payload) throws IOException {
-        stdinSink.write(payload);
-        stdinSink.flush();
+        stdin.write(payload);  // visible to the stdin pump immediately, no flush needed
+    }
+
+    public boolean offerInput(byte[] payload) throws IOException {
+        return stdin.offer(payload);
     }
 
     public void close() throws IOException {
+        callback.getOutput().close();  // releases a Docker stream paused on a slow client
         try {
             callback.close();
         } catch (IOException ignored) {
             // ignore close errors for callback
         }
-        stdinSink.close();
+        stdin.close();
+        registration.release();
     }
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.frausto.service.terminal;
+
+/**
+ * Thrown when a terminal session cannot be opened because a session cap is reached.
+ */
+public class TerminalSessionLimitException extends RuntimeException {
+    public TerminalSessionLimitException(String message) {
+        super(message);
+    }
+}
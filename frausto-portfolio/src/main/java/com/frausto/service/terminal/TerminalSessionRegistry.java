@@ -0,0 +1,121 @@
+package com.frausto.service.terminal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts open terminal sessions and enforces the global and per-container caps. Every session holds a
+ * {@link Registration} from the moment it is opened until it is released, whichever of the client or the exec ends
+ * first.
+ * <p>
+ * The caps also bound threads: docker-java 3.2 streams each exec's output on its own thread and pumps its stdin on
+ * another, for the life of the session, whether or not a client is attached. {@code maxSessions} sessions hold
+ * {@code 2 * maxSessions} of those threads.
+ */
+@Component
+public class TerminalSessionRegistry {
+    private final int maxSessions;
+    private final int maxPerContainer;
+    private final AtomicInteger active = new AtomicInteger();
+    private final Map<String, Integer> byContainer = new ConcurrentHashMap<>();
+    private final Counter rejectedGlobal;
+    private final Counter rejectedContainer;
+
+    /**
+     * A slot held by one session; {@link #release()} may be called any number of times.
+     */
+    public final class Registration {
+        private final String containerId;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Registration(String containerId) {
+            this.containerId = containerId;
+        }
+
+        public String getContainerId() {
+            return containerId;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                byContainer.computeIfPresent(containerId, (id, count) -> count > 1 ? count - 1 : null);
+                active.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @param maxSessions Terminal sessions open at once across all containers, detached ones included.
+     * @param maxPerContainer Terminal sessions open at once on one container.
+     */
+    public TerminalSessionRegistry(@Value("${terminal.sessions.max:100}") int maxSessions,
+                                   @Value("${terminal.sessions.maxPerContainer:10}") int maxPerContainer,
+                                   MeterRegistry meterRegistry) {
+        this.maxSessions = maxSessions;
+        this.maxPerContainer = maxPerContainer;
+        Gauge.builder("terminal.sessions.active", active, AtomicInteger::get)
+                .register(meterRegistry);
+        Gauge.builder("terminal.sessions.containers", byContainer, Map::size)
+                .description("Containers with at least one open terminal")
+                .register(meterRegistry);
+        this.rejectedGlobal = Counter.builder("terminal.sessions.rejected")
+                .tag("limit", "global")
+                .register(meterRegistry);
+        this.rejectedContainer = Counter.builder("terminal.sessions.rejected")
+                .tag("limit", "container")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a session slot on {@code containerId}.
+     *
+     * @throws TerminalSessionLimitException if the global or the container's cap is reached
+     */
+    public Registration register(String containerId) {
+        if (active.incrementAndGet() > maxSessions) {
+            active.decrementAndGet();
+            rejectedGlobal.increment();
+            throw new TerminalSessionLimitException("Terminal session limit of " + maxSessions + " reached");
+        }
+
+        boolean[] accepted = new boolean[1];
+        byContainer.compute(containerId, (id, count) -> {
+            int current = count == null ? 0 : count;
+            accepted[0] = current < maxPerContainer;
+            return accepted[0] ? current + 1 : count;
+        });
+        if (!accepted[0]) {
+            active.decrementAndGet();
+            rejectedContainer.increment();
+            throw new TerminalSessionLimitException("Terminal session limit of " + maxPerContainer
+                    + " reached for container " + containerId);
+        }
+        return new Registration(containerId);
+    }
+
+    public int getActiveSessions() {
+        return active.get();
+    }
+
+    /** Open sessions per container, sorted by container id. */
+    public Map<String, Integer> getActiveSessionsByContainer() {
+        return new TreeMap<>(byContainer);
+    }
+
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    public int getMaxPerContainer() {
+        return maxPerContainer;
+    }
+}
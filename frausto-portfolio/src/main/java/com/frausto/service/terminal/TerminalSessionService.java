@@ -4,71 +4,165 @@ import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.command.ExecCreateCmdResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.io.IOException;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
+import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import jakarta.annotation.PreDestroy;
 
+/**
+ * Runs interactive Docker execs for terminal clients.
+ * <p>
+ * Threads per session: docker-java 3.2 delivers exec output on a stream thread of its own and copies
+ * {@link TerminalInputChannel} to the exec's stdin on a second thread, both for the session's lifetime; with the
+ * PAUSE policy the stream thread parks while the client catches up. No other thread is held per session: teardown
+ * runs from the exec callback instead of a thread waiting for completion, and output is sent from a shared pool of
+ * {@code sendThreads}, each held only while one send is in flight. {@link TerminalSessionRegistry} caps sessions,
+ * and with them the docker-java threads.
+ */
 @Service
 public class TerminalSessionService {
 
     private static final Logger log = LoggerFactory.getLogger(TerminalSessionService.class);
     private static final List<String> DEFAULT_SHELL = List.of("/bin/bash");
+    private static final Duration OUTPUT_DRAIN_TIMEOUT = Duration.ofSeconds(2);
 
     private final DockerClient dockerClient;
-    private final ExecutorService ioExecutor = Executors.newCachedThreadPool();
-
-    public TerminalSessionService(DockerClient dockerClient) {
+    private final TerminalSessionRegistry sessionRegistry;
+    private final ThreadPoolExecutor sendExecutor;
+    private final ScheduledExecutorService flushTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "TerminalOutputFlush");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final int inputBufferBytes;
+    private final Duration inputWriteTimeout;
+    private final TerminalOutputCoalescer.SlowClientPolicy outputPolicy;
+    private final Duration outputFlushInterval;
+    private final int outputChunkBytes;
+    private final int outputBufferBytes;
+    private final Duration outputSendTimeLimit;
+
+    /**
+     * @param inputBufferBytes Size of each session's stdin ring.
+     * @param inputWriteTimeout How long input waits for the container to read a full stdin ring before the session
+     *                          write fails.
+     * @param outputPolicy PAUSE, DROP_TO_LATEST or DISCONNECT when a client falls {@code outputBufferBytes} behind.
+     * @param outputFlushInterval Longest time output is held back to be coalesced.
+     * @param outputChunkBytes Largest output message sent to the client.
+     * @param outputBufferBytes Unsent output kept per session.
+     * @param sendThreads Threads sending terminal output; a thread is held only while a send is in flight.
+     * @param outputSendTimeLimit Longest a send to a {@code /ws/terminal} connection may block before the connection
+     *                            is closed, which also bounds how long a slow client holds a send thread.
+     */
+    public TerminalSessionService(DockerClient dockerClient,
+                                  TerminalSessionRegistry sessionRegistry,
+                                  @Value("${terminal.input.bufferBytes:65536}") int inputBufferBytes,
+                                  @Value("${terminal.input.writeTimeout:5s}") Duration inputWriteTimeout,
+                                  @Value("${terminal.output.slowClientPolicy:PAUSE}") TerminalOutputCoalescer.SlowClientPolicy outputPolicy,
+                                  @Value("${terminal.output.flushInterval:5ms}") Duration outputFlushInterval,
+                                  @Value("${terminal.output.maxChunkBytes:32768}") int outputChunkBytes,
+                                  @Value("${terminal.output.bufferBytes:1048576}") int outputBufferBytes,
+                                  @Value("${terminal.output.sendThreads:16}") int sendThreads,
+                                  @Value("${terminal.output.sendTimeLimit:10s}") Duration outputSendTimeLimit) {
         this.dockerClient = dockerClient;
+        this.sessionRegistry = sessionRegistry;
+        AtomicInteger threadIds = new AtomicInteger();
+        this.sendExecutor = new ThreadPoolExecutor(sendThreads, sendThreads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "TerminalOutputSend-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.sendExecutor.allowCoreThreadTimeOut(true);
+        this.inputBufferBytes = inputBufferBytes;
+        this.inputWriteTimeout = inputWriteTimeout;
+        this.outputPolicy = outputPolicy;
+        this.outputFlushInterval = outputFlushInterval;
+        this.outputChunkBytes = outputChunkBytes;
+        this.outputBufferBytes = outputBufferBytes;
+        this.outputSendTimeLimit = outputSendTimeLimit;
     }
 
     public TerminalSessionHandle openSession(String containerId, List<String> command, WebSocketSession session) throws IOException {
-        List<String> effectiveCmd = command == null || command.isEmpty() ? DEFAULT_SHELL : command;
+        return openSession(containerId, command, outputSink(session));
+    }
 
-        ExecCreateCmdResponse exec = dockerClient.execCreateCmd(containerId)
-                .withAttachStdout(true)
-                .withAttachStderr(true)
-                .withAttachStdin(true)
-                .withTty(true)
-                .withCmd(effectiveCmd.toArray(new String[0]))
-                .exec();
+    /**
+     * Sink sending output as binary messages on a terminal WebSocket. A send blocked longer than the send time limit
+     * closes the connection with 4500.
+     */
+    public TerminalOutputSink outputSink(WebSocketSession session) {
+        return WebSocketOutputSink.create(session, outputSendTimeLimit, outputBufferBytes, flushTimer);
+    }
 
-        PipedOutputStream stdinSink = new PipedOutputStream();
-        PipedInputStream stdinSource = new PipedInputStream(stdinSink);
-        TerminalExecCallback callback = new TerminalExecCallback(session);
-
-        ioExecutor.submit(() -> {
-            try {
-                dockerClient.execStartCmd(exec.getId())
-                        .withDetach(false)
-                        .withTty(true)
-                        .withStdIn(stdinSource)
-                        .exec(callback)
-                        .awaitCompletion();
-            } catch (Exception e) {
-                log.error("Terminal session for container {} ended with error", containerId, e);
-                closeQuietly(session, CloseStatus.SERVER_ERROR);
-            } finally {
-                try {
-                    stdinSink.close();
-                } catch (IOException ignored) {
-                }
+    /**
+     * Starts an interactive exec in the container whose output goes to {@code sink}.
+     *
+     * @throws TerminalSessionLimitException if the global or per-container session cap is reached
+     */
+    public TerminalSessionHandle openSession(String containerId, List<String> command, TerminalOutputSink sink) throws IOException {
+        List<String> effectiveCmd = command == null || command.isEmpty() ? DEFAULT_SHELL : command;
 
-                if (session.isOpen()) {
-                    closeQuietly(session, CloseStatus.NORMAL);
+        TerminalSessionRegistry.Registration registration = sessionRegistry.register(containerId);
+        ExecCreateCmdResponse exec;
+        try {
+            exec = dockerClient.execCreateCmd(containerId)
+                    .withAttachStdout(true)
+                    .withAttachStderr(true)
+                    .withAttachStdin(true)
+                    .withTty(true)
+                    .withCmd(effectiveCmd.toArray(new String[0]))
+                    .exec();
+        } catch (RuntimeException e) {
+            registration.release();
+            throw e;
+        }
+
+        TerminalInputChannel stdin = new TerminalInputChannel(inputBufferBytes, inputWriteTimeout);
+        TerminalOutputCoalescer output = new TerminalOutputCoalescer(sink, flushTimer, sendExecutor, outputPolicy,
+                outputFlushInterval, outputChunkBytes, outputBufferBytes);
+        TerminalExecCallback callback = new TerminalExecCallback(output, error -> {
+            // Runs on the Docker stream thread when the exec ends; no thread waits for it
+            stdin.close();
+            if (error != null) {
+                log.error("Terminal session for container {} ended with error", containerId, error);
+                output.close();
+                sink.close(CloseStatus.SERVER_ERROR);
+            } else {
+                output.finish(OUTPUT_DRAIN_TIMEOUT);  // last output reaches the client before the close
+                if (sink.isOpen()) {
+                    sink.close(CloseStatus.NORMAL);
                 }
             }
+            registration.release();
         });
 
-        return new TerminalSessionHandle(exec.getId(), stdinSink, callback);
+        try {
+            dockerClient.execStartCmd(exec.getId())
+                    .withDetach(false)
+                    .withTty(true)
+                    .withStdIn(stdin)
+                    .exec(callback);  // returns once the stream is attached, frames arrive on Docker's threads
+        } catch (RuntimeException e) {
+            stdin.close();
+            output.close();
+            registration.release();
+            throw e;
+        }
+
+        return new TerminalSessionHandle(exec.getId(), stdin, callback, registration);
     }
 
     public void forwardInput(TerminalSessionHandle handle, byte[] payload) throws IOException {
@@ -76,6 +170,16 @@ public class TerminalSessionService {
         handle.forwardInput(payload);
     }
 
+    /**
+     * Queues input without waiting for the container to read.
+     *
+     * @return false if the input does not fit in the session's free stdin buffer; nothing is queued then
+     */
+    public boolean offerInput(TerminalSessionHandle handle, byte[] payload) throws IOException {
+        Objects.requireNonNull(handle, "Terminal session handle is required");
+        return handle.offerInput(payload);
+    }
+
     public void resize(TerminalSessionHandle handle, int cols, int rows) {
         Objects.requireNonNull(handle, "Terminal session handle is required");
         dockerClient.resizeExecCmd(handle.getExecId())
@@ -95,16 +199,9 @@ public class TerminalSessionService {
         }
     }
 
-    private void closeQuietly(WebSocketSession session, CloseStatus status) {
-        try {
-            session.close(status);
-        } catch (IOException e) {
-            log.debug("Error closing websocket session", e);
-        }
-    }
-
     @PreDestroy
     public void shutdown() {
-        ioExecutor.shutdownNow();
+        flushTimer.shutdownNow();
+        sendExecutor.shutdownNow();
     }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.frausto.service.terminal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sink writing each chunk as one binary message on a terminal WebSocket, with a bound on how long a send may block.
+ * <p>
+ * Sends go through a {@link ConcurrentWebSocketSessionDecorator}, as on the multiplexed connection. The decorator
+ * only checks its time limit when another send arrives, and a terminal has a single sender, so a watchdog on
+ * {@code timer} checks it too: a send blocked past the limit closes the connection, which fails the blocked write
+ * and frees the send thread.
+ */
+final class WebSocketOutputSink implements TerminalOutputSink {
+    private static final Logger log = LoggerFactory.getLogger(WebSocketOutputSink.class);
+    private static final long MIN_CHECK_INTERVAL_MS = 100;
+
+    private final WebSocketSession session;
+    private final ConcurrentWebSocketSessionDecorator sender;
+    private final long sendTimeLimitMs;
+    private volatile ScheduledFuture<?> watchdog;
+
+    private WebSocketOutputSink(WebSocketSession session, long sendTimeLimitMs, int sendBufferBytes) {
+        this.session = session;
+        this.sender = new ConcurrentWebSocketSessionDecorator(session, (int) sendTimeLimitMs, sendBufferBytes);
+        this.sendTimeLimitMs = sendTimeLimitMs;
+    }
+
+    /**
+     * @param sendTimeLimit Longest a send may block before the connection is closed.
+     * @param sendBufferBytes Messages queued while a send is in progress before the connection is closed.
+     * @param timer Runs the send-time watchdog for as long as the connection is open.
+     */
+    static WebSocketOutputSink create(WebSocketSession session, Duration sendTimeLimit, int sendBufferBytes,
+                                      ScheduledExecutorService timer) {
+        WebSocketOutputSink sink = new WebSocketOutputSink(session, sendTimeLimit.toMillis(), sendBufferBytes);
+        long interval = Math.max(MIN_CHECK_INTERVAL_MS, sink.sendTimeLimitMs / 4);
+        sink.watchdog = timer.scheduleWithFixedDelay(sink::checkSendTime, interval, interval, TimeUnit.MILLISECONDS);
+        return sink;
+    }
+
+    @Override
+    public void send(byte[] chunk) throws IOException {
+        sender.sendMessage(new BinaryMessage(chunk));
+    }
+
+    private void checkSendTime() {
+        if (!session.isOpen()) {
+            watchdog.cancel(false);
+            return;
+        }
+        long blocked = sender.getTimeSinceSendStarted();
+        if (blocked > sendTimeLimitMs) {
+            log.info("Terminal send blocked for {} ms, closing connection {}", blocked, session.getId());
+            close(CloseStatus.SESSION_NOT_RELIABLE.withReason("Terminal send timed out"));
+        }
+    }
+
+    @Override
+    public void close(CloseStatus status) {
+        watchdog.cancel(false);
+        try {
+            session.close(status);  // the native session, so the close does not wait behind a blocked send
+        } catch (IOException ignored) {
+            // ignore secondary close errors
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return session.isOpen();
+    }
+}
@@ -0,0 +1,43 @@
+package com.frausto.service.zmq;
+
+/**
+ * How a socket trades freshness against completeness when peers or the socket's own queue fall behind.
+ * <ul>
+ *     <li>CONFLATE: keep only the latest unsent message per topic. A newer send replaces a queued one, and the
+ *     socket's send high-water mark is kept small so slow peers do not build up a backlog of stale messages. ZMQ_CONFLATE
+ *     itself cannot be used because it does not support multipart messages.</li>
+ *     <li>BOUNDED: queue up to the task queue capacity, evict the oldest task when full, and never wait on the
+ *     socket. Every eviction or refused send is counted as a drop.</li>
+ *     <li>BLOCKING: senders wait for queue space and the processor waits (up to the send timeout) for the socket.</li>
+ * </ul>
+ * Messages a PUB socket discards at its high-water mark are not visible to the application and are not counted.
+ *
+ * @param mode          delivery mode
+ * @param highWaterMark ZMQ send high-water mark applied to the socket
+ */
+public record DeliveryPolicy(Mode mode, int highWaterMark) {
+
+    public enum Mode {
+        CONFLATE,
+        BOUNDED,
+        BLOCKING
+    }
+
+    public DeliveryPolicy {
+        if (mode == null) {
+            throw new IllegalArgumentException("Delivery mode is required");
+        }
+        if (highWaterMark < 1) {
+            throw new IllegalArgumentException("High-water mark must be at least 1");
+        }
+    }
+
+    /** Overflow behaviour of the socket's task queue under this policy. */
+    TaskRingBuffer.OverflowPolicy overflowPolicy() {
+        return switch (mode) {
+            case CONFLATE -> TaskRingBuffer.OverflowPolicy.REJECT;  // queue only holds one entry per topic
+            case BOUNDED -> TaskRingBuffer.OverflowPolicy.DROP_OLDEST;
+            case BLOCKING -> TaskRingBuffer.OverflowPolicy.BLOCK;
+        };
+    }
+}
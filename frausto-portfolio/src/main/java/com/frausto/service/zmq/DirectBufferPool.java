@@ -0,0 +1,68 @@
+package com.frausto.service.zmq;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size pool of direct ByteBuffers used to serialize outgoing protobuf messages.
+ * Messages are encoded straight into native memory and handed to the socket from there, so a send no longer allocates
+ * a heap byte[] that libzmq then copies again. Buffers return to the pool once the socket has sent them; the free list
+ * is a {@link TaskRingBuffer}, so acquire/release do not allocate either.
+ * <p>
+ * The pool never grows: when every buffer is queued for sending, messages are serialized to the heap instead, so
+ * native memory stays at {@code buffers * bufferSize} however far the sockets fall behind.
+ */
+public class DirectBufferPool {
+
+    private final TaskRingBuffer<ByteBuffer> free;
+    private final int bufferSize;
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param buffers    number of buffers to preallocate
+     * @param bufferSize capacity of each buffer; larger messages bypass the pool
+     */
+    public DirectBufferPool(int buffers, int bufferSize) {
+        this.free = new TaskRingBuffer<>(Math.max(buffers, 2), TaskRingBuffer.WaitStrategy.BLOCKING,
+                TaskRingBuffer.OverflowPolicy.REJECT, null);
+        this.bufferSize = bufferSize;
+        for (int i = 0; i < buffers; i++) {
+            free.offer(ByteBuffer.allocateDirect(bufferSize));
+        }
+    }
+
+    /**
+     * Returns a cleared buffer able to hold {@code size} bytes, or null when the message is larger than the pooled
+     * buffer size or the pool is empty; the message should then be serialized the regular way.
+     */
+    public ByteBuffer acquire(int size) {
+        if (size > bufferSize) {
+            return null;
+        }
+        ByteBuffer buffer = free.poll();
+        if (buffer == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer taken from the pool. Buffers that did not come from a pool of this size are ignored.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.isDirect() && buffer.capacity() == bufferSize) {
+            free.offer(buffer);
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /** Number of acquisitions that found the pool empty and fell back to the heap. */
+    public long getMissCount() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,30 @@
+package com.frausto.service.zmq;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encoding helpers for the fixed-width frames appended after a message's payload (sequence numbers, correlation ids).
+ * Values are 8-byte big-endian longs so non-Java peers can decode them without a schema.
+ */
+public final class Frames {
+    public static final byte[] EMPTY = new byte[0];
+
+    private Frames() {
+    }
+
+    public static byte[] longFrame(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+
+    /**
+     * Decodes a frame written by {@link #longFrame(long)}.
+     *
+     * @throws IllegalArgumentException if the frame is not exactly 8 bytes
+     */
+    public static long readLong(byte[] frame) {
+        if (frame == null || frame.length != Long.BYTES) {
+            throw new IllegalArgumentException("Expected an 8-byte frame");
+        }
+        return ByteBuffer.wrap(frame).getLong();
+    }
+}
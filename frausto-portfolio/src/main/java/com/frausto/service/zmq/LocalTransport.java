@@ -0,0 +1,165 @@
+package com.frausto.service.zmq;
+
+import com.google.protobuf.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * In-process PUB/SUB transport for {@code local://<name>} addresses. Messages are delivered as the Protobuf objects
+ * that were sent, without serialization or ZeroMQ, so it needs no native library.
+ * <p>
+ * Sends are published to a ring buffer and a single dispatcher thread hands each message to every subscriber of the
+ * endpoint whose topic prefix matches, in send order. Bind and connect order does not matter: endpoints are created
+ * by whichever side names them first. A network PUB socket can also be attached to a local endpoint so in-process
+ * subscribers get its messages directly.
+ */
+class LocalTransport {
+    private static final Logger logger = LoggerFactory.getLogger(LocalTransport.class);
+    static final String SCHEME = "local://";
+
+    private record Subscription(String socketName, String topicPrefix, AtomicReference<Consumer<Message>> callback) {
+    }
+
+    private record Endpoint(String address, List<Subscription> subscriptions) {
+    }
+
+    private record Delivery(Endpoint endpoint, String topic, Message message) {
+    }
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();  // by address
+    private final Map<String, Endpoint> publishers = new ConcurrentHashMap<>();  // by socket name
+    private final Map<String, Subscription> subscribers = new ConcurrentHashMap<>();  // by socket name
+    private final TaskQueueSettings queueSettings;
+    private volatile TaskRingBuffer<Delivery> queue;  // created with the dispatcher thread
+    private Thread dispatcher;
+
+    LocalTransport(TaskQueueSettings queueSettings) {
+        this.queueSettings = queueSettings;
+    }
+
+    static boolean isLocal(String address) {
+        return address != null && address.startsWith(SCHEME);
+    }
+
+    private Endpoint endpoint(String address) {
+        return endpoints.computeIfAbsent(address, key -> new Endpoint(key, new CopyOnWriteArrayList<>()));
+    }
+
+    /**
+     * Makes every message sent on {@code socketName} go to the subscribers of {@code address}.
+     */
+    void attachPublisher(String socketName, String address) {
+        startDispatcher();  // before the socket becomes visible to senders
+        publishers.put(socketName, endpoint(address));
+    }
+
+    /**
+     * Creates a local SUB socket on {@code address} receiving topics that start with {@code topicPrefix}. Messages go
+     * to the callback set with {@link #setCallback}; until then they are skipped.
+     */
+    void subscribe(String socketName, String address, String topicPrefix) {
+        subscribers.computeIfAbsent(socketName, key -> {
+            Subscription subscription = new Subscription(socketName, topicPrefix, new AtomicReference<>());
+            endpoint(address).subscriptions().add(subscription);
+            return subscription;
+        });
+        startDispatcher();
+    }
+
+    @SuppressWarnings("unchecked")
+    <T extends Message> void setCallback(String socketName, Consumer<T> callback) {
+        Subscription subscription = subscribers.get(socketName);
+        if (subscription == null) {
+            throw new IllegalArgumentException("Local socket [" + socketName + "] not found!");
+        }
+        subscription.callback().set((Consumer<Message>) callback);
+    }
+
+    boolean isPublisher(String socketName) {
+        return publishers.containsKey(socketName);
+    }
+
+    boolean isSubscriber(String socketName) {
+        return subscribers.containsKey(socketName);
+    }
+
+    /**
+     * Queues a message for the local subscribers of the endpoint {@code socketName} publishes to.
+     *
+     * @return false if the socket has no local endpoint
+     * @throws RejectedExecutionException if the dispatch queue is full and rejects sends
+     */
+    boolean publish(String socketName, String topic, Message message) {
+        Endpoint endpoint = publishers.get(socketName);
+        if (endpoint == null) {
+            return false;
+        }
+        if (endpoint.subscriptions().isEmpty()) {
+            return true;  // like a PUB socket without subscribers
+        }
+
+        boolean accepted;
+        try {
+            accepted = queue.publish(new Delivery(endpoint, topic, message));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        if (!accepted) {
+            throw new RejectedExecutionException("Local dispatch queue full (" + queue.capacity() + " slots), "
+                    + "message on topic " + topic + " rejected");
+        }
+        return true;
+    }
+
+    private synchronized void startDispatcher() {
+        if (dispatcher != null) {
+            return;
+        }
+        queue = new TaskRingBuffer<>(queueSettings.capacity(), queueSettings.waitStrategy(),
+                queueSettings.overflowPolicy(), null);
+        dispatcher = new Thread(this::runDispatcher, "ZMQLocalDispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    private void runDispatcher() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                queue.awaitNotEmpty();
+                queue.drain(this::deliver, queue.capacity());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void deliver(Delivery delivery) {
+        for (Subscription subscription : delivery.endpoint().subscriptions()) {
+            Consumer<Message> callback = subscription.callback().get();
+            if (callback == null || !delivery.topic().startsWith(subscription.topicPrefix())) {
+                continue;
+            }
+            try {
+                callback.accept(delivery.message());
+            } catch (Exception e) {
+                logger.warn("Local listener on socket {} failed for topic {}", subscription.socketName(),
+                        delivery.topic(), e);
+            }
+        }
+    }
+
+    synchronized void close() {
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.frausto.service.zmq;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Observes messages a socket has sent, e.g. to journal them.
+ * Invoked on the socket's processor thread right after the message was accepted by the socket, so implementations
+ * must be quick and must copy whatever they keep: the payload buffer goes back to the pool when the tap returns.
+ */
+@FunctionalInterface
+public interface MessageTap {
+    /**
+     * @param topic   topic frame
+     * @param payload read-only view of the payload frame, positioned at its first byte
+     * @param trailer frames sent after the payload (null when there were none)
+     */
+    void onSent(String topic, ByteBuffer payload, byte[][] trailer);
+}
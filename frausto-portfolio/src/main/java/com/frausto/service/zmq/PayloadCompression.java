@@ -0,0 +1,161 @@
+package com.frausto.service.zmq;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Optional DEFLATE (zlib) compression of large payloads on selected topics.
+ * A compressed message carries an 8-byte header frame between the topic and the payload:
+ * <pre>
+ * [topic]['Z' 'P' codec flags original-length(int32, big-endian)][compressed payload][trailer...]
+ * </pre>
+ * Uncompressed messages have no header frame, so compression is decided per message and receivers that see the
+ * header inflate transparently. Deflaters and inflaters are kept per thread and reset between messages.
+ */
+public class PayloadCompression {
+    static final int HEADER_BYTES = 8;
+    static final byte CODEC_DEFLATE = 1;
+    private static final byte MAGIC_0 = 'Z';
+    private static final byte MAGIC_1 = 'P';
+    private static final int MAX_ORIGINAL_BYTES = 64 * 1024 * 1024;  // refuse headers claiming more (decompression bombs)
+
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(Inflater::new);
+
+    private final List<String> topicPrefixes;
+    private final int threshold;
+    private final ThreadLocal<Deflater> deflaters;
+    private final LongAdder compressedMessages = new LongAdder();
+    private final LongAdder skippedMessages = new LongAdder();
+    private final LongAdder originalBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder compressNanos = new LongAdder();
+
+    /**
+     * @param topicPrefixes Topics (by prefix) whose payloads may be compressed.
+     * @param threshold Payloads smaller than this many bytes are sent as they are.
+     * @param level Deflater level, 1 (fastest) to 9 (smallest).
+     */
+    public PayloadCompression(List<String> topicPrefixes, int threshold, int level) {
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Compression level must be between 1 and 9");
+        }
+        this.topicPrefixes = List.copyOf(topicPrefixes);
+        this.threshold = threshold;
+        this.deflaters = ThreadLocal.withInitial(() -> new Deflater(level));
+    }
+
+    boolean appliesTo(String topic, int payloadBytes) {
+        if (payloadBytes < threshold) {
+            return false;
+        }
+        for (String prefix : topicPrefixes) {
+            if (topic.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Deflates {@code input} into {@code output} and flips {@code output} for reading.
+     *
+     * @return the header frame to send before the payload, or null if the payload did not get smaller (the message
+     * should then be sent uncompressed)
+     */
+    byte[] compress(ByteBuffer input, ByteBuffer output) {
+        long start = System.nanoTime();
+        int length = input.remaining();
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        deflater.setInput(input.duplicate());
+        deflater.finish();
+        while (!deflater.finished()) {
+            deflater.deflate(output);
+            if (!output.hasRemaining() && !deflater.finished()) {
+                skippedMessages.increment();
+                compressNanos.add(System.nanoTime() - start);
+                return null;  // would not be smaller than the original
+            }
+        }
+        output.flip();
+
+        compressedMessages.increment();
+        originalBytes.add(length);
+        compressedBytes.add(output.remaining());
+        compressNanos.add(System.nanoTime() - start);
+        return ByteBuffer.allocate(HEADER_BYTES)
+                .put(MAGIC_0).put(MAGIC_1).put(CODEC_DEFLATE).put((byte) 0).putInt(length)
+                .array();
+    }
+
+    /** Whether a frame following the topic is a compression header rather than a payload. */
+    static boolean isHeader(byte[] frame) {
+        return frame != null && frame.length == HEADER_BYTES && frame[0] == MAGIC_0 && frame[1] == MAGIC_1;
+    }
+
+    /**
+     * Inflates a payload sent after {@code header}.
+     *
+     * @throws IllegalArgumentException for an unknown codec, an implausible length or corrupt data
+     */
+    static byte[] decompress(byte[] header, ByteBuffer compressed) {
+        if (header[2] != CODEC_DEFLATE) {
+            throw new IllegalArgumentException("Unsupported payload codec " + header[2]);
+        }
+        int length = ByteBuffer.wrap(header).getInt(4);
+        if (length < 0 || length > MAX_ORIGINAL_BYTES) {
+            throw new IllegalArgumentException("Invalid original payload length " + length);
+        }
+
+        Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        inflater.setInput(compressed);
+        byte[] payload = new byte[length];
+        int read = 0;
+        try {
+            while (read < length) {
+                int count = inflater.inflate(payload, read, length - read);
+                if (count == 0) {
+                    break;  // finished early, truncated input or a preset dictionary we do not have
+                }
+                read += count;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt compressed payload", e);
+        }
+        if (read != length) {
+            throw new IllegalArgumentException("Compressed payload inflated to " + read + " of " + length + " bytes");
+        }
+        return payload;
+    }
+
+    static byte[] decompress(byte[] header, byte[] compressed) {
+        return decompress(header, ByteBuffer.wrap(compressed));
+    }
+
+    public long getCompressedMessages() {
+        return compressedMessages.sum();
+    }
+
+    /** Messages over the threshold that were sent uncompressed because deflate did not shrink them. */
+    public long getSkippedMessages() {
+        return skippedMessages.sum();
+    }
+
+    public long getOriginalBytes() {
+        return originalBytes.sum();
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    /** CPU time spent compressing, in nanoseconds. */
+    public long getCompressNanos() {
+        return compressNanos.sum();
+    }
+}
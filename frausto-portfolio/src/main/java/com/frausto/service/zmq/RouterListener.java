@@ -0,0 +1,11 @@
+package com.frausto.service.zmq;
+
+/**
+ * Handles requests arriving on a ROUTER socket.
+ * Invoked on the reactor thread that owns the socket, so implementations must not block; slow work should be handed to
+ * an executor and answered later with {@link ZMQWrapper#reply}.
+ */
+@FunctionalInterface
+public interface RouterListener {
+    void onRequest(RouterRequest request);
+}
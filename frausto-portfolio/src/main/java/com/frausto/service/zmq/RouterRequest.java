@@ -0,0 +1,48 @@
+package com.frausto.service.zmq;
+
+import java.util.List;
+
+/**
+ * A message received on a ROUTER socket.
+ * Envelope: [identity][optional empty delimiter][topic][payload][trailer frames...]. The delimiter is present when
+ * the peer is a REQ socket; DEALER peers send the topic frame directly. Replies are routed back to the identity and
+ * repeat the delimiter when the request had one.
+ */
+public class RouterRequest {
+    private final byte[] identity;
+    private final boolean delimited;
+    private final String topic;
+    private final byte[] payload;
+    private final List<byte[]> trailer;
+
+    public RouterRequest(byte[] identity, boolean delimited, String topic, byte[] payload, List<byte[]> trailer) {
+        this.identity = identity;
+        this.delimited = delimited;
+        this.topic = topic;
+        this.payload = payload;
+        this.trailer = trailer;
+    }
+
+    /** Routing id assigned by the ROUTER socket to the peer. */
+    public byte[] getIdentity() {
+        return identity;
+    }
+
+    public boolean isDelimited() {
+        return delimited;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    /** Payload frame, or an empty array when the peer only sent a topic. */
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    /** Frames after the payload (e.g. a correlation id); empty when there are none. */
+    public List<byte[]> getTrailer() {
+        return trailer;
+    }
+}
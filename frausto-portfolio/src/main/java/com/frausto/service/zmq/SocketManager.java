@@ -1,20 +1,36 @@
 package com.frausto.service.zmq;
 
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.zeromq.ZContext;
 import org.zeromq.ZMQ;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.*;
 import java.util.function.Consumer;
 
 public class SocketManager {
     private static final Logger logger = LoggerFactory.getLogger(SocketManager.class);
-    private final ZContext context;  // ZeroMQ context used to create and manage sockets
+    private ZContext context;  // ZeroMQ context used to create and manage sockets, created on first use (guarded by this)
     private final ConcurrentHashMap<String, ZMQ.Socket> socketMap;  // Map to store sockets by their names
     private final ConcurrentHashMap<String, TaskProcessor<?>> taskProcessorMap;  // Map to store TaskProcessor instances
     private final ExecutorService socketWorkers;  // Executor to manage socket worker threads
+    private final TaskQueueSettings defaultQueueSettings;  // Ring buffer sizing/behaviour for sockets without overrides
+    private final boolean reactorMode;  // Multiplex every socket on one poller thread instead of a thread per socket
+    private final DirectBufferPool bufferPool;  // Direct buffers outgoing messages are serialized into
+    private final TopicRegistry topicRegistry;  // Parsers for received messages, by topic prefix
+    private SocketReactor reactor;  // Created on first use, guarded by this
+    private volatile boolean monitoringEnabled;  // Attach a socket monitor to every ZMQ socket created from now on
+    private SocketMonitor monitor;  // Shared monitor-event thread, created with the first monitored socket (guarded by this)
+    private final LocalTransport localTransport;  // In-process PUB/SUB for local:// addresses
+    private volatile PayloadCompression compression;  // Compresses large payloads on selected topics, null = off
+    private final ConcurrentHashMap<String, List<MessageTap>> taps = new ConcurrentHashMap<>();  // By socket name, kept for sockets created later
 
 
     /**
@@ -25,17 +41,96 @@ public class SocketManager {
     private static final int DEFAULT_RECONNECT_IVL_MS = 250;  // initial backoff
     private static final int DEFAULT_RECONNECT_MAX_MS = 250; // max backoff
     private static final int DEFAULT_RCV_HWM = 1000;
-    private static final int DEFAULT_SND_HWM = 1000;
+    /** Send high-water mark of every socket without a delivery policy, ROUTER sockets included. */
+    public static final int DEFAULT_SND_HWM = 1000;
+    private static final long DEFAULT_REQUEST_TIMEOUT_MS = 5000;  // sendAndWait on request-mode sockets
+    private static final int DEFAULT_POOLED_BUFFERS = 64;
+    private static final int DEFAULT_POOLED_BUFFER_SIZE = 64 * 1024;
 
     /**
      * Constructor for SocketManager.
      * Initializes the ZeroMQ context, socket map, task queues, and worker executors.
      */
     public SocketManager() {
-        this.context = new ZContext();  // Create a new ZContext for managing ZeroMQ sockets
+        this(TaskQueueSettings.defaults(), false,
+                new DirectBufferPool(DEFAULT_POOLED_BUFFERS, DEFAULT_POOLED_BUFFER_SIZE));
+    }
+
+    /**
+     * Constructor for SocketManager.
+     *
+     * @param defaultQueueSettings Task ring buffer settings applied to sockets created without explicit settings.
+     * @param reactorMode Whether all sockets share a single ZMQ.Poller reactor thread.
+     * @param bufferPool Pool of direct buffers used to serialize outgoing messages.
+     */
+    public SocketManager(TaskQueueSettings defaultQueueSettings, boolean reactorMode, DirectBufferPool bufferPool) {
         this.socketMap = new ConcurrentHashMap<>();  // Map to hold sockets by name
         this.taskProcessorMap = new ConcurrentHashMap<>();  // Initialize the map for TaskProcessors
         this.socketWorkers = Executors.newCachedThreadPool();  // Executor for managing socket tasks
+        this.defaultQueueSettings = defaultQueueSettings;
+        this.reactorMode = reactorMode;
+        this.bufferPool = bufferPool;
+        this.topicRegistry = new TopicRegistry();
+        this.localTransport = new LocalTransport(defaultQueueSettings);
+    }
+
+    /**
+     * Returns the ZeroMQ context, creating it on first use so a manager that only uses local:// sockets never loads
+     * the native library.
+     */
+    private synchronized ZContext context() {
+        if (context == null) {
+            context = new ZContext();  // Create a new ZContext for managing ZeroMQ sockets
+        }
+        return context;
+    }
+
+    /**
+     * Starts a socket's processor: either on the shared reactor or on its own worker thread.
+     */
+    private void startProcessor(TaskProcessor<?> processor) {
+        if (reactorMode) {
+            reactor().register(processor);
+        } else {
+            socketWorkers.submit(processor);  // Start the task processor in a worker thread
+        }
+    }
+
+    private synchronized SocketReactor reactor() {
+        if (reactor == null) {
+            reactor = new SocketReactor(context());
+            reactor.start();
+        }
+        return reactor;
+    }
+
+    /**
+     * Turns on socket monitoring for every socket created from now on. Connection events are consumed on one shared
+     * thread and recorded in each socket's {@link SocketStats}.
+     */
+    public void enableMonitoring() {
+        monitoringEnabled = true;
+    }
+
+    private synchronized SocketMonitor monitor() {
+        if (monitor == null) {
+            monitor = new SocketMonitor(context());
+        }
+        return monitor;
+    }
+
+    /**
+     * Creates a socket with the reliable defaults applied and, when monitoring is on, its monitor attached before it
+     * is bound or connected.
+     */
+    private ZMQ.Socket createManagedSocket(String socketName, int socketType, SocketStats stats) {
+        ZMQ.Socket socket = context().createSocket(socketType);
+        applyReliableDefaults(socket);
+
+        if (monitoringEnabled) {
+            monitor().watch(socketName, socket, stats);
+        }
+        return socket;
     }
 
     /**
@@ -87,25 +182,83 @@ public class SocketManager {
      * @param bind       Whether to bind or connect the socket.
      */
     public <T extends Message> void initSocket(String socketName, String address, int socketType, boolean bind) {
-        socketMap.computeIfAbsent(socketName, key -> {
-            ZMQ.Socket socket = context.createSocket(socketType);  // Create the specified socket type
+        initSocket(socketName, address, socketType, bind, defaultQueueSettings);
+    }
+
+    /**
+     * Initializes a new socket or connects it if already not initialized.
+     *
+     * @param socketName    The name of the socket.
+     * @param address       The address to bind/connect the socket.
+     * @param socketType    The type of socket (e.g., PUB, REP, etc.).
+     * @param bind          Whether to bind or connect the socket.
+     * @param queueSettings Ring buffer settings for this socket's task queue.
+     */
+    public <T extends Message> void initSocket(String socketName, String address, int socketType, boolean bind,
+                                               TaskQueueSettings queueSettings) {
+        initSocket(socketName, address, socketType, bind, queueSettings, null);
+    }
+
+    /**
+     * Initializes a new socket with the default queue settings and a delivery policy.
+     *
+     * @param socketName     The name of the socket.
+     * @param address        The address to bind/connect the socket.
+     * @param socketType     The type of socket (e.g., PUB, REP, etc.).
+     * @param bind           Whether to bind or connect the socket.
+     * @param deliveryPolicy Delivery policy for the socket.
+     */
+    public <T extends Message> void initSocket(String socketName, String address, int socketType, boolean bind,
+                                               DeliveryPolicy deliveryPolicy) {
+        initSocket(socketName, address, socketType, bind, defaultQueueSettings, deliveryPolicy);
+    }
+
+    /**
+     * Initializes a new socket with a delivery policy that sets its send high-water mark, task queue overflow
+     * behaviour and whether unsent messages are conflated per topic.
+     *
+     * @param socketName     The name of the socket.
+     * @param address        The address to bind/connect the socket.
+     * @param socketType     The type of socket (e.g., PUB, REP, etc.).
+     * @param bind           Whether to bind or connect the socket.
+     * @param queueSettings  Ring buffer settings for this socket's task queue.
+     * @param deliveryPolicy Delivery policy, or null to keep the defaults and the queue's own overflow policy.
+     */
+    public <T extends Message> void initSocket(String socketName, String address, int socketType, boolean bind,
+                                               TaskQueueSettings queueSettings, DeliveryPolicy deliveryPolicy) {
+        if (LocalTransport.isLocal(address)) {
+            initLocalSocket(socketName, address, socketType, "");
+            return;
+        }
 
-            applyReliableDefaults(socket);
+        socketMap.computeIfAbsent(socketName, key -> {
+            SocketStats stats = new SocketStats();
+            ZMQ.Socket socket = createManagedSocket(socketName, socketType, stats);  // Create the specified socket type
+            TaskQueueSettings effectiveSettings = queueSettings;
+            if (deliveryPolicy != null) {
+                socket.setSndHWM(deliveryPolicy.highWaterMark());  // must precede bind/connect to apply to new pipes
+                effectiveSettings = new TaskQueueSettings(queueSettings.capacity(), queueSettings.waitStrategy(),
+                        deliveryPolicy.overflowPolicy());
+            }
 
             if (bind) {
-                System.out.println("Bound Socket " + socketName + " to address " + address);
+                logger.info("Bound socket {} to address {}", socketName, address);
                 socket.bind(address);  // Bind the socket to the address
             } else {
-                System.out.println("Connect Socket " + socketName + " to address " + address);
+                logger.info("Connecting socket {} to address {}", socketName, address);
                 socket.setImmediate(false);
                 socket.connect(address);  // Connect the socket to the address
             }
 
-            BlockingQueue<Task<T>> taskQueue = new LinkedBlockingQueue<>();  // Create a queue for task management
+            TaskRingBuffer<Task<T>> taskQueue = createTaskQueue(effectiveSettings);  // Preallocated ring for task management
 
-            TaskProcessor<T> processor = new TaskProcessor<>(socket, taskQueue, null);  // Create a task processor for this socket
+            TaskProcessor<T> processor = new TaskProcessor<>(socket, taskQueue, null, bufferPool, topicRegistry, stats);  // Create a task processor for this socket
+            if (deliveryPolicy != null) {
+                processor.applyDeliveryPolicy(deliveryPolicy);
+            }
+            taps.getOrDefault(socketName, List.of()).forEach(processor::addTap);
             taskProcessorMap.put(socketName, processor);  // Add the TaskProcessor to the map
-            socketWorkers.submit(processor);  // Start the task processor in a worker thread
+            startProcessor(processor);
 
             return socket;  // Return the initialized socket
         });
@@ -124,33 +277,196 @@ public class SocketManager {
         if (subTopic == null) {
             throw new IllegalArgumentException("subTopic cannot be null or empty");
         }
+        if (LocalTransport.isLocal(address)) {
+            initLocalSocket(socketName, address, ZMQ.SUB, subTopic);
+            return;
+        }
 
         socketMap.computeIfAbsent(socketName, key -> {
-            ZMQ.Socket socket = context.createSocket(ZMQ.SUB);  // Create the specified socket type
-
-            applyReliableDefaults(socket);
+            SocketStats stats = new SocketStats();
+            ZMQ.Socket socket = createManagedSocket(socketName, ZMQ.SUB, stats);  // Create the specified socket type
 
             if (bind) {
-                System.out.println("Bound Socket " + socketName + " to address " + address);
+                logger.info("Bound socket {} to address {}", socketName, address);
                 socket.bind(address);  // Bind the socket to the address
             } else {
-                System.out.println("Connect Socket " + socketName + " to address " + address);
+                logger.info("Connecting socket {} to address {}", socketName, address);
                 socket.connect(address);  // Connect the socket to the address
             }
 
             socket.subscribe(subTopic.getBytes());
 
-            BlockingQueue<Task<T>> taskQueue = new LinkedBlockingQueue<>();  // Create a queue for task management
+            TaskRingBuffer<Task<T>> taskQueue = createTaskQueue(defaultQueueSettings);  // Preallocated ring for task management
 
-            TaskProcessor<T> processor = new TaskProcessor<>(socket, taskQueue, null);  // Create a task processor for this socket
+            TaskProcessor<T> processor = new TaskProcessor<>(socket, taskQueue, null, bufferPool, topicRegistry, stats);  // Create a task processor for this socket
             processor.enableListenerMode();
+            taps.getOrDefault(socketName, List.of()).forEach(processor::addTap);
             taskProcessorMap.put(socketName, processor);  // Add the TaskProcessor to the map
-            socketWorkers.submit(processor);  // Start the task processor in a worker thread
+            startProcessor(processor);
 
             return socket;  // Return the initialized socket
         });
     }
 
+    /**
+     * Creates a PUB or SUB socket on the in-process transport. Bind and connect are equivalent for local sockets.
+     */
+    private void initLocalSocket(String socketName, String address, int socketType, String subTopic) {
+        if (socketType == ZMQ.PUB) {
+            localTransport.attachPublisher(socketName, address);
+        } else if (socketType == ZMQ.SUB) {
+            localTransport.subscribe(socketName, address, subTopic);
+        } else {
+            throw new IllegalArgumentException("Only PUB and SUB sockets support " + LocalTransport.SCHEME + " addresses");
+        }
+        logger.info("Created local socket {} on {}", socketName, address);
+    }
+
+    /**
+     * Also delivers every message sent on a network PUB socket to in-process subscribers of a local:// endpoint, as
+     * objects. While the socket has no connected network peers and nothing taps it, messages are not serialized or
+     * sent on the network at all. Peers are only known with monitoring enabled; without it every message is sent.
+     *
+     * @param socketName The PUB socket.
+     * @param localAddress The local:// endpoint in-process subscribers connect to.
+     */
+    public void addLocalEndpoint(String socketName, String localAddress) {
+        if (!LocalTransport.isLocal(localAddress)) {
+            throw new IllegalArgumentException("Not a " + LocalTransport.SCHEME + " address: " + localAddress);
+        }
+        localTransport.attachPublisher(socketName, localAddress);
+    }
+
+    /**
+     * Whether the socket exists only on the in-process transport.
+     */
+    boolean isLocalSocket(String socketName) {
+        return !taskProcessorMap.containsKey(socketName)
+                && (localTransport.isPublisher(socketName) || localTransport.isSubscriber(socketName));
+    }
+
+    /**
+     * Whether a message sent on the socket could reach anyone beyond its local subscribers.
+     */
+    private boolean hasNetworkAudience(String socketName) {
+        TaskProcessor<?> processor = taskProcessorMap.get(socketName);
+        if (processor == null) {
+            return false;  // local-only socket
+        }
+        return !monitoringEnabled || processor.getStats().getConnectedPeers() > 0 || processor.hasTaps();
+    }
+
+    /**
+     * Initializes a ROUTER socket whose incoming requests are handed to {@code listener}.
+     * ROUTER sockets are read and written by the same thread, so they always run on the reactor (created on demand
+     * even when reactor mode is off). Their queue rejects instead of blocking when full because replies are usually
+     * enqueued from the reactor thread itself.
+     *
+     * @param socketName The name of the socket.
+     * @param address    The address to bind/connect the socket.
+     * @param bind       Whether to bind or connect the socket.
+     * @param listener   Callback for each request, invoked on the reactor thread.
+     */
+    public <T extends Message> void initRouterSocket(String socketName, String address, boolean bind,
+                                                     RouterListener listener) {
+        socketMap.computeIfAbsent(socketName, key -> {
+            SocketStats stats = new SocketStats();
+            ZMQ.Socket socket = createManagedSocket(socketName, ZMQ.ROUTER, stats);
+
+            if (bind) {
+                logger.info("Bound socket {} to address {}", socketName, address);
+                socket.bind(address);
+            } else {
+                logger.info("Connecting socket {} to address {}", socketName, address);
+                socket.connect(address);
+            }
+
+            TaskRingBuffer<Task<T>> taskQueue = createTaskQueue(new TaskQueueSettings(defaultQueueSettings.capacity(),
+                    defaultQueueSettings.waitStrategy(), TaskRingBuffer.OverflowPolicy.REJECT));
+
+            TaskProcessor<T> processor = new TaskProcessor<>(socket, taskQueue, null, bufferPool, topicRegistry, stats);
+            processor.enableRouterMode(listener);
+            taps.getOrDefault(socketName, List.of()).forEach(processor::addTap);
+            taskProcessorMap.put(socketName, processor);
+            reactor().register(processor);
+
+            return socket;
+        });
+    }
+
+    /**
+     * Initializes a DEALER socket in request mode: every request carries a trailing correlation-id frame, replies are
+     * matched through a pending-request table, and any number of requests may be in flight. Like ROUTER sockets it
+     * always runs on the reactor.
+     *
+     * @param socketName The name of the socket.
+     * @param address    The address to bind/connect the socket.
+     * @param bind       Whether to bind or connect the socket.
+     */
+    public <T extends Message> void initRequestSocket(String socketName, String address, boolean bind) {
+        socketMap.computeIfAbsent(socketName, key -> {
+            SocketStats stats = new SocketStats();
+            ZMQ.Socket socket = createManagedSocket(socketName, ZMQ.DEALER, stats);
+
+            if (bind) {
+                logger.info("Bound socket {} to address {}", socketName, address);
+                socket.bind(address);
+            } else {
+                logger.info("Connecting socket {} to address {}", socketName, address);
+                socket.connect(address);
+            }
+
+            TaskRingBuffer<Task<T>> taskQueue = createTaskQueue(new TaskQueueSettings(defaultQueueSettings.capacity(),
+                    defaultQueueSettings.waitStrategy(), TaskRingBuffer.OverflowPolicy.REJECT));
+
+            TaskProcessor<T> processor = new TaskProcessor<>(socket, taskQueue, null, bufferPool, topicRegistry, stats);
+            processor.enableRequestMode();
+            taps.getOrDefault(socketName, List.of()).forEach(processor::addTap);
+            taskProcessorMap.put(socketName, processor);
+            reactor().register(processor);
+
+            return socket;
+        });
+    }
+
+    /**
+     * Adds an observer of every message sent on a socket. The socket does not need to exist yet; the tap is attached
+     * when it is created.
+     *
+     * @param socketName The socket to observe.
+     * @param tap Called on the socket's thread after each successful send.
+     */
+    public void addTap(String socketName, MessageTap tap) {
+        taps.computeIfAbsent(socketName, key -> new CopyOnWriteArrayList<>()).add(tap);
+        TaskProcessor<?> processor = taskProcessorMap.get(socketName);
+        if (processor != null) {
+            processor.addTap(tap);
+        }
+    }
+
+    private <T extends Message> TaskRingBuffer<Task<T>> createTaskQueue(TaskQueueSettings settings) {
+        return new TaskRingBuffer<>(settings.capacity(), settings.waitStrategy(), settings.overflowPolicy(),
+                TaskProcessor::failDropped);
+    }
+
+    /**
+     * Turns on payload compression for the topics and size threshold in {@code compression}. Receivers inflate
+     * compressed payloads whether or not compression is enabled for sending.
+     */
+    public void setCompression(PayloadCompression compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * Registers the Protobuf parser used to decode messages received on a topic (and every topic it prefixes).
+     *
+     * @param topic The topic or topic prefix.
+     * @param parser The message parser, e.g. {@code DockerStatusEvent.parser()}.
+     */
+    public <T extends Message> void registerTopic(String topic, Parser<T> parser) {
+        topicRegistry.register(topic, parser);
+    }
+
     /**
      * Registers a listener (callback) for receiving messages from a specified socket.
      *
@@ -158,6 +474,11 @@ public class SocketManager {
      * @param callback The callback function to handle the received messages.
      */
     public <T extends Message> void registerListener(String socketName, Consumer<T> callback) {
+        if (localTransport.isSubscriber(socketName)) {
+            localTransport.setCallback(socketName, callback);  // receives the sent objects, no parsing
+            return;
+        }
+
         ZMQ.Socket socket = socketMap.get(socketName);  // Retrieve the socket by name
         if (socket == null) {
             throw new IllegalArgumentException("Socket [" + socketName + "] not found!");
@@ -178,9 +499,81 @@ public class SocketManager {
      * @param protobufMessage The Protobuf message to be serialized and sent.
      */
     public <T extends Message> void send(String socketName, String topic, T protobufMessage) {
-        byte[] serializedMessage = serializeProtobufMessage(protobufMessage);  // Serialize the Protobuf message
+        if (localTransport.publish(socketName, topic, protobufMessage) && !hasNetworkAudience(socketName)) {
+            return;  // delivered in-process only, never serialized
+        }
+        submitTask(socketName, createSendTask(Task.TaskType.SEND, topic, protobufMessage, null));  // Submit the send task to the socket
+    }
+
+    /**
+     * Sends a Protobuf message followed by extra frames, e.g. a sequence number: [topic][payload][trailer...].
+     *
+     * @param socketName The name of the socket to send the message to.
+     * @param protobufMessage The Protobuf message to be serialized and sent.
+     * @param trailer Frames sent after the payload.
+     */
+    public <T extends Message> void send(String socketName, String topic, T protobufMessage, byte[]... trailer) {
+        if (localTransport.publish(socketName, topic, protobufMessage) && !hasNetworkAudience(socketName)) {
+            return;  // local subscribers get the object; trailer frames are network-only
+        }
+        Task<T> task = createSendTask(Task.TaskType.SEND, topic, protobufMessage, null);
+        task.trailer = trailer;
+        submitTask(socketName, task);
+    }
+
+    /**
+     * Sends a message that the caller has already serialized, e.g. assembled from cached encodings. Local subscribers
+     * get {@code protobufMessage}; network peers get {@code encoded}, which must be its serialized form.
+     *
+     * @param socketName The name of the socket to send the message to.
+     * @param protobufMessage The message {@code encoded} was serialized from.
+     * @param encoded The payload frame.
+     * @param trailer Frames sent after the payload.
+     */
+    public <T extends Message> void sendEncoded(String socketName, String topic, T protobufMessage, byte[] encoded,
+                                                byte[]... trailer) {
+        if (localTransport.publish(socketName, topic, protobufMessage) && !hasNetworkAudience(socketName)) {
+            return;  // local subscribers get the object; trailer frames are network-only
+        }
+        Task<T> task = createRawSendTask(topic, encoded);
+        task.trailer = trailer;
+        submitTask(socketName, task);
+    }
+
+    /**
+     * Sends a reply on a ROUTER socket to the peer that sent {@code request}.
+     *
+     * @param socketName The ROUTER socket the request arrived on.
+     * @param request The request being answered.
+     * @param topic The reply topic.
+     * @param protobufMessage The Protobuf message to be serialized and sent.
+     * @param trailer Frames sent after the payload.
+     */
+    public <T extends Message> void reply(String socketName, RouterRequest request, String topic, T protobufMessage,
+                                          byte[]... trailer) {
+        Task<T> task = createSendTask(Task.TaskType.SEND, topic, protobufMessage, null);
+        task.identity = request.getIdentity();
+        task.delimited = request.isDelimited();
+        task.trailer = trailer;
+        submitTask(socketName, task);
+    }
 
-        submitTask(socketName, new Task<>(Task.TaskType.SEND, topic, serializedMessage));  // Submit the send task to the socket
+    /**
+     * Sends an already serialized payload as a reply on a ROUTER socket, e.g. a message read back from the journal.
+     *
+     * @param socketName The ROUTER socket the request arrived on.
+     * @param request The request being answered.
+     * @param topic The reply topic.
+     * @param payload The payload frame.
+     * @param trailer Frames sent after the payload.
+     */
+    public <T extends Message> void reply(String socketName, RouterRequest request, String topic, byte[] payload,
+                                          byte[]... trailer) {
+        Task<T> task = createRawSendTask(topic, payload);
+        task.identity = request.getIdentity();
+        task.delimited = request.isDelimited();
+        task.trailer = trailer;
+        submitTask(socketName, task);
     }
 
     /**
@@ -193,12 +586,121 @@ public class SocketManager {
      */
     public <T extends Message, R extends Message> CompletableFuture<R> sendAndWait(String socketName, String topic,
                                                                                    T protobufMessage) {
+        TaskProcessor<?> processor = taskProcessorMap.get(socketName);
+        if (processor != null && processor.isRequestMode()) {
+            return request(socketName, topic, protobufMessage, DEFAULT_REQUEST_TIMEOUT_MS);
+        }
+
         CompletableFuture<R> result = new CompletableFuture<>();  // Create a CompletableFuture for the result
-        byte[] serializedMessage = protobufMessage.toByteArray();  // Serialize the Protobuf message
-        submitTask(socketName, new Task<>(Task.TaskType.SEND_AND_WAIT, topic, serializedMessage, result));  // Submit the send and wait task
+        submitTask(socketName, createSendTask(Task.TaskType.SEND_AND_WAIT, topic, protobufMessage, result));  // Submit the send and wait task
         return result;  // Return the CompletableFuture for the response
     }
 
+    /**
+     * Sends a request on a request-mode socket as [topic][payload][correlation id] and returns a future completed by
+     * the matching reply. Requests do not block the socket, so many can be outstanding at once.
+     *
+     * @param socketName The request-mode socket.
+     * @param topic The request topic.
+     * @param protobufMessage The Protobuf message to be serialized and sent.
+     * @param timeoutMillis Time after which the future fails with a TimeoutException.
+     * @return A CompletableFuture completed with the reply, parsed with the parser registered for the reply topic.
+     */
+    public <T extends Message, R extends Message> CompletableFuture<R> request(String socketName, String topic,
+                                                                               T protobufMessage, long timeoutMillis) {
+        @SuppressWarnings("unchecked")
+        TaskProcessor<R> processor = (TaskProcessor<R>) taskProcessorMap.get(socketName);
+        if (processor == null) {
+            throw new IllegalArgumentException("Socket [" + socketName + "] not found!");
+        }
+
+        CompletableFuture<R> result = new CompletableFuture<>();
+        long correlationId = processor.registerRequest(result, timeoutMillis);
+        Task<R> task = createSendTask(Task.TaskType.SEND, topic, protobufMessage, result);
+        task.trailer = new byte[][]{Frames.longFrame(correlationId)};
+        processor.addTask(task);
+        return result;
+    }
+
+    /**
+     * Builds a send task, serializing the message straight into a pooled direct buffer so the socket can send it
+     * without a heap byte[] in between. The processor returns the buffer to the pool once it has been sent.
+     * Messages larger than a pooled buffer, or sent while every pooled buffer is in use, fall back to a regular byte
+     * array.
+     *
+     * @param type SEND or SEND_AND_WAIT.
+     * @param topic The message topic.
+     * @param message The Protobuf message to serialize.
+     * @param result The future completed with the reply (null for SEND).
+     */
+    private <R extends Message> Task<R> createSendTask(Task.TaskType type, String topic, Message message,
+                                                       CompletableFuture<R> result) {
+        int size = message.getSerializedSize();
+        Task<R> task = null;
+        ByteBuffer buffer = bufferPool.acquire(size);
+        if (buffer != null) {
+            try {
+                CodedOutputStream output = CodedOutputStream.newInstance(buffer);
+                message.writeTo(output);
+                output.flush();  // advances the buffer position past the encoded bytes
+                buffer.flip();
+                task = new Task<>(type, topic, buffer, result);
+            } catch (IOException e) {
+                bufferPool.release(buffer);
+                logger.warn("Direct serialization failed for topic {}, falling back to byte[]", topic, e);
+            }
+        }
+        if (task == null) {
+            task = new Task<>(type, topic, serializeProtobufMessage(message), result);
+        }
+
+        PayloadCompression c = compression;
+        if (c != null && c.appliesTo(topic, size)) {
+            compress(c, task, size);
+        }
+        return task;
+    }
+
+    /**
+     * Creates a SEND task for an already serialized payload, compressed like a serialized message would be.
+     */
+    private <T extends Message> Task<T> createRawSendTask(String topic, byte[] payload) {
+        Task<T> task = new Task<>(Task.TaskType.SEND, topic, payload, null);
+        PayloadCompression c = compression;
+        if (c != null && c.appliesTo(topic, payload.length)) {
+            compress(c, task, payload.length);
+        }
+        return task;
+    }
+
+    /**
+     * Replaces a task's payload with its deflated form and sets the header frame, on the sending thread so the
+     * socket's own thread does not pay for it. The compressed output goes into another pooled buffer when one is
+     * free; a payload that does not shrink is left as it is.
+     */
+    private void compress(PayloadCompression c, Task<?> task, int size) {
+        ByteBuffer input = task.buffer != null ? task.buffer : ByteBuffer.wrap(task.payload);
+        ByteBuffer pooled = bufferPool.acquire(size);
+        ByteBuffer output = pooled != null ? pooled : ByteBuffer.allocate(size);
+        output.limit(size);  // only worth sending if it gets smaller
+
+        byte[] header = c.compress(input, output);
+        if (header == null) {
+            if (pooled != null) bufferPool.release(pooled);
+            return;
+        }
+
+        if (task.buffer != null) bufferPool.release(task.buffer);
+        if (pooled != null) {
+            task.buffer = output;
+            task.payload = null;
+        } else {
+            task.buffer = null;
+            task.payload = Arrays.copyOf(output.array(), output.remaining());
+        }
+        task.header = header;
+    }
+
     /**
      * Serializes a Protobuf message to a byte array.
      *
@@ -219,7 +721,7 @@ public class SocketManager {
     public <T extends Message> CompletableFuture<T> receive(String socketName, String topic) {
         CompletableFuture<T> result = new CompletableFuture<>();
 
-        Task<T> task = new Task<>(Task.TaskType.RECEIVE, topic, null, result);  // Create a receive task
+        Task<T> task = new Task<>(Task.TaskType.RECEIVE, topic, (byte[]) null, result);  // Create a receive task
 
         submitTask(socketName, task);  // Submit the task to the socket's queue
 
@@ -248,10 +750,32 @@ public class SocketManager {
         }
     }
 
+    /**
+     * Returns the processor that owns a socket, for metrics and queue inspection.
+     */
+    TaskProcessor<?> getProcessor(String socketName) {
+        TaskProcessor<?> processor = taskProcessorMap.get(socketName);
+        if (processor == null) {
+            throw new IllegalArgumentException("Socket [" + socketName + "] not found!");
+        }
+        return processor;
+    }
+
     /**
      * Closes all the sockets and the ZeroMQ context, ensuring proper resource cleanup.
      */
     public void close() {
+        // Stop the reactor first so no thread is polling the sockets we are about to close
+        synchronized (this) {
+            if (reactor != null) {
+                reactor.close();
+            }
+            if (monitor != null) {
+                monitor.close();
+            }
+        }
+        localTransport.close();
+
         // Ensure all tasks are completed before closing the context and sockets
         socketWorkers.shutdown();
 
@@ -265,6 +789,10 @@ public class SocketManager {
 
         // Close all sockets and the context
         socketMap.values().forEach(ZMQ.Socket::close);  // Close each socket
-        context.close();  // Close the ZeroMQ context
+        synchronized (this) {
+            if (context != null) {
+                context.close();  // Close the ZeroMQ context
+            }
+        }
     }
 }
@@ -0,0 +1,107 @@
+package com.frausto.service.zmq;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Registers per-socket meters, available under /actuator/metrics/zmq.socket.* with a {@code socket} tag.
+ * Meters read the processor's counters on scrape, so nothing is recorded on the send path.
+ */
+class SocketMetrics {
+
+    private final MeterRegistry registry;
+
+    SocketMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    void bind(String socketName, TaskProcessor<?> processor) {
+        Gauge.builder("zmq.socket.queue.depth", processor, TaskProcessor::getQueueDepth)
+                .tag("socket", socketName)
+                .description("Tasks waiting in the socket's queue")
+                .register(registry);
+        Gauge.builder("zmq.socket.pending.requests", processor, TaskProcessor::getPendingRequestCount)
+                .tag("socket", socketName)
+                .description("Requests awaiting a correlated reply")
+                .register(registry);
+
+        FunctionCounter.builder("zmq.socket.dropped", processor, TaskProcessor::getQueueOverflowCount)
+                .tags("socket", socketName, "reason", "queue_overflow")
+                .register(registry);
+        FunctionCounter.builder("zmq.socket.dropped", processor, TaskProcessor::getConflatedCount)
+                .tags("socket", socketName, "reason", "conflated")
+                .register(registry);
+        FunctionCounter.builder("zmq.socket.dropped", processor, TaskProcessor::getSendFailureCount)
+                .tags("socket", socketName, "reason", "send_failed")
+                .register(registry);
+
+        SocketStats stats = processor.getStats();
+        FunctionCounter.builder("zmq.socket.messages", stats, SocketStats::getMessagesIn)
+                .tags("socket", socketName, "direction", "in")
+                .register(registry);
+        FunctionCounter.builder("zmq.socket.messages", stats, SocketStats::getMessagesOut)
+                .tags("socket", socketName, "direction", "out")
+                .register(registry);
+        FunctionCounter.builder("zmq.socket.bytes", stats, SocketStats::getBytesIn)
+                .tags("socket", socketName, "direction", "in")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("zmq.socket.bytes", stats, SocketStats::getBytesOut)
+                .tags("socket", socketName, "direction", "out")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("zmq.socket.peers", stats, SocketStats::getConnectedPeers)
+                .tag("socket", socketName)
+                .description("Connected peers reported by the socket monitor")
+                .register(registry);
+        FunctionCounter.builder("zmq.socket.disconnects", stats, SocketStats::getDisconnects)
+                .tag("socket", socketName)
+                .register(registry);
+        FunctionCounter.builder("zmq.socket.connect.retries", stats, SocketStats::getConnectRetries)
+                .tag("socket", socketName)
+                .register(registry);
+        FunctionCounter.builder("zmq.socket.handshake.failures", stats, SocketStats::getHandshakeFailures)
+                .tag("socket", socketName)
+                .register(registry);
+        FunctionCounter.builder("zmq.socket.accept.failures", stats, SocketStats::getAcceptFailures)
+                .tag("socket", socketName)
+                .register(registry);
+    }
+
+    void bindProxy(ZMQProxy proxy) {
+        FunctionCounter.builder("zmq.proxy.messages", proxy, ZMQProxy::getMessages)
+                .description("Messages forwarded by the XSUB/XPUB proxy (counted with capture enabled)")
+                .register(registry);
+        FunctionCounter.builder("zmq.proxy.bytes", proxy, ZMQProxy::getBytes)
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("zmq.proxy.subscriptions", proxy, ZMQProxy::getSubscribes)
+                .tag("action", "subscribe")
+                .register(registry);
+        FunctionCounter.builder("zmq.proxy.subscriptions", proxy, ZMQProxy::getUnsubscribes)
+                .tag("action", "unsubscribe")
+                .register(registry);
+    }
+
+    void bindCompression(PayloadCompression compression) {
+        FunctionCounter.builder("zmq.compression.messages", compression, PayloadCompression::getCompressedMessages)
+                .tag("result", "compressed")
+                .register(registry);
+        FunctionCounter.builder("zmq.compression.messages", compression, PayloadCompression::getSkippedMessages)
+                .tag("result", "not_smaller")
+                .register(registry);
+        FunctionCounter.builder("zmq.compression.bytes", compression, PayloadCompression::getOriginalBytes)
+                .tag("stage", "original")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("zmq.compression.bytes", compression, PayloadCompression::getCompressedBytes)
+                .tag("stage", "compressed")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("zmq.compression.cpu", compression, c -> c.getCompressNanos() / 1_000_000.0)
+                .description("Time spent deflating payloads")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+}
@@ -0,0 +1,139 @@
+package com.frausto.service.zmq;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
+import org.zeromq.ZMQException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Consumes ZMQ socket monitor events for every managed socket on one shared thread and folds them into each socket's
+ * {@link SocketStats}: connected peers, disconnects, connect retries, handshake and accept failures.
+ * The inproc PAIR pipe for a socket is connected on the registering thread, right after {@code zmq_socket_monitor}, so
+ * no early events (LISTENING, ACCEPTED) are lost, and then handed to the monitor thread.
+ */
+class SocketMonitor implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(SocketMonitor.class);
+    private static final AtomicInteger PIPES = new AtomicInteger();
+    private static final long POLL_INTERVAL_MS = 250;  // also bounds how long a new registration waits
+
+    // Handshake events were added in libzmq 4.3 and have no constants in the Java binding
+    private static final int EVENT_HANDSHAKE_FAILED_NO_DETAIL = 0x0800;
+    private static final int EVENT_HANDSHAKE_FAILED_PROTOCOL = 0x2000;
+    private static final int EVENT_HANDSHAKE_FAILED_AUTH = 0x4000;
+
+    private record Watch(String socketName, ZMQ.Socket pipe, SocketStats stats) {
+    }
+
+    private final ZContext context;
+    private final ConcurrentLinkedQueue<Watch> registrations = new ConcurrentLinkedQueue<>();
+    private final List<Watch> watches = new ArrayList<>();  // monitor thread only, index = poller slot
+    private final ZMQ.Poller poller;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    SocketMonitor(ZContext context) {
+        this.context = context;
+        this.poller = context.getContext().poller(8);
+        this.thread = new Thread(this, "ZMQMonitor");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Starts monitoring {@code socket}. Must be called from the thread that currently owns the socket, before it is
+     * bound or connected.
+     */
+    void watch(String socketName, ZMQ.Socket socket, SocketStats stats) {
+        String address = "inproc://zmq-monitor-" + PIPES.incrementAndGet();
+        socket.monitor(address, ZMQ.EVENT_ALL);
+
+        ZMQ.Socket pipe = context.createSocket(ZMQ.PAIR);
+        pipe.connect(address);
+        registrations.add(new Watch(socketName, pipe, stats));  // the queue hands the pipe over with a full fence
+    }
+
+    @Override
+    public void run() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                Watch added;
+                while ((added = registrations.poll()) != null) {
+                    poller.register(added.pipe(), ZMQ.Poller.POLLIN);
+                    watches.add(added);
+                }
+
+                if (watches.isEmpty()) {
+                    Thread.sleep(POLL_INTERVAL_MS);
+                    continue;
+                }
+
+                poller.poll(POLL_INTERVAL_MS);
+                for (int i = 0; i < watches.size(); i++) {
+                    if (poller.pollin(i)) {
+                        drainEvents(watches.get(i));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ZMQException e) {
+                if (!running) {
+                    break;
+                }
+                logger.warn("ZMQ monitor poll iteration failed", e);
+            }
+        }
+
+        for (Watch watch : watches) {
+            watch.pipe().close();
+        }
+        Watch leftover;
+        while ((leftover = registrations.poll()) != null) {
+            leftover.pipe().close();
+        }
+    }
+
+    private void drainEvents(Watch watch) {
+        ZMQ.Event event;
+        while ((event = ZMQ.Event.recv(watch.pipe(), ZMQ.DONTWAIT)) != null) {
+            int type = event.getEvent();
+            if (type == ZMQ.EVENT_CONNECTED || type == ZMQ.EVENT_ACCEPTED) {
+                watch.stats().peerConnected();
+                logger.debug("Socket {}: peer connected on {}", watch.socketName(), event.getAddress());
+            } else if (type == ZMQ.EVENT_DISCONNECTED) {
+                watch.stats().peerDisconnected();
+                logger.debug("Socket {}: peer disconnected from {}", watch.socketName(), event.getAddress());
+            } else if (type == ZMQ.EVENT_CONNECT_RETRIED) {
+                watch.stats().connectRetried();
+            } else if (type == ZMQ.EVENT_ACCEPT_FAILED) {
+                watch.stats().acceptFailed();
+                logger.warn("Socket {}: accept failed on {} (errno {})", watch.socketName(), event.getAddress(),
+                        event.getValue());
+            } else if (type == EVENT_HANDSHAKE_FAILED_NO_DETAIL || type == EVENT_HANDSHAKE_FAILED_PROTOCOL
+                    || type == EVENT_HANDSHAKE_FAILED_AUTH) {
+                watch.stats().handshakeFailed();
+                logger.warn("Socket {}: handshake failed with {}", watch.socketName(), event.getAddress());
+            } else if (type == ZMQ.EVENT_BIND_FAILED) {
+                logger.error("Socket {}: bind failed on {} (errno {})", watch.socketName(), event.getAddress(),
+                        event.getValue());
+            }
+        }
+    }
+
+    /**
+     * Stops the monitor thread and closes the event pipes. Call before the monitored sockets are closed.
+     */
+    void close() {
+        running = false;
+        try {
+            thread.join(POLL_INTERVAL_MS * 4);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
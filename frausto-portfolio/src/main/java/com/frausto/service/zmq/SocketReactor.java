@@ -0,0 +1,173 @@
+package com.frausto.service.zmq;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
+import org.zeromq.ZMQException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single-threaded reactor that multiplexes every registered socket on one ZMQ.Poller.
+ * Other threads never touch the managed sockets: they enqueue tasks on the socket's ring buffer and call
+ * {@link #wakeup()}, which writes one byte to an inproc PAIR pipe that the poller also watches. Inbound messages are
+ * read as soon as the poller reports them, so there is no RCVTIMEO-driven polling and the thread count stays at one
+ * regardless of how many sockets are open.
+ */
+public class SocketReactor implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(SocketReactor.class);
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+    private static final byte[] WAKE = new byte[]{1};
+
+    private final ZMQ.Socket wakeReceiver;  // polled by the reactor thread
+    private final ZMQ.Socket wakeSender;    // shared by producers, guarded by its own monitor
+    private final AtomicBoolean wakePending = new AtomicBoolean();
+    private final ConcurrentLinkedQueue<TaskProcessor<?>> registrations = new ConcurrentLinkedQueue<>();
+    private final List<Registration> registered = new ArrayList<>();  // reactor thread only
+    private final ZMQ.Poller poller;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public SocketReactor(ZContext context) {
+        String wakeAddress = "inproc://zmq-reactor-wake-" + INSTANCES.incrementAndGet();
+        this.wakeReceiver = context.createSocket(ZMQ.PAIR);
+        this.wakeReceiver.bind(wakeAddress);
+        this.wakeSender = context.createSocket(ZMQ.PAIR);
+        this.wakeSender.connect(wakeAddress);
+
+        this.poller = context.getContext().poller(8);
+        this.poller.register(wakeReceiver, ZMQ.Poller.POLLIN);
+
+        this.thread = new Thread(this, "ZMQReactor-" + INSTANCES.get());
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Hands a processor (and its socket) over to the reactor thread.
+     */
+    public void register(TaskProcessor<?> processor) {
+        processor.attachReactor(this);
+        registrations.add(processor);
+        wakeup();
+    }
+
+    /**
+     * Signals the reactor that work is pending. Coalesced: only the first call after the reactor last drained its
+     * queues writes to the wake pipe.
+     */
+    public void wakeup() {
+        if (wakePending.compareAndSet(false, true)) {
+            synchronized (wakeSender) {
+                if (running) {
+                    wakeSender.send(WAKE, ZMQ.DONTWAIT);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        logger.info("ZMQ reactor started on thread {}", Thread.currentThread().getName());
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                poller.poll(-1);
+
+                if (poller.pollin(0)) {
+                    while (wakeReceiver.recv(ZMQ.DONTWAIT) != null) {
+                        // drain coalesced wake-ups
+                    }
+                }
+                // Reset before draining so a producer that enqueues after this point signals again
+                wakePending.set(false);
+
+                TaskProcessor<?> added;
+                while ((added = registrations.poll()) != null) {
+                    registered.add(new Registration(added, poller.register(added.getSocket(), ZMQ.Poller.POLLIN)));
+                }
+
+                for (Registration registration : registered) {
+                    service(registration);
+                }
+            } catch (ZMQException e) {
+                if (!running) {
+                    break;
+                }
+                logger.warn("ZMQ reactor poll iteration failed", e);
+            }
+        }
+        logger.info("ZMQ reactor stopped");
+    }
+
+    /**
+     * Runs one socket's queued tasks and pending reads. A failure, e.g. from a listener callback or a socket closed
+     * under it, is logged and contained to that socket so the reactor keeps serving the others.
+     */
+    private void service(Registration registration) {
+        try {
+            boolean readable = poller.pollin(registration.slot);  // before re-registering clears the result
+            registration.processor.drainForReactor();
+            if (readable) {
+                registration.processor.onReadable();
+            }
+            updateInterest(registration);
+        } catch (RuntimeException e) {
+            if (running) {  // sockets are closed under the reactor while it stops
+                logger.error("ZMQ reactor failed serving socket in slot {}", registration.slot, e);
+            }
+        }
+    }
+
+    /**
+     * Watches a socket for POLLOUT only while one of its sends is waiting for the socket to become writable, so an
+     * idle writable socket does not keep waking the poller.
+     */
+    private void updateInterest(Registration registration) {
+        boolean pollout = registration.processor.hasBlockedSend();
+        if (pollout != registration.pollout) {
+            ZMQ.Socket socket = registration.processor.getSocket();
+            poller.unregister(socket);
+            registration.slot = poller.register(socket, pollout ? ZMQ.Poller.POLLIN | ZMQ.Poller.POLLOUT
+                    : ZMQ.Poller.POLLIN);
+            registration.pollout = pollout;
+        }
+    }
+
+    /**
+     * Stops the reactor thread and closes the wake pipe. Managed sockets are closed by their owner.
+     */
+    public void close() {
+        running = false;
+        synchronized (wakeSender) {
+            wakeSender.send(WAKE, ZMQ.DONTWAIT);
+        }
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (wakeSender) {
+            wakeSender.close();
+        }
+        wakeReceiver.close();
+    }
+
+    private static final class Registration {
+        private final TaskProcessor<?> processor;
+        private int slot;         // poller index, changes when the interest set is updated
+        private boolean pollout;  // registered for POLLOUT as well as POLLIN
+
+        private Registration(TaskProcessor<?> processor, int slot) {
+            this.processor = processor;
+            this.slot = slot;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.frausto.service.zmq;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Traffic and connection counters for one managed socket.
+ * Message counters are updated by the socket's processor; connection counters by the shared {@link SocketMonitor}.
+ * Byte counts cover payload frames only.
+ */
+public class SocketStats {
+    private final LongAdder messagesIn = new LongAdder();
+    private final LongAdder messagesOut = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final AtomicInteger connectedPeers = new AtomicInteger();
+    private final LongAdder disconnects = new LongAdder();
+    private final LongAdder connectRetries = new LongAdder();
+    private final LongAdder handshakeFailures = new LongAdder();
+    private final LongAdder acceptFailures = new LongAdder();
+
+    void recordIn(int payloadBytes) {
+        messagesIn.increment();
+        bytesIn.add(payloadBytes);
+    }
+
+    void recordOut(int payloadBytes) {
+        messagesOut.increment();
+        bytesOut.add(payloadBytes);
+    }
+
+    void peerConnected() {
+        connectedPeers.incrementAndGet();
+    }
+
+    void peerDisconnected() {
+        disconnects.increment();
+        connectedPeers.updateAndGet(peers -> Math.max(0, peers - 1));
+    }
+
+    void connectRetried() {
+        connectRetries.increment();
+    }
+
+    void handshakeFailed() {
+        handshakeFailures.increment();
+    }
+
+    void acceptFailed() {
+        acceptFailures.increment();
+    }
+
+    public long getMessagesIn() {
+        return messagesIn.sum();
+    }
+
+    public long getMessagesOut() {
+        return messagesOut.sum();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    public int getConnectedPeers() {
+        return connectedPeers.get();
+    }
+
+    public long getDisconnects() {
+        return disconnects.sum();
+    }
+
+    public long getConnectRetries() {
+        return connectRetries.sum();
+    }
+
+    public long getHandshakeFailures() {
+        return handshakeFailures.sum();
+    }
+
+    public long getAcceptFailures() {
+        return acceptFailures.sum();
+    }
+}
@@ -2,6 +2,7 @@ package com.frausto.service.zmq;
 
 import com.google.protobuf.Message;
 
+import java.nio.ByteBuffer;
 import java.util.concurrent.CompletableFuture;
 
 public class Task <T extends Message> {
@@ -20,6 +21,11 @@ public class Task <T extends Message> {
     TaskType type;  // The type of the task (SEND, RECEIVE, or SEND_AND_WAIT)
     String topic; // The topic of the message that was sent/received
     byte[] payload;  // The message payload (in byte array format)
+    ByteBuffer buffer;  // Pooled direct buffer holding the payload instead of payload; returned to the pool after sending
+    byte[] header;  // Compression header frame sent between topic and payload (null when uncompressed)
+    byte[] identity;  // ROUTER peer to route a SEND to (null for unrouted sockets)
+    boolean delimited;  // Whether the routed peer expects an empty delimiter frame after its identity
+    byte[][] trailer;  // Extra frames sent after the payload (sequence numbers, correlation ids)
     CompletableFuture<T> result;  // Holds the result for RECEIVE or SEND_AND_WAIT tasks
 
     public volatile Phase phase = Phase.SEND;
@@ -50,5 +56,19 @@ public class Task <T extends Message> {
         this.payload = payload;  // Set the message payload
         this.result = result;  // Set the CompletableFuture to hold the result of the task
     }
-}
 
+    /**
+     * Constructor for tasks whose payload was serialized into a pooled direct buffer.
+     *
+     * @param type The type of task (SEND or SEND_AND_WAIT).
+     * @param topic the topic of the message to send
+     * @param buffer The serialized payload, flipped and ready to be read.
+     * @param result The CompletableFuture that holds the result of the task (null for SEND).
+     */
+    public Task(TaskType type, String topic, ByteBuffer buffer, CompletableFuture<T> result) {
+        this.type = type;
+        this.topic = topic;
+        this.buffer = buffer;
+        this.result = result;
+    }
+}
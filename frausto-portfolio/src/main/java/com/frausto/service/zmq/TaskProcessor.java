@@ -1,16 +1,23 @@
 package com.frausto.service.zmq;
 
-import com.frausto.proto.service.DockerContainerStatus;
 import com.google.protobuf.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.zeromq.ZMQ;
 import org.zeromq.ZMQException;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
@@ -18,22 +25,44 @@ public class TaskProcessor<T extends Message> implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(TaskProcessor.class);
 
     private final ZMQ.Socket socket;
-    private final BlockingQueue<Task<T>> queue;
+    private final TaskRingBuffer<Task<T>> queue;
+    private final ArrayDeque<Task<T>> retries = new ArrayDeque<>();  // processor-thread only
+    private final ArrayDeque<Task<T>> awaitingReply = new ArrayDeque<>();  // reactor mode: receives in arrival order
+    private Task<T> blockedSend;  // reactor mode: send refused with EAGAIN, retried once the socket is writable
+    private volatile SocketReactor reactor;
     private final AtomicReference<Consumer<T>> callback;
+    private final DirectBufferPool bufferPool;  // receives pooled payload buffers back once they are sent
+    private final TopicRegistry topicRegistry;  // topic -> Protobuf parser
     private volatile boolean isListenerMode = false;
+    private volatile RouterListener routerListener;  // set for ROUTER sockets, which always run on the reactor
+    private volatile Map<Long, CompletableFuture<T>> pendingRequests;  // request mode (DEALER): correlation id -> reply
+    private final AtomicLong nextCorrelationId = new AtomicLong();
+    private volatile DeliveryPolicy.Mode deliveryMode;  // null = legacy behaviour (queue settings only)
+    private final Map<String, Task<T>> latestByTopic = new ConcurrentHashMap<>();  // CONFLATE: newest unsent SEND per topic
+    private final AtomicLong conflatedCount = new AtomicLong();
+    private final AtomicLong sendFailureCount = new AtomicLong();
+    private final SocketStats stats;  // messages/bytes in and out, shared with the socket monitor
+    private final List<MessageTap> taps = new CopyOnWriteArrayList<>();  // observers of sent messages, e.g. the journal
 
-    // topic -> Protobuf class
-    private static final Map<String, Class<? extends Message>> topicClassMap = new HashMap<>();
-    static {
-        topicClassMap.put("docker.status", DockerContainerStatus.class);
+    public TaskProcessor(ZMQ.Socket socket,
+                         TaskRingBuffer<Task<T>> queue,
+                         Consumer<T> callback,
+                         TopicRegistry topicRegistry) {
+        this(socket, queue, callback, null, topicRegistry, new SocketStats());
     }
 
     public TaskProcessor(ZMQ.Socket socket,
-                         BlockingQueue<Task<T>> queue,
-                         Consumer<T> callback) {
+                         TaskRingBuffer<Task<T>> queue,
+                         Consumer<T> callback,
+                         DirectBufferPool bufferPool,
+                         TopicRegistry topicRegistry,
+                         SocketStats stats) {
         this.socket = socket;
         this.queue = queue;
         this.callback = new AtomicReference<>(callback);
+        this.bufferPool = bufferPool;
+        this.topicRegistry = topicRegistry;
+        this.stats = stats;
     }
 
     @Override
@@ -43,59 +72,184 @@ public class TaskProcessor<T extends Message> implements Runnable {
                 if (isListenerMode) {
                     handleMessageListener(); // timeout-safe
                 } else {
-                    Task<T> task = queue.take();
+                    queue.awaitNotEmpty();
+                    drainPending();
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+            }
+        }
+    }
 
-                    switch (task.type) {
-                        case SEND: {
-                            // multipart: [topic][payload]
-                            socket.send(task.topic, ZMQ.SNDMORE);
-                            socket.send(task.payload, 0);
-                            break;
+    /**
+     * Drains everything queued at the time of the call in one pass, so bursts of SEND tasks go out back-to-back
+     * instead of waking the thread once per message. Unfinished receive tasks are re-queued after the pass.
+     */
+    private void drainPending() {
+        queue.drain(this::process, queue.capacity());
+
+        Task<T> retry;
+        while ((retry = retries.poll()) != null) {
+            if (!queue.offer(retry) && retry.result != null) {
+                retry.result.completeExceptionally(new RejectedExecutionException("Task queue full, receive abandoned"));
+            }
+        }
+    }
+
+    private void process(Task<T> task) {
+        try {
+            switch (task.type) {
+                case SEND: {
+                    task = takeLatest(task);
+                    if (task == null) break;
+                    // multipart: [identity (ROUTER only)][topic][payload][trailer...]
+                    try {
+                        int flags = deliveryMode == DeliveryPolicy.Mode.BOUNDED ? ZMQ.DONTWAIT : 0;
+                        ByteBuffer tapView = payloadView(task);
+                        if (!sendFrames(task, flags)) {
+                            sendFailureCount.incrementAndGet();
+                        } else if (tapView != null) {
+                            notifyTaps(task, tapView);
                         }
-                        case RECEIVE: {
-                            boolean done = handleMessageReceiveOnce(task);
-                            if (!done) {
-                                // Re-queue so we try again on the next loop
-                                queue.offer(task);
-                            }
-                            break;
+                    } finally {
+                        releaseBuffer(task);
+                    }
+                    break;
+                }
+                case RECEIVE: {
+                    boolean done = handleMessageReceiveOnce(task);
+                    if (!done) {
+                        // Re-queue so we try again on the next pass
+                        retries.add(task);
+                    }
+                    break;
+                }
+                case SEND_AND_WAIT: {
+                    // Only send on the first pass; subsequent retries just recv
+                    if (task.phase == Task.Phase.SEND) {
+                        boolean sendSuccessful = false;
+                        try {
+                            // REQ/DEALER usually send single-part payloads (no topic frame)
+                            sendSuccessful = sendPayload(task, 0);
+                        } catch (ZMQException e) {
                         }
-                        case SEND_AND_WAIT: {
-                            // Only send on the first pass; subsequent retries just recv
-                            if (task.phase == Task.Phase.SEND) {
-                                boolean sendSuccessful = false;
-                                try {
-                                    // REQ/DEALER usually send single-part payloads (no topic frame)
-                                    sendSuccessful = socket.send(task.payload, 0);
-                                } catch (ZMQException e) {
-                                }
-
-                                if (!sendSuccessful) {
-                                    queue.offer(task); // retry the SEND leg before we attempt to receive
-                                    break;
-                                }
-
-                                task.phase = Task.Phase.RECV; // now we're awaiting the reply
-                            }
-
-                            boolean done = handleMessageReceiveOnce(task);
-                            if (!done) {
-                                queue.offer(task); // keep trying until it completes
-                            } else {
-                                // reset in case the same Task instance is ever reused (defensive)
-                                task.phase = Task.Phase.SEND;
-                            }
+
+                        if (!sendSuccessful) {
+                            retries.add(task); // retry the SEND leg before we attempt to receive
                             break;
                         }
+
+                        task.phase = Task.Phase.RECV; // now we're awaiting the reply
+                        releaseBuffer(task);
                     }
+
+                    boolean done = handleMessageReceiveOnce(task);
+                    if (!done) {
+                        retries.add(task); // keep trying until it completes
+                    } else {
+                        // reset in case the same Task instance is ever reused (defensive)
+                        task.phase = Task.Phase.SEND;
+                    }
+                    break;
                 }
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
+            }
+        } catch (ZMQException e) {
+            logger.warn("Failed to process {} task on topic {}", task.type, task.topic, e);
+            releaseBuffer(task);
+        }
+    }
+
+    /**
+     * CONFLATE: a queued SEND only marks its topic as having something to send; the message actually sent is the
+     * newest one stored for the topic. Other modes send the task itself.
+     */
+    private Task<T> takeLatest(Task<T> queued) {
+        if (deliveryMode != DeliveryPolicy.Mode.CONFLATE || queued.identity != null) {
+            return queued;
+        }
+        return latestByTopic.remove(queued.topic);
+    }
+
+    /**
+     * Sends a SEND task as one multipart message: [identity][delimiter] for routed replies, then [topic], the
+     * compression header if the payload is compressed, [payload] and any trailer frames. Once the first frame is accepted ZeroMQ delivers the rest atomically.
+     *
+     * @return false if the socket could not accept the message
+     */
+    private boolean sendFrames(Task<T> task, int flags) {
+        if (task.identity != null) {
+            if (!socket.send(task.identity, ZMQ.SNDMORE | flags)) return false;
+            if (task.delimited && !socket.send(Frames.EMPTY, ZMQ.SNDMORE | flags)) return false;
+        }
+        if (!socket.send(task.topic, ZMQ.SNDMORE | flags)) return false;
+        if (task.header != null && !socket.send(task.header, ZMQ.SNDMORE | flags)) return false;
+
+        int trailerFrames = task.trailer == null ? 0 : task.trailer.length;
+        if (!sendPayload(task, trailerFrames > 0 ? ZMQ.SNDMORE | flags : flags)) return false;
+        for (int i = 0; i < trailerFrames; i++) {
+            if (!socket.send(task.trailer[i], (i < trailerFrames - 1 ? ZMQ.SNDMORE : 0) | flags)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sends the payload frame from the task's pooled direct buffer when it has one (no heap copy), else from its
+     * byte array.
+     *
+     * @return true if the frame was queued on the socket
+     */
+    private boolean sendPayload(Task<T> task, int flags) {
+        boolean sent;
+        int length;
+        if (task.buffer == null) {
+            length = task.payload == null ? 0 : task.payload.length;
+            sent = socket.send(task.payload, flags);
+        } else {
+            length = task.buffer.remaining();
+            sent = socket.sendByteBuffer(task.buffer, flags) == length;
+        }
+        if (sent) stats.recordOut(length);
+        return sent;
+    }
+
+    /**
+     * Captures the payload before it is sent (sending advances a direct buffer's position), or returns null when no
+     * tap is registered.
+     */
+    private ByteBuffer payloadView(Task<T> task) {
+        if (taps.isEmpty()) {
+            return null;
+        }
+        if (task.buffer != null) {
+            return task.buffer.asReadOnlyBuffer();
+        }
+        return ByteBuffer.wrap(task.payload == null ? Frames.EMPTY : task.payload).asReadOnlyBuffer();
+    }
+
+    private void notifyTaps(Task<T> task, ByteBuffer payload) {
+        boolean compressed = task.header != null;  // observers get the original payload, not the wire form
+        for (MessageTap tap : taps) {
+            try {
+                if (compressed) {
+                    payload = ByteBuffer.wrap(PayloadCompression.decompress(task.header, payload)).asReadOnlyBuffer();
+                    compressed = false;  // inflate once for all taps
+                }
+                tap.onSent(task.topic, payload.duplicate(), task.trailer);
             } catch (Exception e) {
+                logger.warn("Message tap failed for topic {}", task.topic, e);
             }
         }
     }
 
+    /** Returns the task's payload buffer to the pool; the task must not be sent again afterwards. */
+    private void releaseBuffer(Task<T> task) {
+        if (task.buffer != null) {
+            if (bufferPool != null) bufferPool.release(task.buffer);
+            task.buffer = null;
+        }
+    }
+
     /** Listener mode: keep polling until data arrives; treat timeouts as "no data yet". */
     private void handleMessageListener() {
         // Try to read the first frame as topic (PUB/SUB)
@@ -110,7 +264,17 @@ public class TaskProcessor<T extends Message> implements Runnable {
             // If a publisher sent single-part unexpectedly (or transient timeout), just return and try again.
             return;
         }
+        payload = readPayload(topic, payload);
+        if (payload == null) {
+            return;
+        }
+        discardRemainingFrames();  // e.g. sequence frames from a snapshot-enabled publisher
+        stats.recordIn(payload.length);
 
+        dispatchToListener(topic, payload);
+    }
+
+    private void dispatchToListener(String topic, byte[] payload) {
         try {
             T msg = deserializeProtobufMessage(payload, topic);
             Consumer<T> cb = callback.get();
@@ -119,6 +283,290 @@ public class TaskProcessor<T extends Message> implements Runnable {
         }
     }
 
+    /**
+     * Reactor mode: executes queued tasks without blocking. Sends go out immediately; RECEIVE and the reply leg of
+     * SEND_AND_WAIT are parked until {@link #onReadable()} delivers a message. A send the socket refuses (EAGAIN, e.g.
+     * a DEALER at its high-water mark) stays pending and the pass stops there, so later tasks wait in the queue, in
+     * order and under its overflow policy, until {@link #hasBlockedSend()} clears. BOUNDED sockets never wait on the
+     * socket and drop the refused send instead; PUB sockets never refuse one.
+     */
+    void drainForReactor() {
+        if (blockedSend != null) {
+            if (!sendNonBlocking(blockedSend)) {
+                return;
+            }
+            blockedSend = null;
+        }
+        Task<T> task;
+        for (int i = queue.capacity(); i > 0 && blockedSend == null && (task = queue.poll()) != null; i--) {
+            dispatchNonBlocking(task);
+        }
+    }
+
+    /** Reactor mode: true while a refused send waits for the socket to become writable (POLLOUT). */
+    boolean hasBlockedSend() {
+        return blockedSend != null;
+    }
+
+    private void dispatchNonBlocking(Task<T> task) {
+        switch (task.type) {
+            case SEND: {
+                task = takeLatest(task);
+                if (task != null && !sendNonBlocking(task)) {
+                    refused(task);
+                }
+                break;
+            }
+            case RECEIVE: {
+                awaitingReply.add(task);
+                break;
+            }
+            case SEND_AND_WAIT: {
+                if (!sendNonBlocking(task)) {
+                    refused(task);
+                }
+                break;
+            }
+        }
+    }
+
+    private void refused(Task<T> task) {
+        if (deliveryMode != DeliveryPolicy.Mode.BOUNDED) {
+            blockedSend = task;
+            return;
+        }
+        sendFailureCount.incrementAndGet();
+        logger.debug("Dropped message on topic {}: socket not ready for sending", task.topic);
+        if (task.result != null) {
+            task.result.completeExceptionally(new RejectedExecutionException("Socket not ready for sending"));
+        }
+        releaseBuffer(task);
+    }
+
+    /**
+     * Sends a SEND task, or the request leg of a SEND_AND_WAIT, with DONTWAIT. ZeroMQ accepts or refuses a message
+     * as a whole on its first frame, so a refused task can be sent again unchanged.
+     *
+     * @return false if the socket refused the message and the task is still pending
+     */
+    private boolean sendNonBlocking(Task<T> task) {
+        try {
+            if (task.type == Task.TaskType.SEND) {
+                ByteBuffer tapView = payloadView(task);
+                if (!sendFrames(task, ZMQ.DONTWAIT)) {
+                    return false;
+                }
+                if (tapView != null) {
+                    notifyTaps(task, tapView);
+                }
+            } else {
+                if (!sendPayload(task, ZMQ.DONTWAIT)) {
+                    return false;
+                }
+                task.phase = Task.Phase.RECV;
+                awaitingReply.add(task);
+            }
+        } catch (ZMQException e) {
+            sendFailureCount.incrementAndGet();
+            logger.warn("Failed to process {} task on topic {}", task.type, task.topic, e);
+            if (task.result != null) task.result.completeExceptionally(e);
+        }
+        releaseBuffer(task);
+        return true;
+    }
+
+    /**
+     * Reactor mode: reads every message currently queued on the socket. Each message completes the oldest waiting
+     * RECEIVE/SEND_AND_WAIT task, or goes to the listener callback when nothing is waiting.
+     */
+    void onReadable() {
+        byte[] first;
+        while ((first = socket.recv(ZMQ.DONTWAIT)) != null) {
+            if (routerListener != null) {
+                dispatchToRouter(first);
+                continue;
+            }
+            if (pendingRequests != null) {
+                completePendingRequest(first);
+                continue;
+            }
+
+            byte[] second = null;
+            if (socket.hasReceiveMore()) {
+                second = readPayload(null, socket.recv(0));
+                if (second == null) continue;  // payload could not be inflated, already logged
+            }
+            discardRemainingFrames();  // ignore frames we do not understand
+            stats.recordIn(second != null ? second.length : first.length);
+
+            Task<T> waiting = awaitingReply.poll();
+            if (waiting != null) {
+                String firstAsString = new String(first, StandardCharsets.UTF_8);
+                byte[] payload = (second != null && firstAsString.equals(waiting.topic)) ? second : first;
+                try {
+                    T deserialized = deserializeProtobufMessage(payload, waiting.topic);
+                    if (waiting.result != null) waiting.result.complete(deserialized);
+                } catch (Exception e) {
+                    if (waiting.result != null) waiting.result.completeExceptionally(e);
+                }
+            } else if (second != null) {
+                dispatchToListener(new String(first, StandardCharsets.UTF_8), second);
+            }
+        }
+    }
+
+    /**
+     * Reads the rest of a ROUTER message whose identity frame was {@code identity} and hands it to the router
+     * listener. Listener failures are logged so one bad request cannot stop the reactor.
+     */
+    private void dispatchToRouter(byte[] identity) {
+        List<byte[]> frames = new ArrayList<>(4);
+        while (socket.hasReceiveMore()) {
+            frames.add(socket.recv(0));
+        }
+
+        int next = 0;
+        boolean delimited = frames.size() >= 2 && frames.get(0).length == 0;  // REQ peers add an empty delimiter
+        if (delimited) next++;
+        if (next >= frames.size()) {
+            logger.debug("Ignoring ROUTER message without a topic frame");
+            return;
+        }
+
+        String topic = new String(frames.get(next++), StandardCharsets.UTF_8);
+        byte[] payload = next < frames.size() ? frames.get(next++) : Frames.EMPTY;
+        if (PayloadCompression.isHeader(payload) && next < frames.size()) {
+            try {
+                payload = PayloadCompression.decompress(payload, frames.get(next++));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Ignoring ROUTER message on topic {}: {}", topic, e.getMessage());
+                return;
+            }
+        }
+        stats.recordIn(payload.length);
+        List<byte[]> trailer = frames.subList(next, frames.size());
+
+        try {
+            routerListener.onRequest(new RouterRequest(identity, delimited, topic, payload, trailer));
+        } catch (Exception e) {
+            logger.warn("Router listener failed for topic {}", topic, e);
+        }
+    }
+
+    /**
+     * Request mode: matches a reply [topic][payload][correlation id] to its pending request. Replies that arrive after
+     * their request timed out no longer have an entry and are discarded.
+     */
+    private void completePendingRequest(byte[] topicFrame) {
+        List<byte[]> frames = new ArrayList<>(2);
+        while (socket.hasReceiveMore()) {
+            frames.add(socket.recv(0));
+        }
+        if (frames.size() < 2) {
+            logger.debug("Ignoring reply without payload and correlation frames");
+            return;
+        }
+
+        long correlationId;
+        try {
+            correlationId = Frames.readLong(frames.get(frames.size() - 1));
+        } catch (IllegalArgumentException e) {
+            logger.debug("Ignoring reply with a malformed correlation frame");
+            return;
+        }
+
+        stats.recordIn(frames.get(0).length);
+        CompletableFuture<T> pending = pendingRequests.remove(correlationId);
+        if (pending == null) {
+            logger.debug("Discarding late reply for request {}", correlationId);
+            return;
+        }
+
+        String topic = new String(topicFrame, StandardCharsets.UTF_8);
+        try {
+            byte[] payload = frames.get(0);
+            if (PayloadCompression.isHeader(payload) && frames.size() >= 3) {
+                payload = PayloadCompression.decompress(payload, frames.get(1));
+            }
+            pending.complete(deserializeProtobufMessage(payload, topic));
+        } catch (Exception e) {
+            pending.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Request mode: records a pending request and returns the correlation id to send with it. The future fails with
+     * a TimeoutException after {@code timeoutMillis}, and its entry is removed however it completes.
+     */
+    long registerRequest(CompletableFuture<T> result, long timeoutMillis) {
+        Map<Long, CompletableFuture<T>> pending = pendingRequests;
+        if (pending == null) {
+            throw new IllegalStateException("Socket is not in request mode");
+        }
+        long correlationId = nextCorrelationId.incrementAndGet();
+        pending.put(correlationId, result);
+        result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((reply, error) -> pending.remove(correlationId));
+        return correlationId;
+    }
+
+    void enableRequestMode() {
+        this.pendingRequests = new ConcurrentHashMap<>();
+    }
+
+    boolean isRequestMode() {
+        return pendingRequests != null;
+    }
+
+    public int getPendingRequestCount() {
+        Map<Long, CompletableFuture<T>> pending = pendingRequests;
+        return pending == null ? 0 : pending.size();
+    }
+
+    /**
+     * Returns the payload that follows a topic frame. When {@code frame} is a compression header the next frame is
+     * read and inflated; if that fails the rest of the message is discarded and null is returned.
+     */
+    private byte[] readPayload(String topic, byte[] frame) {
+        if (frame == null || !PayloadCompression.isHeader(frame) || !socket.hasReceiveMore()) {
+            return frame;
+        }
+        byte[] compressed = socket.recv(0);
+        try {
+            return PayloadCompression.decompress(frame, compressed);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Dropping message on topic {}: {}", topic, e.getMessage());
+            discardRemainingFrames();
+            return null;
+        }
+    }
+
+    private void discardRemainingFrames() {
+        while (socket.hasReceiveMore()) {
+            socket.recv(0);
+        }
+    }
+
+    void enableRouterMode(RouterListener listener) {
+        this.routerListener = listener;
+    }
+
+    void addTap(MessageTap tap) {
+        taps.add(tap);
+    }
+
+    boolean hasTaps() {
+        return !taps.isEmpty();
+    }
+
+    void attachReactor(SocketReactor reactor) {
+        this.reactor = reactor;
+    }
+
+    ZMQ.Socket getSocket() {
+        return socket;
+    }
+
     /**
      * Receive one message for RECEIVE / SEND_AND_WAIT paths.
      * Timeout returns without completing the future. Caller can re-issue or you can adapt to loop.
@@ -141,14 +589,16 @@ public class TaskProcessor<T extends Message> implements Runnable {
         // - If peer sent multipart as [topic][payload] and the topic matches our expected topic, read next as payload
         // - Otherwise, treat the first frame as the payload (single-part reply)
         if (firstAsString != null && firstAsString.equals(task.topic)) {
-            payload = socket.recv(0);
+            payload = readPayload(task.topic, socket.recv(0));
             if (payload == null) {
-                // rare: responder split frames but payload timed out; try later
+                // rare: responder split frames but payload timed out (or could not be inflated); try later
                 return false;
             }
         } else {
             payload = first; // single-part reply assumed
         }
+        discardRemainingFrames();
+        stats.recordIn(payload.length);
 
         try {
             T deserialized = deserializeProtobufMessage(payload, task.topic);
@@ -159,12 +609,9 @@ public class TaskProcessor<T extends Message> implements Runnable {
         return true;
     }
 
-    /** Topic-aware Protobuf deserialization. */
-    @SuppressWarnings("unchecked")
+    /** Topic-aware Protobuf deserialization using the parser registered for the topic. */
     private T deserializeProtobufMessage(byte[] bytes, String topic) throws Exception {
-        Class<? extends Message> messageClass = topicClassMap.get(topic);
-        if (messageClass == null) throw new IllegalArgumentException("No class found for topic: " + topic);
-        return (T) messageClass.getDeclaredMethod("parseFrom", byte[].class).invoke(null, bytes);
+        return topicRegistry.parse(topic, bytes);
     }
 
     public void enableListenerMode() { isListenerMode = true; }
@@ -172,12 +619,109 @@ public class TaskProcessor<T extends Message> implements Runnable {
 
     public void updateCallback(Consumer<T> newCallback) { callback.set(newCallback); }
 
+    /**
+     * Enqueues a task according to the queue's overflow policy. Rejected tasks complete their future exceptionally;
+     * rejected fire-and-forget sends throw so the caller sees the loss.
+     */
     public void addTask(Task<T> task) {
+        if (deliveryMode == DeliveryPolicy.Mode.CONFLATE && task.type == Task.TaskType.SEND && task.identity == null) {
+            Task<T> replaced = latestByTopic.put(task.topic, task);
+            if (replaced != null) {
+                // The queued marker for this topic is still pending and will pick up the new task
+                conflatedCount.incrementAndGet();
+                releaseBuffer(replaced);
+                return;
+            }
+        }
+
+        boolean accepted;
         try {
-            queue.put(task);
+            accepted = queue.publish(task);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new RuntimeException(e);
         }
+
+        if (accepted) {
+            SocketReactor r = reactor;
+            if (r != null) r.wakeup();
+            return;
+        }
+
+        if (deliveryMode == DeliveryPolicy.Mode.CONFLATE) {
+            // No marker made it into the queue, so nothing would ever send the stored message for this topic
+            if (latestByTopic.remove(task.topic, task)) {
+                releaseBuffer(task);
+            } else {
+                // A newer send replaced ours (releasing our buffer) and returned counting on our marker; it is lost too
+                Task<T> stranded;
+                while ((stranded = latestByTopic.get(task.topic)) != null) {
+                    if (latestByTopic.remove(task.topic, stranded)) {
+                        releaseBuffer(stranded);
+                        sendFailureCount.incrementAndGet();
+                        break;
+                    }
+                }
+            }
+        }
+
+        RejectedExecutionException rejected = new RejectedExecutionException(
+                "Task queue full (" + queue.capacity() + " slots), " + task.type + " on topic " + task.topic + " rejected");
+        if (task.result != null) {
+            task.result.completeExceptionally(rejected);
+        } else {
+            throw rejected;
+        }
+    }
+
+    /** Completes the future of a task evicted by the DROP_OLDEST policy. */
+    static void failDropped(Task<?> task) {
+        if (task.result != null) {
+            task.result.completeExceptionally(new RejectedExecutionException(
+                    "Task on topic " + task.topic + " dropped from full queue"));
+        }
+    }
+
+    /**
+     * Applies a delivery policy. Must be called before the processor is started.
+     */
+    void applyDeliveryPolicy(DeliveryPolicy policy) {
+        this.deliveryMode = policy.mode();
+    }
+
+    public DeliveryPolicy.Mode getDeliveryMode() {
+        return deliveryMode;
+    }
+
+    public SocketStats getStats() {
+        return stats;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getQueueRemaining() {
+        return queue.capacity() - queue.size();
+    }
+
+    /** Total messages discarded by this socket: queue evictions, conflated sends and refused sends. */
+    public long getDroppedCount() {
+        return queue.droppedCount() + conflatedCount.get() + sendFailureCount.get();
+    }
+
+    /** Tasks evicted from the full queue (DROP_OLDEST / BOUNDED). */
+    public long getQueueOverflowCount() {
+        return queue.droppedCount();
+    }
+
+    /** Sends superseded by a newer message on the same topic before they went out (CONFLATE). */
+    public long getConflatedCount() {
+        return conflatedCount.get();
+    }
+
+    /** Sends the socket refused, e.g. at its high-water mark in BOUNDED mode. */
+    public long getSendFailureCount() {
+        return sendFailureCount.get();
     }
 }
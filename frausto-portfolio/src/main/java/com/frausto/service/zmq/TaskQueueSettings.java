@@ -0,0 +1,16 @@
+package com.frausto.service.zmq;
+
+/**
+ * Sizing and behaviour of a socket's task ring buffer.
+ *
+ * @param capacity       number of slots (rounded up to a power of two)
+ * @param waitStrategy   how the socket's processor waits for work
+ * @param overflowPolicy what senders do when the buffer is full
+ */
+public record TaskQueueSettings(int capacity, TaskRingBuffer.WaitStrategy waitStrategy,
+                                TaskRingBuffer.OverflowPolicy overflowPolicy) {
+
+    public static TaskQueueSettings defaults() {
+        return new TaskQueueSettings(1024, TaskRingBuffer.WaitStrategy.BLOCKING, TaskRingBuffer.OverflowPolicy.BLOCK);
+    }
+}
@@ -0,0 +1,213 @@
+package com.frausto.service.zmq;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, preallocated ring buffer used as the per-socket task queue.
+ * Producers claim slots with a CAS on the tail sequence and publish through a per-slot sequence number (Vyukov's
+ * bounded queue), so enqueueing never allocates. The socket's processor thread is the only regular consumer and
+ * drains every pending task in one pass; the DROP_OLDEST policy lets a producer evict the head safely because the
+ * dequeue side is also claim-based.
+ *
+ * @param <E> element type
+ */
+public class TaskRingBuffer<E> {
+
+    /** How the consumer waits while the buffer is empty. */
+    public enum WaitStrategy {
+        BLOCKING,       // park until a producer signals
+        SPIN_THEN_PARK  // busy-spin briefly for low latency, then park
+    }
+
+    /** What a producer does when the buffer is full. */
+    public enum OverflowPolicy {
+        BLOCK,          // wait for the consumer to free a slot
+        DROP_OLDEST,    // evict the oldest queued element and enqueue
+        REJECT          // refuse the new element
+    }
+
+    private static final int SPIN_TRIES = 1_000;
+    private static final long MAX_CONSUMER_PARK_NANOS = 100_000_000L;  // safety net, wakeups are signalled
+    private static final long PRODUCER_BACKOFF_NANOS = 50_000L;
+
+    private final Object[] items;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final WaitStrategy waitStrategy;
+    private final OverflowPolicy overflowPolicy;
+    private final Consumer<? super E> dropHandler;
+
+    private volatile Thread consumer;
+    private volatile boolean consumerParked;
+
+    /**
+     * @param capacity       requested capacity, rounded up to the next power of two
+     * @param waitStrategy   consumer wait strategy
+     * @param overflowPolicy producer behaviour when full
+     * @param dropHandler    invoked with every element evicted by DROP_OLDEST (may be null)
+     */
+    public TaskRingBuffer(int capacity, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy,
+                          Consumer<? super E> dropHandler) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Ring buffer capacity must be at least 2");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.items = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+        this.overflowPolicy = overflowPolicy;
+        this.dropHandler = dropHandler;
+    }
+
+    /**
+     * Enqueues an element according to the overflow policy.
+     *
+     * @return true if the element was enqueued, false if it was rejected (REJECT policy only)
+     * @throws InterruptedException if interrupted while waiting for space (BLOCK policy only)
+     */
+    public boolean publish(E element) throws InterruptedException {
+        switch (overflowPolicy) {
+            case REJECT:
+                return offer(element);
+            case DROP_OLDEST:
+                while (!offer(element)) {
+                    E evicted = poll();
+                    if (evicted != null) {
+                        dropped.incrementAndGet();
+                        if (dropHandler != null) dropHandler.accept(evicted);
+                    }
+                }
+                return true;
+            case BLOCK:
+            default:
+                int spins = SPIN_TRIES;
+                while (!offer(element)) {
+                    if (Thread.interrupted()) throw new InterruptedException();
+                    if (spins-- > 0) {
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(this, PRODUCER_BACKOFF_NANOS);
+                    }
+                }
+                return true;
+        }
+    }
+
+    /**
+     * Single non-blocking enqueue attempt that ignores the overflow policy.
+     *
+     * @return false if the buffer is full
+     */
+    public boolean offer(E element) {
+        while (true) {
+            long pos = tail.get();
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    items[index] = element;
+                    sequences.set(index, pos + 1);  // volatile publish, pairs with the parked-consumer check
+                    if (consumerParked) {
+                        LockSupport.unpark(consumer);
+                    }
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+            // another producer claimed this slot first; retry with the new tail
+        }
+    }
+
+    /** Removes the oldest element, or returns null if the buffer is empty. */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        while (true) {
+            long pos = head.get();
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E element = (E) items[index];
+                    items[index] = null;
+                    sequences.lazySet(index, pos + mask + 1);
+                    return element;
+                }
+            } else if (diff < 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Polls up to {@code limit} elements and hands each to {@code handler}.
+     *
+     * @return number of elements drained
+     */
+    public int drain(Consumer<? super E> handler, int limit) {
+        int drained = 0;
+        E element;
+        while (drained < limit && (element = poll()) != null) {
+            handler.accept(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    /** Blocks the calling (consumer) thread until at least one element is available. */
+    public void awaitNotEmpty() throws InterruptedException {
+        int spins = waitStrategy == WaitStrategy.SPIN_THEN_PARK ? SPIN_TRIES : 0;
+        while (isEmpty()) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            if (spins > 0) {
+                spins--;
+                Thread.onSpinWait();
+                continue;
+            }
+            consumer = Thread.currentThread();
+            consumerParked = true;
+            if (isEmpty()) {
+                LockSupport.parkNanos(this, MAX_CONSUMER_PARK_NANOS);
+            }
+            consumerParked = false;
+        }
+    }
+
+    public boolean isEmpty() {
+        long pos = head.get();
+        return sequences.get((int) pos & mask) - (pos + 1) < 0;
+    }
+
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, items.length));
+    }
+
+    public int capacity() {
+        return items.length;
+    }
+
+    /** Number of elements evicted by the DROP_OLDEST policy so far. */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+}
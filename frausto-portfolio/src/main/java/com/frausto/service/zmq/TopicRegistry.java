@@ -0,0 +1,75 @@
+package com.frausto.service.zmq;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps topics to the protobuf Parser used to decode their payloads.
+ * A registration covers every topic that starts with it, mirroring ZeroMQ's prefix subscriptions, and the longest
+ * registered prefix wins. Resolved topics are cached so the receive path does a single map lookup per message.
+ */
+public class TopicRegistry {
+    private static final int MAX_RESOLVED_TOPICS = 4096;  // bounds the cache against unbounded topic names
+
+    private final Map<String, Parser<? extends Message>> parsers = new ConcurrentHashMap<>();
+    private final Map<String, Optional<Parser<? extends Message>>> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the parser for a topic and every topic it prefixes.
+     *
+     * @param topicPrefix The topic (or topic prefix) to register.
+     * @param parser The parser for messages on that topic, e.g. {@code DockerStatusEvent.parser()}.
+     */
+    public <T extends Message> void register(String topicPrefix, Parser<T> parser) {
+        if (topicPrefix == null || parser == null) {
+            throw new IllegalArgumentException("topicPrefix and parser are required");
+        }
+        parsers.put(topicPrefix, parser);
+        resolved.clear();  // earlier lookups may now resolve to a longer prefix
+    }
+
+    public void unregister(String topicPrefix) {
+        if (parsers.remove(topicPrefix) != null) {
+            resolved.clear();
+        }
+    }
+
+    /**
+     * Finds the parser registered for the longest prefix of {@code topic}.
+     */
+    public Optional<Parser<? extends Message>> resolve(String topic) {
+        Optional<Parser<? extends Message>> cached = resolved.get(topic);
+        if (cached != null) {
+            return cached;
+        }
+
+        String bestPrefix = null;
+        for (String prefix : parsers.keySet()) {
+            if (topic.startsWith(prefix) && (bestPrefix == null || prefix.length() > bestPrefix.length())) {
+                bestPrefix = prefix;
+            }
+        }
+        Optional<Parser<? extends Message>> parser = Optional.ofNullable(bestPrefix == null ? null : parsers.get(bestPrefix));
+        if (resolved.size() < MAX_RESOLVED_TOPICS) {
+            resolved.put(topic, parser);
+        }
+        return parser;
+    }
+
+    /**
+     * Parses a received frame with the parser registered for its topic.
+     *
+     * @throws IllegalArgumentException if no registration covers the topic
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Message> T parse(String topic, byte[] payload) throws InvalidProtocolBufferException {
+        Parser<? extends Message> parser = resolve(topic)
+                .orElseThrow(() -> new IllegalArgumentException("No parser registered for topic: " + topic));
+        return (T) parser.parseFrom(payload);
+    }
+}
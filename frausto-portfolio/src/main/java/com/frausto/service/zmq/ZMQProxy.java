@@ -0,0 +1,208 @@
+package com.frausto.service.zmq;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zeromq.ZMQ;
+import org.zeromq.ZMQException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * XSUB/XPUB forwarder that lets any number of publishers fan in to one well-known frontend endpoint while subscribers
+ * connect to the backend. Subscriptions flow upstream to the publishers, so they still filter at the source.
+ * <p>
+ * With capture enabled, ZeroMQ copies every frame passing through the proxy to an inproc PAIR socket. A capture thread
+ * reads it, counts data messages and subscription changes, and hands each data message [topic][payload][trailer...]
+ * to the registered {@link MessageTap}s (e.g. the message journal).
+ * <p>
+ * libzmq sockets are not thread-safe, so each socket is created, used and closed by one thread: the proxy thread owns
+ * XSUB, XPUB and the capture end, the capture thread owns its pipe. Shutdown terminates the context, which makes the
+ * blocked calls on those threads fail with ETERM so they close their own sockets.
+ */
+class ZMQProxy {
+    private static final Logger logger = LoggerFactory.getLogger(ZMQProxy.class);
+    private static final String CAPTURE_ADDRESS = "inproc://zmq-proxy-capture";
+    private static final int CAPTURE_POLL_MS = 250;
+
+    private final ZMQ.Context context = ZMQ.context(1);
+    private final String frontend;
+    private final String backend;
+    private final boolean captureEnabled;
+    private final List<MessageTap> captureTaps = new CopyOnWriteArrayList<>();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder subscribes = new LongAdder();
+    private final LongAdder unsubscribes = new LongAdder();
+    private volatile boolean running;
+
+    ZMQProxy(String frontend, String backend, boolean captureEnabled) {
+        this.frontend = frontend;
+        this.backend = backend;
+        this.captureEnabled = captureEnabled;
+    }
+
+    void start() {
+        running = true;
+        Thread proxyThread = new Thread(this::runProxy, "ZMQProxyThread");
+        proxyThread.setDaemon(true);
+        proxyThread.start();
+    }
+
+    private void runProxy() {
+        ZMQ.Socket xsub = null;
+        ZMQ.Socket xpub = null;
+        ZMQ.Socket capture = null;
+        try {
+            xsub = createSocket(ZMQ.XSUB);
+            xpub = createSocket(ZMQ.XPUB);
+            xsub.bind(frontend);
+            xpub.bind(backend);
+            if (captureEnabled) {
+                capture = createSocket(ZMQ.PAIR);
+                capture.bind(CAPTURE_ADDRESS);
+                Thread captureThread = new Thread(this::runCapture, "ZMQProxyCapture");
+                captureThread.setDaemon(true);
+                captureThread.start();
+            }
+            logger.info("ZMQ proxy forwarding {} (XSUB) to {} (XPUB){}", frontend, backend,
+                    captureEnabled ? " with capture" : "");
+
+            ZMQ.proxy(xsub, xpub, capture);  // returns (ETERM) once close() terminates the context
+        } catch (ZMQException e) {
+            if (running) {
+                logger.error("ZMQ proxy {} -> {} stopped", frontend, backend, e);
+            }
+        } catch (RuntimeException e) {
+            logger.error("ZMQ proxy {} -> {} failed", frontend, backend, e);
+        } finally {
+            closeSocket(capture);
+            closeSocket(xpub);
+            closeSocket(xsub);
+        }
+    }
+
+    private void runCapture() {
+        ZMQ.Socket pipe = null;
+        List<byte[]> frames = new ArrayList<>(4);
+        try {
+            pipe = createSocket(ZMQ.PAIR);
+            pipe.setReceiveTimeOut(CAPTURE_POLL_MS);
+            pipe.connect(CAPTURE_ADDRESS);
+            while (running) {
+                byte[] first = pipe.recv(0);
+                if (first == null) {
+                    continue;  // timeout, re-check running
+                }
+                frames.clear();
+                frames.add(first);
+                while (pipe.hasReceiveMore()) {
+                    frames.add(pipe.recv(0));
+                }
+                onCaptured(frames);
+            }
+        } catch (ZMQException e) {
+            if (running) {
+                logger.error("ZMQ proxy capture stopped", e);
+            }
+        } finally {
+            closeSocket(pipe);
+        }
+    }
+
+    private ZMQ.Socket createSocket(int type) {
+        ZMQ.Socket socket = context.socket(type);
+        socket.setLinger(0);  // nothing is worth delivering after shutdown, and term() waits for lingering messages
+        return socket;
+    }
+
+    /** Closes a socket on the thread that owns it. */
+    private void closeSocket(ZMQ.Socket socket) {
+        if (socket == null) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (ZMQException e) {
+            logger.debug("Error closing ZMQ proxy socket", e);
+        }
+    }
+
+    /**
+     * Single-frame messages starting with 0x01/0x00 are subscribe/unsubscribe requests travelling upstream; everything
+     * else is a published message travelling downstream.
+     */
+    private void onCaptured(List<byte[]> frames) {
+        byte[] first = frames.get(0);
+        if (frames.size() == 1 && first.length > 0 && (first[0] == 1 || first[0] == 0)) {
+            (first[0] == 1 ? subscribes : unsubscribes).increment();
+            return;
+        }
+
+        int next = 1;
+        byte[] header = frames.size() > 2 && PayloadCompression.isHeader(frames.get(1)) ? frames.get(next++) : null;
+        byte[] payload = frames.size() > next ? frames.get(next++) : Frames.EMPTY;
+        messages.increment();
+        bytes.add(payload.length);  // wire size
+        if (captureTaps.isEmpty()) {
+            return;
+        }
+
+        String topic = new String(first, StandardCharsets.UTF_8);
+        if (header != null) {
+            try {
+                payload = PayloadCompression.decompress(header, payload);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Proxy capture skipped message on topic {}: {}", topic, e.getMessage());
+                return;
+            }
+        }
+        byte[][] trailer = frames.size() > next ? frames.subList(next, frames.size()).toArray(new byte[0][]) : null;
+        for (MessageTap tap : captureTaps) {
+            try {
+                tap.onSent(topic, ByteBuffer.wrap(payload).asReadOnlyBuffer(), trailer);
+            } catch (Exception e) {
+                logger.warn("Proxy capture tap failed for topic {}", topic, e);
+            }
+        }
+    }
+
+    void addCaptureTap(MessageTap tap) {
+        captureTaps.add(tap);
+    }
+
+    boolean isCaptureEnabled() {
+        return captureEnabled;
+    }
+
+    /** Published messages forwarded (capture only). */
+    long getMessages() {
+        return messages.sum();
+    }
+
+    /** Payload bytes forwarded (capture only). */
+    long getBytes() {
+        return bytes.sum();
+    }
+
+    long getSubscribes() {
+        return subscribes.sum();
+    }
+
+    long getUnsubscribes() {
+        return unsubscribes.sum();
+    }
+
+    /**
+     * Stops forwarding. Terminating the context makes {@code zmq_proxy} and the capture receive return with ETERM; the
+     * proxy and capture threads then close their own sockets, and {@code term()} returns once they have.
+     */
+    void close() {
+        running = false;
+        context.term();
+    }
+}
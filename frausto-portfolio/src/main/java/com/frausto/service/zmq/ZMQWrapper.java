@@ -1,12 +1,17 @@
 package com.frausto.service.zmq;
 
 import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.zeromq.ZContext;
 import org.zeromq.ZMQ;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
@@ -14,36 +19,72 @@ import java.util.function.Consumer;
  * ZMQWrapper that manages multiple sockets.
  * Operations on the same socket are processed sequentially.
  * Operations on different sockets run concurrently.
+ * PUB and SUB sockets whose address starts with {@code local://} use an in-process transport that hands the sent
+ * Protobuf objects to listeners without serialization or ZeroMQ.
  */
 @Component
 public class ZMQWrapper {
     private static final Logger logger = LoggerFactory.getLogger(ZMQWrapper.class);
     private final SocketManager socketManager;  // SocketManager instance for managing ZeroMQ sockets
-    private final ZContext proxyContext;
+    private final ZMQProxy proxy;  // null unless zmq.proxy.enabled
+    private final SocketMetrics socketMetrics;
 
     /**
      * Private constructor to initialize the ZMQWrapper.
      * It creates a new instance of the SocketManager to manage the sockets.
+     *
+     * @param queueCapacity Slots in each socket's task ring buffer.
+     * @param waitStrategy How socket processors wait for queued tasks.
+     * @param overflowPolicy What senders do when a socket's task ring buffer is full.
+     * @param reactorMode Multiplex all sockets on one poller thread instead of one thread per socket.
+     * @param pooledBuffers Direct buffers preallocated for serializing outgoing messages.
+     * @param pooledBufferSize Size of each pooled buffer; larger messages are serialized to a byte array.
+     * @param monitorEnabled Attach a ZMQ socket monitor to every socket for connection metrics.
+     * @param proxyEnabled Run an XSUB/XPUB proxy publishers can fan in to.
+     * @param proxyFrontend Address the proxy's XSUB side binds to; publishers connect here.
+     * @param proxyBackend Address the proxy's XPUB side binds to; subscribers connect here.
+     * @param proxyCapture Copy proxied traffic to a capture thread for metrics and {@link #addProxyTap} observers.
+     * @param compressedTopics Topic prefixes whose large payloads are deflated; empty disables compression.
+     * @param compressionThreshold Payload size in bytes from which compression is attempted.
+     * @param compressionLevel Deflater level, 1 (fastest) to 9 (smallest).
+     * @param meterRegistry Registry receiving per-socket metrics.
      */
-    private ZMQWrapper() {
-        this.socketManager = new SocketManager();  // Initialize SocketManager
-        this.proxyContext = new ZContext();
-        startProxy();
-    }
-
-    private void startProxy() {
-        new Thread(() -> {
-            try {
-                ZMQ.Socket xsub = proxyContext.createSocket(ZMQ.XSUB);
-                ZMQ.Socket xpub = proxyContext.createSocket(ZMQ.XPUB);
-
-                xsub.bind("ipc:///zmq/xsub.sock");
-                xpub.bind("ipc:///zmq/xpub.sock");
-
-                ZMQ.proxy(xsub, xpub, null);
-            } catch (Exception e) {
-            }
-        }, "ZMQProxyThread").start();
+    private ZMQWrapper(@Value("${zmq.queue.capacity:1024}") int queueCapacity,
+                       @Value("${zmq.queue.waitStrategy:BLOCKING}") TaskRingBuffer.WaitStrategy waitStrategy,
+                       @Value("${zmq.queue.overflowPolicy:BLOCK}") TaskRingBuffer.OverflowPolicy overflowPolicy,
+                       @Value("${zmq.reactor.enabled:false}") boolean reactorMode,
+                       @Value("${zmq.buffers.count:64}") int pooledBuffers,
+                       @Value("${zmq.buffers.size:65536}") int pooledBufferSize,
+                       @Value("${zmq.monitor.enabled:true}") boolean monitorEnabled,
+                       @Value("${zmq.proxy.enabled:false}") boolean proxyEnabled,
+                       @Value("${zmq.proxy.frontend:ipc:///zmq/xsub.sock}") String proxyFrontend,
+                       @Value("${zmq.proxy.backend:ipc:///zmq/xpub.sock}") String proxyBackend,
+                       @Value("${zmq.proxy.capture:false}") boolean proxyCapture,
+                       @Value("${zmq.compression.topics:}") String[] compressedTopics,
+                       @Value("${zmq.compression.threshold:8192}") int compressionThreshold,
+                       @Value("${zmq.compression.level:1}") int compressionLevel,
+                       MeterRegistry meterRegistry) {
+        this.socketManager = new SocketManager(
+                new TaskQueueSettings(queueCapacity, waitStrategy, overflowPolicy), reactorMode,
+                new DirectBufferPool(pooledBuffers, pooledBufferSize));  // Initialize SocketManager
+        if (monitorEnabled) {
+            socketManager.enableMonitoring();
+        }
+        this.socketMetrics = new SocketMetrics(meterRegistry);
+        List<String> topics = Arrays.stream(compressedTopics).map(String::trim).filter(t -> !t.isEmpty()).toList();
+        if (!topics.isEmpty()) {
+            PayloadCompression compression = new PayloadCompression(topics, compressionThreshold, compressionLevel);
+            socketManager.setCompression(compression);
+            socketMetrics.bindCompression(compression);
+            logger.info("Compressing payloads of {} bytes or more on topics {}", compressionThreshold, topics);
+        }
+        if (proxyEnabled) {
+            this.proxy = new ZMQProxy(proxyFrontend, proxyBackend, proxyCapture);
+            socketMetrics.bindProxy(proxy);
+            proxy.start();
+        } else {
+            this.proxy = null;
+        }
     }
 
     /**
@@ -57,6 +98,69 @@ public class ZMQWrapper {
         socketManager.send(socketName, topic, payload);  // Call the send method in SocketManager
     }
 
+    /**
+     * Sends a Protobuf message followed by extra frames: [topic][payload][trailer...].
+     *
+     * @param socketName The name of the socket to send the message to.
+     * @param payload The Protobuf message that will be serialized and sent.
+     * @param trailer Frames sent after the payload, e.g. an 8-byte sequence number.
+     */
+    public <T extends Message> void send(String socketName, String topic, T payload, byte[]... trailer) {
+        socketManager.send(socketName, topic, payload, trailer);
+    }
+
+    /**
+     * Sends a message the caller has already serialized: network peers get {@code encoded}, in-process subscribers on
+     * a {@code local://} endpoint get {@code payload}.
+     *
+     * @param socketName The name of the socket to send the message to.
+     * @param payload The Protobuf message {@code encoded} was serialized from.
+     * @param encoded The serialized payload frame.
+     * @param trailer Frames sent after the payload.
+     */
+    public <T extends Message> void sendEncoded(String socketName, String topic, T payload, byte[] encoded,
+                                                byte[]... trailer) {
+        socketManager.sendEncoded(socketName, topic, payload, encoded, trailer);
+    }
+
+    /**
+     * Replies to a request received on a ROUTER socket.
+     *
+     * @param socketName The ROUTER socket the request arrived on.
+     * @param request The request being answered; its identity routes the reply.
+     * @param topic The reply topic.
+     * @param payload The Protobuf message that will be serialized and sent.
+     * @param trailer Frames sent after the payload.
+     */
+    public <T extends Message> void reply(String socketName, RouterRequest request, String topic, T payload,
+                                          byte[]... trailer) {
+        socketManager.reply(socketName, request, topic, payload, trailer);
+    }
+
+    /**
+     * Replies to a request received on a ROUTER socket with an already serialized payload.
+     *
+     * @param socketName The ROUTER socket the request arrived on.
+     * @param request The request being answered; its identity routes the reply.
+     * @param topic The reply topic.
+     * @param payload The payload frame.
+     * @param trailer Frames sent after the payload.
+     */
+    public void reply(String socketName, RouterRequest request, String topic, byte[] payload, byte[]... trailer) {
+        socketManager.reply(socketName, request, topic, payload, trailer);
+    }
+
+    /**
+     * Free slots in a socket's task queue. A ROUTER service replying from its listener is the only producer on its
+     * socket, so it can size a multi-message reply to fit instead of having replies rejected part-way.
+     *
+     * @param socketName The socket to inspect.
+     * @return Tasks that can be queued before the queue is full.
+     */
+    public int queueRemaining(String socketName) {
+        return socketManager.getProcessor(socketName).getQueueRemaining();
+    }
+
     /**
      * Sends a Protobuf message to the specified socket and waits for a response.
      * The Protobuf message is serialized before being sent.
@@ -70,6 +174,21 @@ public class ZMQWrapper {
         return socketManager.sendAndWait(socketName, topic, payload);  // Delegate to SocketManager's sendAndWait method
     }
 
+    /**
+     * Sends a request on a socket added with {@link #addRequestSocket} without blocking the socket for the reply.
+     * Futures complete on the reactor thread; chain slow work with the async variants.
+     *
+     * @param socketName The request-mode socket.
+     * @param topic The request topic.
+     * @param payload The Protobuf message that will be serialized and sent.
+     * @param timeout How long to wait before the future fails with a TimeoutException.
+     * @return A CompletableFuture completed with the correlated reply.
+     */
+    public <T extends Message, R extends Message> CompletableFuture<R> request(String socketName, String topic,
+                                                                               T payload, Duration timeout) {
+        return socketManager.request(socketName, topic, payload, timeout.toMillis());
+    }
+
     /**
      * Receives a Protobuf message from the specified socket and deserializes it into the provided message class type.
      *
@@ -81,6 +200,41 @@ public class ZMQWrapper {
         return socketManager.receive(socketName, topic);  // Delegate to SocketManager's receive method
     }
 
+    /**
+     * Registers the Protobuf parser for a topic. Received messages are decoded with the parser registered for the
+     * longest matching topic prefix, so "docker.status" also covers "docker.status.&lt;id&gt;".
+     *
+     * @param topic The topic or topic prefix.
+     * @param parser The message parser, e.g. {@code DockerStatusEvent.parser()}.
+     */
+    public <T extends Message> void registerTopic(String topic, Parser<T> parser) {
+        socketManager.registerTopic(topic, parser);
+    }
+
+    /**
+     * Adds an observer of every message sent on a socket, e.g. a journal. The socket may be added later.
+     *
+     * @param socketName The socket to observe.
+     * @param tap Called on the socket's thread after each successful send; must copy what it keeps and not block.
+     */
+    public void addTap(String socketName, MessageTap tap) {
+        socketManager.addTap(socketName, tap);
+    }
+
+    /**
+     * Adds an observer of every message published through the proxy, fed from its capture socket.
+     * Ignored with a warning unless the proxy runs with {@code zmq.proxy.capture=true}.
+     *
+     * @param tap Called on the capture thread for each forwarded message; must not block.
+     */
+    public void addProxyTap(MessageTap tap) {
+        if (proxy == null || !proxy.isCaptureEnabled()) {
+            logger.warn("Proxy capture tap ignored: set zmq.proxy.enabled=true and zmq.proxy.capture=true");
+            return;
+        }
+        proxy.addCaptureTap(tap);
+    }
+
     /**
      * Registers a listener (callback) to handle incoming messages on the specified socket.
      *
@@ -96,7 +250,9 @@ public class ZMQWrapper {
      */
     public void close() {
         socketManager.close();  // Call the close method in SocketManager
-        proxyContext.close();
+        if (proxy != null) {
+            proxy.close();
+        }
     }
 
     /**
@@ -109,6 +265,38 @@ public class ZMQWrapper {
      */
     public void addSocket(String socketName, String address, String socketType, boolean bind) {
         socketManager.initSocket(socketName, address, getSocketType(socketType), bind);  // Call SocketManager's initSocket method
+        bindMetrics(socketName);
+    }
+
+    /**
+     * Adds a new socket with its own task queue settings, e.g. a drop-oldest queue for a latest-value publisher.
+     *
+     * @param socketName The name of the new socket to be added.
+     * @param address The address to bind or connect the socket to.
+     * @param socketType The type of the socket (e.g., PUB, REP, REQ, etc.).
+     * @param bind Whether to bind (`true`) or connect (`false`) the socket to the specified address.
+     * @param queueSettings Ring buffer capacity, wait strategy and overflow policy for this socket.
+     */
+    public void addSocket(String socketName, String address, String socketType, boolean bind,
+                          TaskQueueSettings queueSettings) {
+        socketManager.initSocket(socketName, address, getSocketType(socketType), bind, queueSettings);
+        bindMetrics(socketName);
+    }
+
+    /**
+     * Adds a new socket with a delivery policy, e.g. {@code CONFLATE} for a latest-value status publisher.
+     * Queue depth and drop counts are exposed as zmq.socket.* metrics.
+     *
+     * @param socketName The name of the new socket to be added.
+     * @param address The address to bind or connect the socket to.
+     * @param socketType The type of the socket (e.g., PUB, REP, REQ, etc.).
+     * @param bind Whether to bind (`true`) or connect (`false`) the socket to the specified address.
+     * @param deliveryPolicy Conflate, bounded or blocking delivery and the socket's send high-water mark.
+     */
+    public void addSocket(String socketName, String address, String socketType, boolean bind,
+                          DeliveryPolicy deliveryPolicy) {
+        socketManager.initSocket(socketName, address, getSocketType(socketType), bind, deliveryPolicy);
+        bindMetrics(socketName);
     }
 
     /**
@@ -121,6 +309,53 @@ public class ZMQWrapper {
      */
     public void addSocket(String socketName, String address, boolean bind, String topic) {
         socketManager.initSocket(socketName, address, bind, topic);  // Call SocketManager's initSocket method
+        bindMetrics(socketName);
+    }
+
+    /**
+     * Adds a ROUTER socket that hands every incoming request to {@code listener}. Answer with
+     * {@link #reply(String, RouterRequest, String, Message, byte[]...)}.
+     *
+     * @param socketName The name of the new socket to be added.
+     * @param address The address to bind or connect the socket to.
+     * @param bind Whether to bind (`true`) or connect (`false`) the socket to the specified address.
+     * @param listener Callback for each request; runs on the reactor thread and must not block.
+     */
+    public void addRouterSocket(String socketName, String address, boolean bind, RouterListener listener) {
+        socketManager.initRouterSocket(socketName, address, bind, listener);
+        bindMetrics(socketName);
+    }
+
+    /**
+     * Adds a DEALER socket for pipelined request/reply. Each request gets a trailing 8-byte correlation-id frame that
+     * the peer must echo after its reply payload (ROUTER services added with {@link #addRouterSocket} do when they
+     * reply with the request's trailer). Register the reply topic's parser with {@link #registerTopic}.
+     *
+     * @param socketName The name of the new socket to be added.
+     * @param address The address to bind or connect the socket to.
+     * @param bind Whether to bind (`true`) or connect (`false`) the socket to the specified address.
+     */
+    public void addRequestSocket(String socketName, String address, boolean bind) {
+        socketManager.initRequestSocket(socketName, address, bind);
+        bindMetrics(socketName);
+    }
+
+    /**
+     * Delivers every message sent on a network PUB socket to in-process subscribers of a {@code local://} endpoint as
+     * well. Subscribers added with {@code addSocket(name, "local://...", false, topic)} receive the sent objects; the
+     * socket skips serialization entirely while no network peer is connected (requires zmq.monitor.enabled).
+     *
+     * @param socketName The PUB socket.
+     * @param localAddress The local:// endpoint, e.g. {@code local://docker.status}.
+     */
+    public void addLocalEndpoint(String socketName, String localAddress) {
+        socketManager.addLocalEndpoint(socketName, localAddress);
+    }
+
+    private void bindMetrics(String socketName) {
+        if (!socketManager.isLocalSocket(socketName)) {
+            socketMetrics.bind(socketName, socketManager.getProcessor(socketName));
+        }
     }
 
     /**
@@ -144,8 +379,4 @@ public class ZMQWrapper {
                 "Invalid socket type: " + socketType);  // Throw error if the type is invalid
         };
     }
-
-//    private void enableMonitor(ZMQ.Socket s, String monAddr) {
-//        s.monitor(monAddr, ZMQ.EVENT_ALL);
-//    }
 }
@@ -1,15 +1,25 @@
 package com.frausto.web.docker;
+import com.frausto.model.docker.dto.DockerConfigRevisionSummary;
+import com.frausto.model.docker.dto.DockerServiceConfigPatchRequest;
 import com.frausto.model.docker.dto.DockerServiceConfigRequest;
+import com.frausto.model.docker.dto.DockerServiceConfigSummary;
 import com.frausto.model.docker.entity.DockerServiceConfig;
-import com.frausto.proto.service.DockerContainerStatus;
 import com.frausto.proto.service.DockerStatusEvent;
+import com.frausto.service.docker.DockerConfigRevisionService;
 import com.frausto.service.docker.DockerService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -22,9 +32,11 @@ import java.util.Map;
 public class DockerController {
 
     private final DockerService dockerService;
+    private final DockerConfigRevisionService revisionService;
 
-    public DockerController(DockerService dockerService) {
+    public DockerController(DockerService dockerService, DockerConfigRevisionService revisionService) {
         this.dockerService = dockerService;
+        this.revisionService = revisionService;
     }
 
     @GetMapping("/configs")
@@ -32,6 +44,15 @@ public class DockerController {
         return dockerService.getConfigs();
     }
 
+    @GetMapping("/configs/search")
+    public Page<DockerServiceConfigSummary> searchConfigs(@RequestParam(required = false) String q,
+                                                          @RequestParam(required = false) String image,
+                                                          @RequestParam(required = false) String restartPolicy,
+                                                          @RequestParam(defaultValue = "0") int page,
+                                                          @RequestParam(defaultValue = "20") int size) {
+        return dockerService.searchConfigs(q, image, restartPolicy, page, size);
+    }
+
     @GetMapping("/configs/{configId}")
     public ResponseEntity<DockerServiceConfig> getConfig(@PathVariable Long configId) {
         DockerServiceConfig config = dockerService.getConfig(configId);
@@ -44,6 +65,72 @@ public class DockerController {
         return ResponseEntity.ok(created);
     }
 
+    /**
+     * The version the client last read comes from the body or from an {@code If-Match} header; a PATCH without it
+     * could silently overwrite a concurrent edit, so it is rejected.
+     */
+    @PatchMapping("/configs/{configId}")
+    public ResponseEntity<DockerServiceConfig> updateConfig(@PathVariable Long configId,
+                                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                            @RequestBody DockerServiceConfigPatchRequest request) {
+        Long headerVersion = parseVersion(ifMatch);
+        if (ifMatch != null && headerVersion == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (request.getVersion() == null) {
+            request.setVersion(headerVersion);
+        } else if (headerVersion != null && !headerVersion.equals(request.getVersion())) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (request.getVersion() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            DockerServiceConfig updated = dockerService.updateConfig(configId, request);
+            return ResponseEntity.ok(updated);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /**
+     * Reads a version from an {@code If-Match} value such as {@code "3"} or {@code W/"3"}; null when absent or not a
+     * number.
+     */
+    private Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.valueOf(tag);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @GetMapping("/configs/{configId}/revisions")
+    public List<DockerConfigRevisionSummary> getRevisions(@PathVariable Long configId) {
+        return revisionService.listRevisions(configId);
+    }
+
+    @PostMapping("/configs/{configId}/revisions/{revision}/rollback")
+    public ResponseEntity<DockerServiceConfig> rollbackConfig(@PathVariable Long configId, @PathVariable Long revision) {
+        try {
+            DockerServiceConfig restored = dockerService.rollbackConfig(configId, revision);
+            return ResponseEntity.ok(restored);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
     @PostMapping("/configs/{configId}/start")
     public ResponseEntity<Map<String, String>> startContainer(@PathVariable Long configId) {
         String containerId = dockerService.startContainer(configId);
@@ -57,9 +144,15 @@ public class DockerController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Returns the statuses as JSON assembled from per-container cached fragments, so unchanged containers are not
+     * serialized again.
+     */
     @GetMapping("/status")
-    public List<DockerContainerStatus> getContainerStatuses() {
-        return dockerService.getContainerStatuses();
+    public ResponseEntity<byte[]> getContainerStatuses() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(dockerService.getContainerStatusesJson());
     }
 
     @PostMapping("/status/broadcast")
@@ -0,0 +1,76 @@
+package com.frausto.web.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.frausto.service.journal.JournalRecord;
+import com.frausto.service.journal.MessageJournal;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+@RestController
+@RequestMapping("/api/journal")
+public class JournalController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final byte NEWLINE = '\n';
+
+    private final MessageJournal journal;
+    private final ObjectMapper objectMapper;
+
+    public JournalController(MessageJournal journal, ObjectMapper objectMapper) {
+        this.journal = journal;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Streams journaled messages as newline-delimited JSON, one {@link JournalRecord} per line with the payload
+     * base64-encoded. Select records either by time ({@code from}, optional {@code to}, epoch ms) or by journal offset
+     * ({@code fromOffset}).
+     */
+    @GetMapping("/replay")
+    public ResponseEntity<StreamingResponseBody> replay(@RequestParam(required = false) Long from,
+                                                        @RequestParam(required = false) Long to,
+                                                        @RequestParam(required = false) Long fromOffset,
+                                                        @RequestParam(defaultValue = "") String topic,
+                                                        @RequestParam(defaultValue = "10000") long limit) {
+        if (!journal.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        if ((from == null) == (fromOffset == null) || limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        long toMs = to == null ? System.currentTimeMillis() : to;
+        StreamingResponseBody body = output -> {
+            try {
+                if (fromOffset != null) {
+                    journal.replayFrom(fromOffset, topic, limit, writer(output));
+                } else {
+                    journal.replay(from, toMs, topic, limit, writer(output));
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();  // usually the client went away; stops the replay
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private Consumer<JournalRecord> writer(OutputStream output) {
+        return record -> {
+            try {
+                output.write(objectMapper.writeValueAsBytes(record));
+                output.write(NEWLINE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+}
@@ -1,17 +1,20 @@
 package com.frausto.web.terminal;
 
 import com.frausto.service.terminal.TerminalSessionAuthorizer;
+import com.frausto.service.terminal.TerminalSessionRegistry;
 import com.frausto.model.terminal.dto.TerminalSessionRequest;
 import com.frausto.model.terminal.dto.TerminalSessionDescriptor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -19,9 +22,23 @@ import java.util.Optional;
 public class TerminalController {
 
     private final TerminalSessionAuthorizer authorizer;
+    private final TerminalSessionRegistry sessionRegistry;
 
-    public TerminalController(TerminalSessionAuthorizer authorizer) {
+    public TerminalController(TerminalSessionAuthorizer authorizer, TerminalSessionRegistry sessionRegistry) {
         this.authorizer = authorizer;
+        this.sessionRegistry = sessionRegistry;
+    }
+
+    /**
+     * Open terminal sessions, in total and per container, with the configured caps.
+     */
+    @GetMapping("/sessions")
+    public ResponseEntity<Map<String, Object>> getSessions() {
+        return ResponseEntity.ok(Map.of(
+                "active", sessionRegistry.getActiveSessions(),
+                "max", sessionRegistry.getMaxSessions(),
+                "maxPerContainer", sessionRegistry.getMaxPerContainer(),
+                "byContainer", sessionRegistry.getActiveSessionsByContainer()));
     }
 
     @PostMapping("/sessions")
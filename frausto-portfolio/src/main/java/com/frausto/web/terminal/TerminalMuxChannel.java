@@ -0,0 +1,213 @@
+package com.frausto.web.terminal;
+
+import com.frausto.service.terminal.DetachableTerminalSession;
+import com.frausto.service.terminal.DetachableTerminalSessions;
+import com.frausto.service.terminal.TerminalInputChannel;
+import com.frausto.service.terminal.TerminalOutputSink;
+import com.frausto.service.terminal.TerminalSessionHandle;
+import com.frausto.service.terminal.TerminalSessionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One terminal carried over a multiplexed WebSocket. Output is sent as DATA frames while the channel has credit;
+ * credit starts at the window size and is returned by the client's WINDOW_ACK frames, so a channel whose client
+ * stops reading stops receiving without holding up the other channels on the connection.
+ * <p>
+ * Input is credit-based the other way round: once the session runs, the channel grants the client the free space of
+ * the session's stdin ring in a WINDOW_ACK frame and returns credit as the container reads, so input the client is
+ * allowed to send always fits and is queued without waiting.
+ * <p>
+ * With detachable sessions the channel is only the session's current client: closing it ends the session, while
+ * losing the connection detaches it for a later reattach.
+ */
+class TerminalMuxChannel implements TerminalOutputSink {
+    private static final Logger log = LoggerFactory.getLogger(TerminalMuxChannel.class);
+
+    private final int id;
+    private final WebSocketSession connection;  // thread-safe decorator shared by all channels
+    private final TerminalSessionService terminalSessionService;
+    private final DetachableTerminalSessions detachableSessions;
+    private final Runnable onClosed;
+    private final AtomicLong credit;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile boolean ended;  // closed by close() rather than detach(): the session ends with the channel
+    private volatile TerminalSessionHandle handle;  // set once the OPEN reply is sent; no output before that
+    private volatile DetachableTerminalSession detachable;
+    private volatile long inputAcked = Long.MAX_VALUE;  // stdin read position already returned as credit
+    private volatile int inputAckBytes;
+
+    TerminalMuxChannel(int id, WebSocketSession connection, TerminalSessionService terminalSessionService,
+                       DetachableTerminalSessions detachableSessions, int window, Runnable onClosed) {
+        this.id = id;
+        this.connection = connection;
+        this.terminalSessionService = terminalSessionService;
+        this.detachableSessions = detachableSessions;
+        this.credit = new AtomicLong(window);
+        this.onClosed = onClosed;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    TerminalSessionHandle getHandle() {
+        return handle;
+    }
+
+    /** Carries the detachable session {@code session}; set before the channel becomes its client. */
+    void setDetachable(DetachableTerminalSession session) {
+        this.detachable = session;
+    }
+
+    /**
+     * Binds the exec after the OPEN reply went out and starts sending its output. If the channel was closed while
+     * the session was starting, the session is ended or detached as that close asked for.
+     */
+    void attach(TerminalSessionHandle handle) {
+        this.handle = handle;
+        if (closed.get()) {
+            if (ended) {
+                end();
+            } else {
+                release();
+            }
+            return;
+        }
+        grantInput(handle.getInput());
+        handle.getOutput().onWritable();
+    }
+
+    /**
+     * Makes this channel the listener of the session's stdin and grants the client the ring's free space. Bytes the
+     * container reads from then on are returned once a quarter of the ring has been read, in one WINDOW_ACK.
+     */
+    private void grantInput(TerminalInputChannel input) {
+        inputAckBytes = Math.max(1, input.capacity() / 4);
+        input.setReadListener(this::inputRead);  // ignores reads until inputAcked is set below
+        long read = input.readPosition();
+        inputAcked = read;
+        int free = input.capacity() - (int) (input.writePosition() - read);
+        if (free > 0) {
+            sendInputAck(free);
+        }
+    }
+
+    /** Runs on the stdin pump thread, the only writer of inputAcked once it is set. */
+    private void inputRead(long position) {
+        long bytes = position - inputAcked;
+        if (bytes >= inputAckBytes) {
+            inputAcked = position;
+            sendInputAck((int) bytes);
+        }
+    }
+
+    private void sendInputAck(int bytes) {
+        if (!isOpen()) {
+            return;
+        }
+        byte[] payload = ByteBuffer.allocate(4).putInt(bytes).array();
+        try {
+            connection.sendMessage(new BinaryMessage(
+                    TerminalMuxProtocol.frame(TerminalMuxProtocol.WINDOW_ACK, id, payload)));
+        } catch (IOException | RuntimeException e) {
+            log.debug("Unable to return input credit on terminal channel {}", id, e);
+        }
+    }
+
+    /**
+     * Whether input on this channel may reach the session: false once a detachable session was reattached elsewhere,
+     * so the session's stdin has a single writer.
+     */
+    boolean isClient() {
+        DetachableTerminalSession session = detachable;
+        return session == null || detachableSessions.isClient(session, this);
+    }
+
+    /** Returns {@code bytes} of credit after the client processed output. */
+    void grant(int bytes) {
+        credit.addAndGet(bytes);
+        TerminalSessionHandle current = handle;
+        if (current != null) {
+            current.getOutput().onWritable();
+        }
+    }
+
+    @Override
+    public int writableBytes() {
+        if (handle == null) {
+            return 0;
+        }
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, credit.get()));
+    }
+
+    @Override
+    public void send(byte[] chunk) throws IOException {
+        credit.addAndGet(-chunk.length);
+        connection.sendMessage(new BinaryMessage(TerminalMuxProtocol.frame(TerminalMuxProtocol.DATA, id, chunk)));
+    }
+
+    /** Ends the channel: tells the client with a CLOSE frame and stops the exec. */
+    @Override
+    public void close(CloseStatus status) {
+        ended = true;  // before closed, so an attach racing with this close sees it
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        onClosed.run();
+        if (connection.isOpen()) {
+            try {
+                connection.sendMessage(new BinaryMessage(TerminalMuxProtocol.closeFrame(id, status)));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Unable to send close for terminal channel {}", id, e);
+            }
+        }
+        end();
+    }
+
+    /** Lets go of the exec without a CLOSE frame, after the connection itself closed. */
+    void detach() {
+        if (closed.compareAndSet(false, true)) {
+            release();
+        }
+    }
+
+    private void end() {
+        DetachableTerminalSession session = detachable;
+        if (session != null) {
+            detachableSessions.close(session, this);
+        } else {
+            stopExec();
+        }
+    }
+
+    /** A detachable session outlives the channel for the grace period; a plain exec stops with it. */
+    private void release() {
+        DetachableTerminalSession session = detachable;
+        if (session != null) {
+            detachableSessions.detach(session, this);
+        } else {
+            stopExec();
+        }
+    }
+
+    private void stopExec() {
+        TerminalSessionHandle current = handle;
+        if (current != null) {
+            terminalSessionService.close(current);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed.get() && connection.isOpen();
+    }
+}
@@ -0,0 +1,42 @@
+package com.frausto.web.terminal;
+
+import org.springframework.web.socket.CloseStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Frames of the multiplexed terminal WebSocket: every binary message is [opcode (1 byte)][channel id (int32)][payload].
+ * <pre>
+ * OPEN       client: JSON {"containerId": "...", "cmd": "..."}   server: empty, the exec is running
+ * DATA       client: terminal input (consumes input credit)        server: terminal output (consumes credit)
+ * RESIZE     client: [cols (uint16)][rows (uint16)]
+ * CLOSE      client: empty                                         server: [close code (uint16)][UTF-8 reason]
+ * WINDOW_ACK client: [bytes (int32)] of DATA processed             server: [bytes (int32)] of input credit granted
+ * </pre>
+ */
+final class TerminalMuxProtocol {
+    static final byte OPEN = 1;
+    static final byte DATA = 2;
+    static final byte RESIZE = 3;
+    static final byte CLOSE = 4;
+    static final byte WINDOW_ACK = 5;
+
+    static final int HEADER_BYTES = 5;
+
+    private TerminalMuxProtocol() {
+    }
+
+    static ByteBuffer frame(byte opcode, int channelId, byte[] payload) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        frame.put(opcode).putInt(channelId).put(payload);
+        return frame.flip();
+    }
+
+    static ByteBuffer closeFrame(int channelId, CloseStatus status) {
+        byte[] reason = status.getReason() == null ? new byte[0] : status.getReason().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(2 + reason.length);
+        payload.putShort((short) status.getCode()).put(reason);
+        return frame(CLOSE, channelId, payload.array());
+    }
+}
@@ -0,0 +1,322 @@
+package com.frausto.web.terminal;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.frausto.service.terminal.DetachableTerminalSession;
+import com.frausto.service.terminal.DetachableTerminalSessions;
+import com.frausto.service.terminal.TerminalSessionAuthorizer;
+import com.frausto.service.terminal.TerminalSessionHandle;
+import com.frausto.service.terminal.TerminalSessionLimitException;
+import com.frausto.service.terminal.TerminalSessionService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many terminals over one WebSocket at {@code /ws/terminal/mux}. Each channel is an independent exec session
+ * opened with an OPEN frame and carried in DATA frames (see {@link TerminalMuxProtocol}); output per channel is
+ * credit-based, so one busy or unread terminal does not hold up the others. With detachable sessions enabled, an
+ * OPEN may carry a session token to reattach to a session whose connection was lost.
+ * <p>
+ * Frames of a connection are handled on one receive thread, so nothing here waits on a single channel: the Docker
+ * calls of an OPEN run on a small pool, and DATA is queued without waiting. Input is credit-based as well, so a
+ * client that honours its credit always finds room in the channel's stdin buffer; input beyond it is dropped, and
+ * the session keeps running.
+ */
+@Component
+public class TerminalMuxWebSocketHandler extends AbstractWebSocketHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(TerminalMuxWebSocketHandler.class);
+    private static final String CHANNELS_ATTR = "terminalMuxChannels";
+    private static final String CONNECTION_ATTR = "terminalMuxConnection";
+
+    private final TerminalSessionService terminalSessionService;
+    private final DetachableTerminalSessions detachableSessions;
+    private final TerminalSessionAuthorizer authorizer;
+    private final ObjectMapper objectMapper;
+    private final int window;
+    private final int maxChannels;
+    private final int sendTimeLimitMs;
+    private final int sendBufferBytes;
+    private final ThreadPoolExecutor openExecutor;
+
+    /**
+     * @param window Output credit per channel, in bytes, before the client has to acknowledge.
+     * @param maxChannels Channels open at once on one connection.
+     * @param sendTimeLimit Longest a send to the connection may block before the connection is closed.
+     * @param sendBufferBytes Frames queued for the connection while another send is in progress. Overflowing it
+     *                        closes the whole connection, so it must hold every channel's full window plus a
+     *                        scrollback replay.
+     * @param openThreads Threads starting channel sessions, off the connections' receive threads.
+     */
+    public TerminalMuxWebSocketHandler(TerminalSessionService terminalSessionService,
+                                       DetachableTerminalSessions detachableSessions,
+                                       TerminalSessionAuthorizer authorizer,
+                                       ObjectMapper objectMapper,
+                                       @Value("${terminal.mux.window:262144}") int window,
+                                       @Value("${terminal.mux.maxChannels:32}") int maxChannels,
+                                       @Value("${terminal.mux.sendTimeLimit:10s}") Duration sendTimeLimit,
+                                       @Value("${terminal.mux.sendBufferBytes:16777216}") int sendBufferBytes,
+                                       @Value("${terminal.mux.openThreads:4}") int openThreads) {
+        // Unacknowledged output per channel is at most its window, or one scrollback replay on reattach
+        long replayBytes = detachableSessions.isEnabled() ? detachableSessions.getScrollbackBytes() : 0;
+        long worstCase = (long) maxChannels * (window + replayBytes);
+        if (worstCase > sendBufferBytes) {
+            throw new IllegalArgumentException("terminal.mux.sendBufferBytes (" + sendBufferBytes + ") must hold "
+                    + "terminal.mux.maxChannels x (terminal.mux.window + terminal.detach.scrollbackBytes) = "
+                    + worstCase + " bytes");
+        }
+        this.terminalSessionService = terminalSessionService;
+        this.detachableSessions = detachableSessions;
+        this.authorizer = authorizer;
+        this.objectMapper = objectMapper;
+        this.window = window;
+        this.maxChannels = maxChannels;
+        this.sendTimeLimitMs = (int) sendTimeLimit.toMillis();
+        this.sendBufferBytes = sendBufferBytes;
+        AtomicInteger threadIds = new AtomicInteger();
+        this.openExecutor = new ThreadPoolExecutor(openThreads, openThreads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "TerminalMuxOpen-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.openExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        // Channels send from different threads; the decorator serializes sends on the shared connection
+        session.getAttributes().put(CONNECTION_ATTR,
+                new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, sendBufferBytes));
+        session.getAttributes().put(CHANNELS_ATTR, new ConcurrentHashMap<Integer, TerminalMuxChannel>());
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        ByteBuffer frame = message.getPayload();
+        if (frame.remaining() < TerminalMuxProtocol.HEADER_BYTES) {
+            session.close(CloseStatus.BAD_DATA.withReason("Frame shorter than its header"));
+            return;
+        }
+        byte opcode = frame.get();
+        int channelId = frame.getInt();
+        Map<Integer, TerminalMuxChannel> channels = channels(session);
+
+        switch (opcode) {
+            case TerminalMuxProtocol.OPEN: {
+                openChannel(session, channels, channelId, frame);
+                break;
+            }
+            case TerminalMuxProtocol.DATA: {
+                TerminalMuxChannel channel = channels.get(channelId);
+                TerminalSessionHandle handle = channel == null ? null : channel.getHandle();
+                if (handle == null) {
+                    log.debug("Dropping input for unknown terminal channel {}", channelId);
+                    break;
+                }
+                if (!channel.isClient()) {
+                    log.debug("Dropping input for terminal channel {}, its session is attached elsewhere", channelId);
+                    break;
+                }
+                byte[] payload = new byte[frame.remaining()];
+                frame.get(payload);
+                try {
+                    if (!terminalSessionService.offerInput(handle, payload)) {
+                        log.debug("Dropping {} bytes of input beyond the credit of terminal channel {}",
+                                payload.length, channelId);
+                    }
+                } catch (IOException e) {
+                    log.warn("Unable to forward input to terminal channel {}", channelId, e);
+                    channel.close(CloseStatus.SERVER_ERROR);
+                }
+                break;
+            }
+            case TerminalMuxProtocol.RESIZE: {
+                TerminalMuxChannel channel = channels.get(channelId);
+                TerminalSessionHandle handle = channel == null ? null : channel.getHandle();
+                if (handle != null && frame.remaining() >= 4) {
+                    int cols = Short.toUnsignedInt(frame.getShort());
+                    int rows = Short.toUnsignedInt(frame.getShort());
+                    if (cols > 0 && rows > 0) {
+                        terminalSessionService.resize(handle, cols, rows);
+                    }
+                }
+                break;
+            }
+            case TerminalMuxProtocol.CLOSE: {
+                TerminalMuxChannel channel = channels.get(channelId);
+                if (channel != null) {
+                    channel.close(CloseStatus.NORMAL);
+                }
+                break;
+            }
+            case TerminalMuxProtocol.WINDOW_ACK: {
+                TerminalMuxChannel channel = channels.get(channelId);
+                if (channel != null && frame.remaining() >= 4) {
+                    int bytes = frame.getInt();
+                    if (bytes > 0) {
+                        channel.grant(bytes);
+                    }
+                }
+                break;
+            }
+            default: {
+                session.close(CloseStatus.BAD_DATA.withReason("Unknown opcode " + opcode));
+            }
+        }
+    }
+
+    private void openChannel(WebSocketSession session, Map<Integer, TerminalMuxChannel> channels, int channelId,
+                             ByteBuffer payload) throws IOException {
+        WebSocketSession connection = (WebSocketSession) session.getAttributes().get(CONNECTION_ATTR);
+        if (channels.containsKey(channelId)) {
+            reject(connection, channelId, CloseStatus.PROTOCOL_ERROR.withReason("Channel already open"));
+            return;
+        }
+        if (channels.size() >= maxChannels) {
+            reject(connection, channelId, CloseStatus.SERVICE_OVERLOAD.withReason(
+                    "Channel limit of " + maxChannels + " reached for this connection"));
+            return;
+        }
+
+        JsonNode request;
+        try {
+            byte[] json = new byte[payload.remaining()];
+            payload.get(json);
+            request = objectMapper.readTree(json);
+        } catch (IOException e) {
+            reject(connection, channelId, CloseStatus.BAD_DATA.withReason("OPEN payload is not JSON"));
+            return;
+        }
+        String sessionToken = request.path("sessionToken").asText(null);
+        DetachableTerminalSession existing = null;
+        if (StringUtils.hasText(sessionToken) && detachableSessions.isEnabled()) {
+            try {
+                existing = detachableSessions.find(sessionToken);
+            } catch (IllegalArgumentException e) {
+                reject(connection, channelId, CloseStatus.POLICY_VIOLATION.withReason(e.getMessage()));
+                return;
+            }
+        }
+        String containerId = existing != null ? existing.getContainerId() : request.path("containerId").asText(null);
+        if (!StringUtils.hasText(containerId)) {
+            reject(connection, channelId, CloseStatus.BAD_DATA.withReason("containerId is required"));
+            return;
+        }
+        if (!authorizer.isAuthorized(session, containerId)) {
+            reject(connection, channelId, CloseStatus.POLICY_VIOLATION.withReason("Unauthorized"));
+            return;
+        }
+
+        // Registered now so the channel counts against maxChannels and a CLOSE can reach it while it starts
+        TerminalMuxChannel channel = new TerminalMuxChannel(channelId, connection, terminalSessionService,
+                detachableSessions, window, () -> channels.remove(channelId));
+        channels.put(channelId, channel);
+        List<String> command = parseCommand(request.path("cmd").asText(null));
+        DetachableTerminalSession reattach = existing;
+        openExecutor.execute(() -> startChannel(connection, channel, containerId, command, reattach));
+    }
+
+    /**
+     * Starts or reattaches the channel's session and sends the OPEN reply; runs on the open pool because exec
+     * create and start are blocking Docker calls.
+     */
+    private void startChannel(WebSocketSession connection, TerminalMuxChannel channel, String containerId,
+                              List<String> command, DetachableTerminalSession existing) {
+        int channelId = channel.getId();
+        if (!channel.isOpen()) {
+            return;  // closed by the client, or the connection dropped, while queued
+        }
+        try {
+            if (!detachableSessions.isEnabled()) {
+                TerminalSessionHandle handle = terminalSessionService.openSession(containerId, command, channel);
+                try {
+                    connection.sendMessage(new BinaryMessage(
+                            TerminalMuxProtocol.frame(TerminalMuxProtocol.OPEN, channelId, new byte[0])));
+                } catch (IOException | RuntimeException e) {
+                    terminalSessionService.close(handle);  // the channel never saw it, so it would not stop it
+                    throw e;
+                }
+                channel.attach(handle);
+                return;
+            }
+
+            // The OPEN reply carries the token; the scrollback replay follows as DATA
+            DetachableTerminalSession detachable = existing != null
+                    ? existing : detachableSessions.open(containerId, command);
+            channel.setDetachable(detachable);
+            connection.sendMessage(new BinaryMessage(TerminalMuxProtocol.frame(TerminalMuxProtocol.OPEN, channelId,
+                    detachable.getToken().getBytes(StandardCharsets.UTF_8))));
+            detachableSessions.attach(detachable, channel);
+            channel.attach(detachable.getHandle());
+        } catch (IllegalArgumentException e) {
+            channel.close(CloseStatus.POLICY_VIOLATION.withReason(e.getMessage()));
+        } catch (TerminalSessionLimitException e) {
+            log.info("Rejected terminal channel {} for container {}: {}", channelId, containerId, e.getMessage());
+            channel.close(CloseStatus.SERVICE_OVERLOAD.withReason(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Unable to start terminal channel {} for container {}", channelId, containerId, e);
+            channel.close(CloseStatus.SERVER_ERROR);
+        }
+    }
+
+    private void reject(WebSocketSession connection, int channelId, CloseStatus status) throws IOException {
+        connection.sendMessage(new BinaryMessage(TerminalMuxProtocol.closeFrame(channelId, status)));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        session.close(CloseStatus.NOT_ACCEPTABLE.withReason("Binary frames only"));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Map<Integer, TerminalMuxChannel> channels = channels(session);
+        if (channels != null) {
+            for (TerminalMuxChannel channel : new ArrayList<>(channels.values())) {
+                channel.detach();
+            }
+            channels.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        openExecutor.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Integer, TerminalMuxChannel> channels(WebSocketSession session) {
+        return (Map<Integer, TerminalMuxChannel>) session.getAttributes().get(CHANNELS_ATTR);
+    }
+
+    private List<String> parseCommand(String cmd) {
+        if (!StringUtils.hasText(cmd)) {
+            return new ArrayList<>();
+        }
+        return List.of(cmd.split(" +"));
+    }
+}
@@ -1,8 +1,12 @@
 package com.frausto.web.terminal;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.frausto.service.terminal.DetachableTerminalSession;
+import com.frausto.service.terminal.DetachableTerminalSessions;
+import com.frausto.service.terminal.TerminalOutputSink;
 import com.frausto.service.terminal.TerminalSessionAuthorizer;
 import com.frausto.service.terminal.TerminalSessionHandle;
+import com.frausto.service.terminal.TerminalSessionLimitException;
 import com.frausto.service.terminal.TerminalSessionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,21 +22,27 @@ import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Component
 public class TerminalWebSocketHandler extends AbstractWebSocketHandler {
 
     private static final Logger log = LoggerFactory.getLogger(TerminalWebSocketHandler.class);
     private static final String SESSION_HANDLE_ATTR = "terminalSessionHandle";
+    private static final String DETACHABLE_ATTR = "terminalDetachableSession";
+    private static final String CLIENT_ATTR = "terminalClient";
 
     private final TerminalSessionService terminalSessionService;
+    private final DetachableTerminalSessions detachableSessions;
     private final TerminalSessionAuthorizer authorizer;
     private final ObjectMapper objectMapper;
 
     public TerminalWebSocketHandler(TerminalSessionService terminalSessionService,
+                                    DetachableTerminalSessions detachableSessions,
                                     TerminalSessionAuthorizer authorizer,
                                     ObjectMapper objectMapper) {
         this.terminalSessionService = terminalSessionService;
+        this.detachableSessions = detachableSessions;
         this.authorizer = authorizer;
         this.objectMapper = objectMapper;
     }
@@ -40,6 +50,11 @@ public class TerminalWebSocketHandler extends AbstractWebSocketHandler {
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         MultiValueMap<String, String> params = getQueryParams(session.getUri());
+        String sessionToken = params.getFirst("sessionToken");
+        if (StringUtils.hasText(sessionToken) && detachableSessions.isEnabled()) {
+            reattach(session, sessionToken);
+            return;
+        }
         String containerId = params.getFirst("containerId");
 
         if (!StringUtils.hasText(containerId)) {
@@ -55,14 +70,55 @@ public class TerminalWebSocketHandler extends AbstractWebSocketHandler {
         List<String> command = parseCommand(params.getFirst("cmd"));
 
         try {
-            TerminalSessionHandle handle = terminalSessionService.openSession(containerId, command, session);
-            session.getAttributes().put(SESSION_HANDLE_ATTR, handle);
+            if (detachableSessions.isEnabled()) {
+                attach(session, detachableSessions.open(containerId, command));
+            } else {
+                TerminalSessionHandle handle = terminalSessionService.openSession(containerId, command, session);
+                session.getAttributes().put(SESSION_HANDLE_ATTR, handle);
+            }
+        } catch (TerminalSessionLimitException e) {
+            log.info("Rejected terminal session for container {}: {}", containerId, e.getMessage());
+            session.close(CloseStatus.SERVICE_OVERLOAD.withReason(e.getMessage()));
         } catch (Exception e) {
             log.error("Unable to start terminal session for container {}", containerId, e);
             session.close(CloseStatus.SERVER_ERROR);
         }
     }
 
+    private void reattach(WebSocketSession session, String sessionToken) throws IOException {
+        DetachableTerminalSession detachable;
+        try {
+            detachable = detachableSessions.find(sessionToken);
+        } catch (IllegalArgumentException e) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason(e.getMessage()));
+            return;
+        }
+        if (!authorizer.isAuthorized(session, detachable.getContainerId())) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Unauthorized"));
+            return;
+        }
+        try {
+            attach(session, detachable);
+        } catch (IllegalArgumentException e) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason(e.getMessage()));
+        }
+    }
+
+    /**
+     * Tells the client the session token, then makes the connection the session's client; the scrollback follows
+     * as binary output.
+     */
+    private void attach(WebSocketSession session, DetachableTerminalSession detachable) throws IOException {
+        TerminalOutputSink client = terminalSessionService.outputSink(session);
+        Map<String, Object> attributes = session.getAttributes();
+        attributes.put(SESSION_HANDLE_ATTR, detachable.getHandle());
+        attributes.put(DETACHABLE_ATTR, detachable);
+        attributes.put(CLIENT_ATTR, client);
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(
+                Map.of("type", "session", "sessionToken", detachable.getToken()))));
+        detachableSessions.attach(detachable, client);
+    }
+
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
         TerminalSessionHandle handle = (TerminalSessionHandle) session.getAttributes().get(SESSION_HANDLE_ATTR);
@@ -70,6 +126,9 @@ public class TerminalWebSocketHandler extends AbstractWebSocketHandler {
             session.close(CloseStatus.SERVER_ERROR.withReason("No terminal session"));
             return;
         }
+        if (!isCurrentClient(session)) {
+            return;
+        }
 
         if (tryHandleResize(handle, message.getPayload())) {
             return;
@@ -86,15 +145,47 @@ public class TerminalWebSocketHandler extends AbstractWebSocketHandler {
             return;
         }
 
+        if (!isCurrentClient(session)) {
+            return;
+        }
+
         byte[] payload = new byte[message.getPayload().remaining()];
         message.getPayload().get(payload);
         terminalSessionService.forwardInput(handle, payload);
     }
 
+    /**
+     * False once a detachable session was reattached on another connection; input still arriving on this one is
+     * dropped, so the session's stdin has a single writer.
+     */
+    private boolean isCurrentClient(WebSocketSession session) {
+        DetachableTerminalSession detachable = (DetachableTerminalSession) session.getAttributes().get(DETACHABLE_ATTR);
+        if (detachable == null) {
+            return true;
+        }
+        TerminalOutputSink client = (TerminalOutputSink) session.getAttributes().get(CLIENT_ATTR);
+        if (detachableSessions.isClient(detachable, client)) {
+            return true;
+        }
+        log.debug("Dropping input for terminal session attached elsewhere, connection {}", session.getId());
+        return false;
+    }
+
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        TerminalSessionHandle handle = (TerminalSessionHandle) session.getAttributes().get(SESSION_HANDLE_ATTR);
-        terminalSessionService.close(handle);
+        DetachableTerminalSession detachable = (DetachableTerminalSession) session.getAttributes().get(DETACHABLE_ATTR);
+        if (detachable == null) {
+            TerminalSessionHandle handle = (TerminalSessionHandle) session.getAttributes().get(SESSION_HANDLE_ATTR);
+            terminalSessionService.close(handle);
+            return;
+        }
+        // A normal close means the user ended the terminal; anything else may be a dropped connection
+        TerminalOutputSink client = (TerminalOutputSink) session.getAttributes().get(CLIENT_ATTR);
+        if (status.getCode() == CloseStatus.NORMAL.getCode()) {
+            detachableSessions.close(detachable, client);
+        } else {
+            detachableSessions.detach(detachable, client);
+        }
     }
 
     private MultiValueMap<String, String> getQueryParams(URI uri) {
@@ -0,0 +1,136 @@
+package com.frausto.repository;
+
+import com.frausto.model.docker.entity.DockerServiceConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Startup time and CRUD latency of the embedded H2 profile against PostgreSQL, through the same
+ * {@link DockerRepository}. Only the persistence layer is started, so Docker and ZeroMQ are not needed.
+ * <p>
+ * Opt-in: {@code mvn test -Dtest=PersistenceProfileBenchmark -Dbenchmark=true}. The PostgreSQL run is added when
+ * {@code -Dbenchmark.postgres.url=jdbc:postgresql://...} is given (user/password from {@code application.yml}
+ * unless {@code benchmark.postgres.username}/{@code benchmark.postgres.password} are set).
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PersistenceProfileBenchmark {
+    private static final int STARTUPS = 5;
+    private static final int OPERATIONS = 1_000;
+
+    @TempDir
+    Path storeDir;
+
+    @Test
+    void compareProfiles() {
+        List<String> report = new ArrayList<>();
+        report.add(run("embedded (H2 file)", "--spring.profiles.active=embedded",
+                "--docker.store.path=" + storeDir.resolve("portfolio")));
+
+        String postgresUrl = System.getProperty("benchmark.postgres.url");
+        if (postgresUrl != null) {
+            String username = System.getProperty("benchmark.postgres.username", "portfolio_user");
+            String password = System.getProperty("benchmark.postgres.password", "portfolio_pass");
+            report.add(run("postgres", "--spring.datasource.url=" + postgresUrl,
+                    "--spring.datasource.username=" + username, "--spring.datasource.password=" + password));
+        }
+        report.forEach(System.out::println);
+    }
+
+    private String run(String label, String... args) {
+        start(args).close();  // warm-up: class loading and JIT are shared by every later start
+
+        long[] startupNanos = new long[STARTUPS];
+        for (int i = 0; i < STARTUPS; i++) {
+            long begin = System.nanoTime();
+            ConfigurableApplicationContext context = start(args);
+            startupNanos[i] = System.nanoTime() - begin;
+            context.close();
+        }
+
+        try (ConfigurableApplicationContext context = start(args)) {
+            DockerRepository repository = context.getBean(DockerRepository.class);
+            crud(repository, OPERATIONS / 10);  // warm-up
+            long[][] crud = crud(repository, OPERATIONS);
+            return String.format("%-20s startup median %s | create %s | read %s | update %s | delete %s", label,
+                    millis(median(startupNanos)), summary(crud[0]), summary(crud[1]), summary(crud[2]),
+                    summary(crud[3]));
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String... args) {
+        return new SpringApplicationBuilder(PersistenceOnly.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(args);
+    }
+
+    /** Per-operation latencies in nanoseconds: create, read, update, delete. */
+    private static long[][] crud(DockerRepository repository, int count) {
+        long[][] nanos = new long[4][count];
+        Long[] ids = new Long[count];
+        for (int i = 0; i < count; i++) {
+            DockerServiceConfig config = new DockerServiceConfig();
+            config.setName("bench-" + i);
+            config.setContainerName("bench-" + i);
+            config.setImage("nginx:latest");
+            config.setRestartPolicy("no");
+            long begin = System.nanoTime();
+            ids[i] = repository.save(config).getId();
+            nanos[0][i] = System.nanoTime() - begin;
+        }
+        for (int i = 0; i < count; i++) {
+            long begin = System.nanoTime();
+            repository.findById(ids[i]).orElseThrow();
+            nanos[1][i] = System.nanoTime() - begin;
+        }
+        for (int i = 0; i < count; i++) {
+            DockerServiceConfig config = repository.findById(ids[i]).orElseThrow();
+            config.setDescription("updated " + i);
+            long begin = System.nanoTime();
+            repository.save(config);
+            nanos[2][i] = System.nanoTime() - begin;
+        }
+        for (int i = 0; i < count; i++) {
+            long begin = System.nanoTime();
+            repository.deleteById(ids[i]);
+            nanos[3][i] = System.nanoTime() - begin;
+        }
+        return nanos;
+    }
+
+    private static String summary(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return "p50 " + millis(sorted[sorted.length / 2]) + " p99 " + millis(sorted[sorted.length * 99 / 100]);
+    }
+
+    private static long median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f ms", nanos / 1_000_000.0);
+    }
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = DockerServiceConfig.class)
+    @EnableJpaRepositories(basePackageClasses = DockerRepository.class)
+    static class PersistenceOnly {
+    }
+}
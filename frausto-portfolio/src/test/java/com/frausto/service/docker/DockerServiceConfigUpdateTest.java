@@ -0,0 +1,185 @@
+package com.frausto.service.docker;
+
+import com.frausto.model.docker.dto.DockerConfigRevisionSummary;
+import com.frausto.model.docker.dto.DockerEnvVarRequest;
+import com.frausto.model.docker.dto.DockerServiceConfigPatchRequest;
+import com.frausto.model.docker.dto.DockerServiceConfigRequest;
+import com.frausto.model.docker.entity.DockerConfigRevision;
+import com.frausto.model.docker.entity.DockerServiceConfig;
+import com.frausto.repository.DockerConfigRevisionRepository;
+import com.frausto.service.util.InstanceTracker;
+import com.github.dockerjava.api.DockerClient;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({DockerService.class, DockerConfigRevisionService.class, DockerStatusEncodingCache.class, InstanceTracker.class})
+class DockerServiceConfigUpdateTest {
+
+    @MockBean
+    private DockerClient dockerClient;
+
+    @MockBean
+    private DockerStatusPublisher statusPublisher;
+
+    @Autowired
+    private DockerService dockerService;
+
+    @Autowired
+    private DockerConfigRevisionService revisionService;
+
+    @Autowired
+    private DockerConfigRevisionRepository revisionRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void envVarValueOnlyPatchesBumpVersionAndAppendRevisions() {
+        DockerServiceConfig config = dockerService.createConfig(request("APP_ENV", "dev"));
+        assertThat(config.getVersion()).isZero();
+
+        DockerServiceConfig first = dockerService.updateConfig(config.getId(), envPatch(config, "staging"));
+        entityManager.flush();
+        assertThat(first.getVersion()).isEqualTo(1L);
+
+        DockerServiceConfig second = dockerService.updateConfig(config.getId(), envPatch(first, "prod"));
+        entityManager.flush();
+        assertThat(second.getVersion()).isEqualTo(2L);
+        assertThat(second.getEnvVars()).singleElement()
+                .satisfies(envVar -> assertThat(envVar.getValue()).isEqualTo("prod"));
+
+        List<DockerConfigRevisionSummary> revisions = revisionService.listRevisions(config.getId());
+        assertThat(revisions).extracting(DockerConfigRevisionSummary::revision).containsExactly(2L, 1L, 0L);
+        assertThat(revisions.get(0).changedFields()).containsExactly("envVars");
+    }
+
+    @Test
+    void unchangedPatchKeepsVersion() {
+        DockerServiceConfig config = dockerService.createConfig(request("APP_ENV", "dev"));
+
+        DockerServiceConfig patched = dockerService.updateConfig(config.getId(), envPatch(config, "dev"));
+        entityManager.flush();
+
+        assertThat(patched.getVersion()).isZero();
+        assertThat(revisionService.listRevisions(config.getId())).hasSize(1);
+    }
+
+    @Test
+    void patchWithStaleVersionIsRejected() {
+        DockerServiceConfig config = dockerService.createConfig(request("APP_ENV", "dev"));
+        DockerServiceConfigPatchRequest first = envPatch(config, "staging");
+        DockerServiceConfigPatchRequest concurrent = envPatch(config, "prod");  // read the same version
+
+        dockerService.updateConfig(config.getId(), first);
+        entityManager.flush();
+
+        assertThatThrownBy(() -> dockerService.updateConfig(config.getId(), concurrent))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        entityManager.clear();
+        DockerServiceConfig stored = dockerService.getConfig(config.getId());
+        assertThat(stored.getVersion()).isEqualTo(1L);
+        assertThat(stored.getEnvVars()).singleElement()
+                .satisfies(envVar -> assertThat(envVar.getValue()).isEqualTo("staging"));
+        assertThat(revisionService.listRevisions(config.getId())).hasSize(2);
+    }
+
+    @Test
+    void rollbackOfEnvVarValueBumpsVersion() {
+        DockerServiceConfig config = dockerService.createConfig(request("APP_ENV", "dev"));
+        DockerServiceConfig patched = dockerService.updateConfig(config.getId(), envPatch(config, "staging"));
+        entityManager.flush();
+
+        DockerServiceConfig restored = dockerService.rollbackConfig(config.getId(), 0L);
+        entityManager.flush();
+
+        assertThat(restored.getVersion()).isEqualTo(patched.getVersion() + 1);
+        assertThat(restored.getEnvVars()).singleElement()
+                .satisfies(envVar -> assertThat(envVar.getValue()).isEqualTo("dev"));
+        assertThat(revisionService.listRevisions(config.getId())).hasSize(3);
+    }
+
+    @Test
+    void secretValuesAreNotStoredInRevisions() {
+        DockerServiceConfigRequest create = request("APP_ENV", "dev");
+        create.setEnvVars(List.of(envVar("APP_ENV", "dev"), secret("DB_PASSWORD", "hunter2")));
+        DockerServiceConfig config = dockerService.createConfig(create);
+
+        DockerServiceConfigPatchRequest patch = new DockerServiceConfigPatchRequest();
+        patch.setVersion(config.getVersion());
+        patch.setEnvVars(List.of(envVar("APP_ENV", "dev"), secret("DB_PASSWORD", "correct-horse")));
+        DockerServiceConfig patched = dockerService.updateConfig(config.getId(), patch);
+        entityManager.flush();
+
+        assertThat(patched.getVersion()).isEqualTo(1L);  // the secret change is still detected
+        List<DockerConfigRevision> revisions = revisionRepository.findByConfigIdOrderByRevisionDesc(config.getId());
+        assertThat(revisions).hasSize(2);
+        for (DockerConfigRevision revision : revisions) {
+            assertThat(revision.getPayload())
+                    .doesNotContain("hunter2")
+                    .doesNotContain("correct-horse")
+                    .contains(DockerConfigRevisionService.REDACTED_PREFIX);
+        }
+    }
+
+    @Test
+    void rollbackKeepsCurrentSecretValue() {
+        DockerServiceConfigRequest create = request("APP_ENV", "dev");
+        create.setEnvVars(List.of(envVar("APP_ENV", "dev"), secret("DB_PASSWORD", "hunter2")));
+        DockerServiceConfig config = dockerService.createConfig(create);
+
+        DockerServiceConfigPatchRequest patch = new DockerServiceConfigPatchRequest();
+        patch.setVersion(config.getVersion());
+        patch.setEnvVars(List.of(envVar("APP_ENV", "prod"), secret("DB_PASSWORD", "correct-horse")));
+        dockerService.updateConfig(config.getId(), patch);
+        entityManager.flush();
+
+        DockerServiceConfig restored = dockerService.rollbackConfig(config.getId(), 0L);
+        entityManager.flush();
+
+        assertThat(restored.getEnvVars()).extracting(e -> e.getName() + "=" + e.getValue())
+                .containsExactlyInAnyOrder("APP_ENV=dev", "DB_PASSWORD=correct-horse");
+    }
+
+    private DockerEnvVarRequest secret(String name, String value) {
+        DockerEnvVarRequest envVar = envVar(name, value);
+        envVar.setSecret(true);
+        return envVar;
+    }
+
+    private DockerServiceConfigRequest request(String envName, String envValue) {
+        DockerServiceConfigRequest request = new DockerServiceConfigRequest();
+        request.setName("nginx");
+        request.setImage("nginx:latest");
+        request.setRestartPolicy("always");
+        request.setEnvVars(List.of(envVar(envName, envValue)));
+        return request;
+    }
+
+    private DockerServiceConfigPatchRequest envPatch(DockerServiceConfig current, String envValue) {
+        DockerServiceConfigPatchRequest patch = new DockerServiceConfigPatchRequest();
+        patch.setVersion(current.getVersion());
+        patch.setEnvVars(List.of(envVar("APP_ENV", envValue)));
+        return patch;
+    }
+
+    private DockerEnvVarRequest envVar(String name, String value) {
+        DockerEnvVarRequest envVar = new DockerEnvVarRequest();
+        envVar.setName(name);
+        envVar.setValue(value);
+        return envVar;
+    }
+}
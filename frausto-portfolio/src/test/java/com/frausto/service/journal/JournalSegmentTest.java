@@ -0,0 +1,170 @@
+package com.frausto.service.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JournalSegmentTest {
+    private static final int INDEX_ENTRY_BYTES = 8 + 8 + 4;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsByOffsetWithTopicFilterAndLimit() throws IOException {
+        JournalSegment segment = JournalSegment.create(directory, 1, 64 * 1024, 64);
+        append(segment, 1, 1000, "docker.status", "a");
+        append(segment, 2, 2000, "docker.command", "b");
+        append(segment, 3, 3000, "docker.status", "c");
+        append(segment, 4, 4000, "docker.status", "d");
+
+        assertThat(offsets(segment, 2, "", 10)).containsExactly(2L, 3L, 4L);
+        assertThat(offsets(segment, 1, "docker.status", 10)).containsExactly(1L, 3L, 4L);
+        assertThat(offsets(segment, 1, "docker.status", 2)).containsExactly(1L, 3L);
+        assertThat(offsets(segment, 5, "", 10)).isEmpty();
+        assertThat(segment.getNextOffset()).isEqualTo(5L);
+    }
+
+    @Test
+    void readsByTimeRange() throws IOException {
+        JournalSegment segment = JournalSegment.create(directory, 1, 64 * 1024, 64);
+        for (int i = 1; i <= 10; i++) {
+            append(segment, i, i * 100L, "t", "payload-" + i);
+        }
+
+        List<JournalRecord> records = new ArrayList<>();
+        assertThat(segment.readByTime(350, 700, null, Long.MAX_VALUE, records::add)).isEqualTo(4L);
+        assertThat(records.stream().map(JournalRecord::offset).toList()).containsExactly(4L, 5L, 6L, 7L);
+        assertThat(new String(records.get(0).payload(), StandardCharsets.UTF_8)).isEqualTo("payload-4");
+        assertThat(records.get(0).topic()).isEqualTo("t");
+        assertThat(records.get(0).sequence()).isEqualTo(40L);
+
+        assertThat(segment.readByTime(2000, 3000, null, Long.MAX_VALUE, r -> { })).isZero();
+        assertThat(segment.getFirstTimestamp()).isEqualTo(100L);
+        assertThat(segment.getLastTimestamp()).isEqualTo(1000L);
+    }
+
+    @Test
+    void resumesTimeRangeFromOffset() throws IOException {
+        JournalSegment segment = JournalSegment.create(directory, 1, 64 * 1024, 64);
+        for (int i = 1; i <= 10; i++) {
+            append(segment, i, i * 100L, "t", "payload-" + i);
+        }
+
+        List<Long> offsets = new ArrayList<>();
+        assertThat(segment.readByOffset(6, 800, "", Long.MAX_VALUE, record -> offsets.add(record.offset())))
+                .isEqualTo(3L);
+        assertThat(offsets).containsExactly(6L, 7L, 8L);
+    }
+
+    @Test
+    void reopenKeepsRecordsAndAppendsAfterThem() throws IOException {
+        JournalSegment segment = JournalSegment.create(directory, 10, 64 * 1024, 64);
+        append(segment, 10, 100, "t", "a");
+        append(segment, 11, 200, "t", "b");
+        segment.force();
+
+        JournalSegment reopened = JournalSegment.open(logPath(10));
+        assertThat(reopened.getNextOffset()).isEqualTo(12L);
+        assertThat(append(reopened, 12, 300, "t", "c")).isTrue();
+        assertThat(offsets(reopened, 10, "", 10)).containsExactly(10L, 11L, 12L);
+        assertThat(payloads(reopened)).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    void recoversUnindexedRecordsAndIgnoresPartialRecord() throws IOException {
+        JournalSegment segment = JournalSegment.create(directory, 1, 64 * 1024, 64);
+        append(segment, 1, 100, "t", "first");
+        append(segment, 2, 200, "t", "second");
+        append(segment, 3, 300, "t", "third");
+        segment.force();
+
+        // Crash after the records but before their index entries, with a fourth record half written: its header is
+        // there but its length (written last) is not
+        int end = recordBytes("t", "first") + recordBytes("t", "second") + recordBytes("t", "third");
+        Path indexPath = directory.resolve(JournalSegment.fileName(1, JournalSegment.INDEX_SUFFIX));
+        try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.WRITE)) {
+            index.write(ByteBuffer.allocate(2 * INDEX_ENTRY_BYTES), INDEX_ENTRY_BYTES);
+        }
+        try (FileChannel log = FileChannel.open(logPath(1), StandardOpenOption.WRITE)) {
+            log.write(ByteBuffer.allocate(20).putInt(0).putLong(4).putLong(400).flip(), end);
+        }
+
+        JournalSegment recovered = JournalSegment.open(logPath(1));
+        assertThat(recovered.getNextOffset()).isEqualTo(4L);
+        assertThat(payloads(recovered)).containsExactly("first", "second", "third");
+        assertThat(recovered.getLastTimestamp()).isEqualTo(300L);
+        List<JournalRecord> byTime = new ArrayList<>();
+        recovered.readByTime(250, Long.MAX_VALUE, null, Long.MAX_VALUE, byTime::add);
+        assertThat(byTime.stream().map(JournalRecord::offset).toList()).containsExactly(3L);
+
+        // The partial record is overwritten by the next append
+        assertThat(append(recovered, 4, 400, "t", "fourth")).isTrue();
+        assertThat(payloads(JournalSegment.open(logPath(1)))).containsExactly("first", "second", "third", "fourth");
+    }
+
+    @Test
+    void recoveryStopsAtRecordWithUnexpectedOffset() throws IOException {
+        JournalSegment segment = JournalSegment.create(directory, 1, 64 * 1024, 64);
+        append(segment, 1, 100, "t", "first");
+        append(segment, 2, 200, "t", "second");
+        segment.force();
+
+        // Leftover bytes from an older record: complete length, but not the offset that follows
+        int end = recordBytes("t", "first") + recordBytes("t", "second");
+        try (FileChannel log = FileChannel.open(logPath(1), StandardOpenOption.WRITE)) {
+            log.write(ByteBuffer.allocate(12).putInt(40).putLong(99).flip(), end);
+        }
+
+        assertThat(JournalSegment.open(logPath(1)).getNextOffset()).isEqualTo(3L);
+    }
+
+    @Test
+    void appendFailsWhenLogOrIndexIsFull() throws IOException {
+        JournalSegment byIndex = JournalSegment.create(directory, 1, 64 * 1024, 2);
+        assertThat(append(byIndex, 1, 100, "t", "a")).isTrue();
+        assertThat(append(byIndex, 2, 200, "t", "b")).isTrue();
+        assertThat(append(byIndex, 3, 300, "t", "c")).isFalse();
+
+        JournalSegment byLog = JournalSegment.create(directory, 100, recordBytes("t", "a") + 4, 64);
+        assertThat(append(byLog, 100, 100, "t", "a")).isTrue();
+        assertThat(append(byLog, 101, 200, "t", "b")).isFalse();
+        assertThat(byLog.getNextOffset()).isEqualTo(101L);
+    }
+
+    private boolean append(JournalSegment segment, long offset, long timestamp, String topic, String payload) {
+        return segment.append(offset, timestamp, topic.getBytes(StandardCharsets.UTF_8), offset * 10,
+                payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int recordBytes(String topic, String payload) {
+        return JournalSegment.RECORD_HEADER_BYTES + topic.length() + payload.length();
+    }
+
+    private Path logPath(long baseOffset) {
+        return directory.resolve(JournalSegment.fileName(baseOffset, JournalSegment.LOG_SUFFIX));
+    }
+
+    private List<Long> offsets(JournalSegment segment, long fromOffset, String topicPrefix, long limit) {
+        List<Long> offsets = new ArrayList<>();
+        segment.readByOffset(fromOffset, topicPrefix, limit, record -> offsets.add(record.offset()));
+        return offsets;
+    }
+
+    private List<String> payloads(JournalSegment segment) {
+        List<String> payloads = new ArrayList<>();
+        segment.readByOffset(0, "", Long.MAX_VALUE,
+                record -> payloads.add(new String(record.payload(), StandardCharsets.UTF_8)));
+        return payloads;
+    }
+}
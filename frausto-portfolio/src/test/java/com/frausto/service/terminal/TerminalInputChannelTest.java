@@ -0,0 +1,298 @@
+package com.frausto.service.terminal;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TerminalInputChannelTest {
+
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() throws IOException {
+        TerminalInputChannel channel = new TerminalInputChannel(5, Duration.ZERO);
+        channel.write(new byte[8]);
+
+        assertThat(channel.available()).isEqualTo(8);
+        assertThatThrownBy(() -> channel.write(new byte[1])).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> new TerminalInputChannel(1, Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void readReturnsWhatIsQueuedWithoutWaitingForMore() throws IOException {
+        TerminalInputChannel channel = new TerminalInputChannel(16, Duration.ZERO);
+        channel.write(bytes("ls\n"));
+
+        byte[] target = new byte[16];
+        assertThat(channel.read(target, 0, target.length)).isEqualTo(3);
+        assertThat(new String(target, 0, 3, StandardCharsets.US_ASCII)).isEqualTo("ls\n");
+        assertThat(channel.available()).isZero();
+        assertThat(channel.read(target, 0, 0)).isZero();
+    }
+
+    @Test
+    void keepsOrderAcrossWraparound() throws IOException {
+        TerminalInputChannel channel = new TerminalInputChannel(8, Duration.ZERO);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] target = new byte[5];
+
+        for (int i = 0; i < 40; i++) {
+            channel.write(new byte[] {(byte) (3 * i), (byte) (3 * i + 1), (byte) (3 * i + 2)});
+            int count = channel.read(target, 0, target.length);
+            out.write(target, 0, count);
+        }
+
+        byte[] expected = new byte[120];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = (byte) i;
+        }
+        assertThat(out.toByteArray()).isEqualTo(expected);
+    }
+
+    @Test
+    void writeAndReadSplitAtTheEndOfTheRing() throws IOException {
+        TerminalInputChannel channel = new TerminalInputChannel(8, Duration.ZERO);
+        channel.write(new byte[6]);
+        channel.read(new byte[6], 0, 6);
+
+        channel.write(bytes("abcdefgh"));  // starts at index 6, wraps after two bytes
+
+        byte[] target = new byte[8];
+        assertThat(channel.read(target, 0, 8)).isEqualTo(8);
+        assertThat(new String(target, StandardCharsets.US_ASCII)).isEqualTo("abcdefgh");
+    }
+
+    @Test
+    void singleByteReadReturnsUnsignedValue() throws IOException {
+        TerminalInputChannel channel = new TerminalInputChannel(4, Duration.ZERO);
+        channel.write(new byte[] {(byte) 0xff});
+
+        assertThat(channel.read()).isEqualTo(0xff);
+    }
+
+    @Test
+    void offerQueuesAllOrNothingWithoutWaiting() throws IOException {
+        TerminalInputChannel channel = new TerminalInputChannel(8, Duration.ofSeconds(30));
+        assertThat(channel.offer(bytes("abcde"))).isTrue();
+
+        assertThat(channel.offer(bytes("fghi"))).isFalse();
+        assertThat(channel.available()).isEqualTo(5);
+        assertThat(channel.offer(bytes("fgh"))).isTrue();
+
+        byte[] target = new byte[8];
+        assertThat(channel.read(target, 0, 8)).isEqualTo(8);
+        assertThat(new String(target, StandardCharsets.US_ASCII)).isEqualTo("abcdefgh");
+        assertThat(channel.offer(new byte[9])).isFalse();
+        channel.close();
+        assertThatThrownBy(() -> channel.offer(bytes("x"))).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void readListenerSeesReadPositionAcrossWraparound() throws IOException {
+        TerminalInputChannel channel = new TerminalInputChannel(8, Duration.ZERO);
+        List<Long> positions = new ArrayList<>();
+        channel.setReadListener(positions::add);
+        byte[] target = new byte[8];
+
+        channel.write(bytes("abcdef"));
+        channel.read(target, 0, 4);
+        channel.write(bytes("ghijk"));
+        channel.read(target, 0, 8);
+
+        assertThat(positions).containsExactly(4L, 11L);
+        assertThat(channel.readPosition()).isEqualTo(11);
+        assertThat(channel.writePosition()).isEqualTo(11);
+        assertThat(channel.capacity() - (int) (channel.writePosition() - channel.readPosition())).isEqualTo(8);
+    }
+
+    @Test
+    void writeToFullRingFailsAfterTimeout() throws IOException {
+        TerminalInputChannel channel = new TerminalInputChannel(4, Duration.ofMillis(50));
+        channel.write(bytes("abcd"));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> channel.write(bytes("e")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("full");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(50L);
+        assertThat(channel.available()).isEqualTo(4);
+    }
+
+    @Test
+    void writeLargerThanRingCompletesAsReaderDrains() throws Exception {
+        TerminalInputChannel channel = new TerminalInputChannel(16, Duration.ofSeconds(5));
+        byte[] paste = new byte[10_000];
+        for (int i = 0; i < paste.length; i++) {
+            paste[i] = (byte) (i * 31);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Thread reader = new Thread(() -> {
+            byte[] target = new byte[7];
+            try {
+                int count;
+                while ((count = channel.read(target, 0, target.length)) != -1) {
+                    out.write(target, 0, count);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        reader.start();
+
+        channel.write(paste);
+        channel.close();
+        reader.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertThat(out.toByteArray()).isEqualTo(paste);
+    }
+
+    @Test
+    void blockedReadWakesOnWrite() throws Exception {
+        TerminalInputChannel channel = new TerminalInputChannel(8, Duration.ZERO);
+        AtomicInteger read = new AtomicInteger(-2);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread reader = new Thread(() -> {
+            try {
+                read.set(channel.read());
+            } catch (IOException e) {
+                read.set(-3);
+            }
+            done.countDown();
+        });
+        reader.start();
+
+        channel.write(new byte[] {42});
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(read.get()).isEqualTo(42);
+    }
+
+    @Test
+    void closeDrainsQueuedInputThenEndsStream() throws IOException {
+        TerminalInputChannel channel = new TerminalInputChannel(8, Duration.ZERO);
+        channel.write(bytes("exit"));
+        channel.close();
+
+        byte[] target = new byte[8];
+        assertThat(channel.isClosed()).isTrue();
+        assertThat(channel.read(target, 0, 8)).isEqualTo(4);
+        assertThat(channel.read(target, 0, 8)).isEqualTo(-1);
+        assertThatThrownBy(() -> channel.write(bytes("x")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("closed");
+    }
+
+    @Test
+    void closeWakesBlockedReaderAndWriter() throws Exception {
+        TerminalInputChannel empty = new TerminalInputChannel(4, Duration.ZERO);
+        AtomicInteger read = new AtomicInteger(-2);
+        Thread reader = new Thread(() -> {
+            try {
+                read.set(empty.read());
+            } catch (IOException e) {
+                read.set(-3);
+            }
+        });
+        reader.start();
+
+        TerminalInputChannel full = new TerminalInputChannel(4, Duration.ofSeconds(30));
+        full.write(new byte[4]);
+        AtomicReference<Exception> writeFailure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                full.write(new byte[1]);
+            } catch (IOException e) {
+                writeFailure.set(e);
+            }
+        });
+        writer.start();
+
+        Thread.sleep(50);
+        empty.close();
+        full.close();
+        reader.join(TimeUnit.SECONDS.toMillis(5));
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertThat(read.get()).isEqualTo(-1);
+        assertThat(writeFailure.get()).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void concurrentWritesDoNotInterleave() throws Exception {
+        // Blocks larger than the ring, so each write is split across several waits for space
+        TerminalInputChannel channel = new TerminalInputChannel(16, Duration.ofSeconds(5));
+        int blockBytes = 100;
+        int blocks = 500;
+        Thread[] writers = new Thread[2];
+        for (int w = 0; w < writers.length; w++) {
+            byte[] block = new byte[blockBytes];
+            Arrays.fill(block, (byte) (w + 1));
+            writers[w] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < blocks; i++) {
+                        channel.write(block);
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            writers[w].start();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] target = new byte[17];
+        while (out.size() < writers.length * blocks * blockBytes) {
+            int count = channel.read(target, 0, target.length);
+            out.write(target, 0, count);
+        }
+        for (Thread writer : writers) {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+
+        byte[] received = out.toByteArray();
+        for (int start = 0; start < received.length; start += blockBytes) {
+            for (int i = 1; i < blockBytes; i++) {
+                assertThat(received[start + i]).isEqualTo(received[start]);
+            }
+        }
+        assertThat(channel.available()).isZero();
+    }
+
+    @Test
+    void interruptedWriteFails() throws Exception {
+        TerminalInputChannel channel = new TerminalInputChannel(4, Duration.ofSeconds(30));
+        channel.write(new byte[4]);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                channel.write(new byte[1]);
+            } catch (IOException e) {
+                failure.set(e);
+            }
+        });
+        writer.start();
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertThat(failure.get()).isInstanceOf(InterruptedIOException.class);
+        assertThat(channel.available()).isEqualTo(4);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,167 @@
+package com.frausto.service.terminal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stdin latency of {@link TerminalInputChannel} against the {@link PipedOutputStream}/{@link PipedInputStream} pair
+ * it replaced (written and flushed per frame, 1 KB pipe). A pump thread stands in for docker-java's stdin copier,
+ * reading into a 1 KB buffer.
+ * <ul>
+ *   <li>keystroke: one byte written, round trip until the pump has read it and acknowledged;</li>
+ *   <li>paste: 256 KB written as 1 KB WebSocket frames, time until the pump has read all of it.</li>
+ * </ul>
+ * Opt-in: {@code mvn test -Dtest=TerminalInputLatencyBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TerminalInputLatencyBenchmark {
+    private static final int KEYSTROKES = 20_000;
+    private static final int PASTE_BYTES = 256 * 1024;
+    private static final int PASTES = 20;
+    private static final int FRAME_BYTES = 1024;
+
+    @Test
+    void keystrokeAndPasteLatency() throws Exception {
+        for (int round = 0; round < 2; round++) {  // first round is warm-up
+            String piped = report(TerminalInputLatencyBenchmark::pipe);
+            String ring = report(() -> ring(new TerminalInputChannel(65536, Duration.ofSeconds(5))));
+            if (round == 1) {
+                System.out.println("piped streams:        " + piped);
+                System.out.println("TerminalInputChannel: " + ring);
+            }
+        }
+    }
+
+    private static String report(StdinFactory factory) throws Exception {
+        long[] keystrokes = keystrokes(factory.create());
+        long[] pastes = new long[PASTES];
+        for (int i = 0; i < PASTES; i++) {
+            pastes[i] = paste(factory.create());
+        }
+        Arrays.sort(keystrokes);
+        Arrays.sort(pastes);
+        return String.format("keystroke p50 %6.1f us p99 %7.1f us max %8.1f us | 256 KB paste median %7.2f ms",
+                micros(keystrokes[KEYSTROKES / 2]), micros(keystrokes[KEYSTROKES * 99 / 100]),
+                micros(keystrokes[KEYSTROKES - 1]), pastes[PASTES / 2] / 1_000_000.0);
+    }
+
+    private static long[] keystrokes(Stdin stdin) throws Exception {
+        Semaphore echoed = new Semaphore(0);
+        Thread pump = pump(stdin.source(), echoed);
+        long[] nanos = new long[KEYSTROKES];
+        byte[] key = {'a'};
+        for (int i = 0; i < KEYSTROKES; i++) {
+            long start = System.nanoTime();
+            stdin.write(key);
+            if (!echoed.tryAcquire(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("keystroke " + i + " was not read");
+            }
+            nanos[i] = System.nanoTime() - start;
+        }
+        stdin.close();
+        pump.join();
+        return nanos;
+    }
+
+    private static long paste(Stdin stdin) throws Exception {
+        Semaphore read = new Semaphore(0);
+        Thread pump = pump(stdin.source(), read);
+        byte[] frame = new byte[FRAME_BYTES];
+        Arrays.fill(frame, (byte) 'x');
+        long start = System.nanoTime();
+        for (int sent = 0; sent < PASTE_BYTES; sent += FRAME_BYTES) {
+            stdin.write(frame);
+        }
+        if (!read.tryAcquire(PASTE_BYTES, 30, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("paste was not read");
+        }
+        long nanos = System.nanoTime() - start;
+        stdin.close();
+        pump.join();
+        return nanos;
+    }
+
+    /** Reads like docker-java's stdin copier and releases one permit per byte read. */
+    private static Thread pump(InputStream source, Semaphore read) {
+        Thread pump = new Thread(() -> {
+            byte[] buffer = new byte[1024];
+            try {
+                int count;
+                while ((count = source.read(buffer, 0, buffer.length)) != -1) {
+                    read.release(count);
+                }
+            } catch (IOException ignored) {
+                // pipe closed by the writer
+            }
+        }, "stdin-pump");
+        pump.start();
+        return pump;
+    }
+
+    private static Stdin pipe() throws IOException {
+        PipedOutputStream sink = new PipedOutputStream();
+        PipedInputStream source = new PipedInputStream(sink);
+        return new Stdin() {
+            @Override
+            public void write(byte[] frame) throws IOException {
+                sink.write(frame);
+                sink.flush();
+            }
+
+            @Override
+            public InputStream source() {
+                return source;
+            }
+
+            @Override
+            public void close() throws IOException {
+                sink.close();
+            }
+        };
+    }
+
+    private static Stdin ring(TerminalInputChannel channel) {
+        return new Stdin() {
+            @Override
+            public void write(byte[] frame) throws IOException {
+                channel.write(frame);
+            }
+
+            @Override
+            public InputStream source() {
+                return channel;
+            }
+
+            @Override
+            public void close() {
+                channel.close();
+            }
+        };
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+
+    private interface Stdin {
+        void write(byte[] frame) throws IOException;
+
+        InputStream source();
+
+        void close() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface StdinFactory {
+        Stdin create() throws IOException;
+    }
+}
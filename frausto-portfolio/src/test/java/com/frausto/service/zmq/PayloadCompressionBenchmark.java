@@ -0,0 +1,110 @@
+package com.frausto.service.zmq;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Wire size and CPU cost of {@link PayloadCompression} on fleet-sized status events, per deflate level.
+ * <p>
+ * The payload is laid out like a serialized {@code DockerStatusEvent}: one length-delimited entry per container with
+ * a config id, name, 64-hex container id, container name and status, so the redundancy deflate finds is the same
+ * as on the wire without needing the generated classes.
+ * <p>
+ * Opt-in: {@code mvn test -Dtest=PayloadCompressionBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PayloadCompressionBenchmark {
+    private static final int WARMUP = 1_000;
+    private static final int MESSAGES = 2_000;
+
+    @Test
+    void sizeAndCpuPerMessage() {
+        for (int statuses : new int[] {50, 500}) {
+            byte[] event = statusEvent(statuses);
+            for (int level : new int[] {1, 6}) {
+                PayloadCompression compression = new PayloadCompression(List.of(""), 0, level);
+                ByteBuffer output = ByteBuffer.allocateDirect(event.length);
+                ByteBuffer input = ByteBuffer.wrap(event);
+
+                byte[] header = null;
+                for (int i = 0; i < WARMUP; i++) {
+                    header = compress(compression, input, output);
+                    PayloadCompression.decompress(header, output.duplicate());
+                }
+
+                long start = System.nanoTime();
+                for (int i = 0; i < MESSAGES; i++) {
+                    header = compress(compression, input, output);
+                }
+                long compressNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < MESSAGES; i++) {
+                    PayloadCompression.decompress(header, output.duplicate());
+                }
+                long decompressNanos = System.nanoTime() - start;
+
+                System.out.printf("%3d statuses, level %d: %6d -> %5d bytes (%4.1f%%) | compress %7.1f us | "
+                                + "decompress %6.1f us%n", statuses, level, event.length, output.remaining(),
+                        100.0 * output.remaining() / event.length, compressNanos / 1000.0 / MESSAGES,
+                        decompressNanos / 1000.0 / MESSAGES);
+            }
+        }
+    }
+
+    private static byte[] compress(PayloadCompression compression, ByteBuffer input, ByteBuffer output) {
+        output.clear();
+        byte[] header = compression.compress(input, output);
+        if (header == null) {
+            throw new IllegalStateException("status event did not compress");
+        }
+        return header;
+    }
+
+    private static byte[] statusEvent(int statuses) {
+        ByteArrayOutputStream event = new ByteArrayOutputStream();
+        for (int i = 0; i < statuses; i++) {
+            ByteArrayOutputStream status = new ByteArrayOutputStream();
+            varintField(status, 1, i);
+            stringField(status, 2, "service-" + i);
+            stringField(status, 3, String.format("%016x%016x%016x%016x", i * 0x9e3779b97f4a7c15L,
+                    i * 0xc2b2ae3d27d4eb4fL, i * 0x165667b19e3779f9L, i * 0x27d4eb2f165667c5L));
+            stringField(status, 4, "/service-" + i);
+            stringField(status, 5, i % 10 == 0 ? "exited" : "running");
+            varintField(status, 6, i % 10 == 0 ? 0 : 1);
+            varintField(status, 7, 1);
+            varintField(status, 8, i % 10 == 0 ? 0 : 1);
+            bytesField(event, 1, status.toByteArray());
+        }
+        varintField(event, 2, 1_700_000_000_000L);
+        return event.toByteArray();
+    }
+
+    private static void stringField(ByteArrayOutputStream out, int field, String value) {
+        bytesField(out, field, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void bytesField(ByteArrayOutputStream out, int field, byte[] value) {
+        varint(out, (field << 3) | 2);
+        varint(out, value.length);
+        out.writeBytes(value);
+    }
+
+    private static void varintField(ByteArrayOutputStream out, int field, long value) {
+        varint(out, field << 3);
+        varint(out, value);
+    }
+
+    private static void varint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,143 @@
+package com.frausto.service.zmq;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PayloadCompressionTest {
+
+    @Test
+    void appliesToMatchingTopicsAtOrAboveThreshold() {
+        PayloadCompression compression = new PayloadCompression(List.of("docker.", "journal"), 1024, 1);
+
+        assertThat(compression.appliesTo("docker.status", 1024)).isTrue();
+        assertThat(compression.appliesTo("journal.replay", 4096)).isTrue();
+        assertThat(compression.appliesTo("docker.status", 1023)).isFalse();
+        assertThat(compression.appliesTo("terminal", 4096)).isFalse();
+        assertThatThrownBy(() -> new PayloadCompression(List.of(), 0, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void roundTripsCompressiblePayload() {
+        PayloadCompression compression = new PayloadCompression(List.of(""), 0, 6);
+        byte[] original = "{\"containerId\":\"abc\",\"state\":\"running\"}".repeat(200).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer output = ByteBuffer.allocate(original.length);
+
+        byte[] header = compression.compress(ByteBuffer.wrap(original), output);
+
+        assertThat(header).hasSize(PayloadCompression.HEADER_BYTES);
+        assertThat(PayloadCompression.isHeader(header)).isTrue();
+        assertThat(header[2]).isEqualTo(PayloadCompression.CODEC_DEFLATE);
+        assertThat(output.remaining()).isLessThan(original.length);
+        assertThat(PayloadCompression.decompress(header, output.duplicate())).isEqualTo(original);
+        assertThat(compression.getCompressedMessages()).isEqualTo(1);
+        assertThat(compression.getOriginalBytes()).isEqualTo(original.length);
+        assertThat(compression.getCompressedBytes()).isEqualTo(output.remaining());
+    }
+
+    @Test
+    void inputBufferIsNotConsumed() {
+        PayloadCompression compression = new PayloadCompression(List.of(""), 0, 1);
+        ByteBuffer input = ByteBuffer.wrap(new byte[4096]);
+
+        compression.compress(input, ByteBuffer.allocate(4096));
+
+        assertThat(input.position()).isZero();
+        assertThat(input.remaining()).isEqualTo(4096);
+    }
+
+    @Test
+    void returnsNullWhenPayloadDoesNotGetSmaller() {
+        PayloadCompression compression = new PayloadCompression(List.of(""), 0, 9);
+        byte[] random = new byte[4096];
+        new Random(42).nextBytes(random);
+        ByteBuffer output = ByteBuffer.allocate(random.length);
+
+        assertThat(compression.compress(ByteBuffer.wrap(random), output)).isNull();
+        assertThat(compression.getSkippedMessages()).isEqualTo(1);
+        assertThat(compression.getCompressedMessages()).isZero();
+        assertThat(compression.getOriginalBytes()).isZero();
+    }
+
+    @Test
+    void deflaterIsResetBetweenMessages() {
+        PayloadCompression compression = new PayloadCompression(List.of(""), 0, 6);
+        byte[] first = "a".repeat(2000).getBytes(StandardCharsets.UTF_8);
+        byte[] second = "b".repeat(3000).getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer firstOut = ByteBuffer.allocate(first.length);
+        byte[] firstHeader = compression.compress(ByteBuffer.wrap(first), firstOut);
+        ByteBuffer secondOut = ByteBuffer.allocate(second.length);
+        byte[] secondHeader = compression.compress(ByteBuffer.wrap(second), secondOut);
+
+        assertThat(PayloadCompression.decompress(firstHeader, firstOut)).isEqualTo(first);
+        assertThat(PayloadCompression.decompress(secondHeader, secondOut)).isEqualTo(second);
+    }
+
+    @Test
+    void isHeaderChecksLengthAndMagic() {
+        assertThat(PayloadCompression.isHeader(null)).isFalse();
+        assertThat(PayloadCompression.isHeader(new byte[] {'Z', 'P', 1, 0, 0, 0, 0})).isFalse();
+        assertThat(PayloadCompression.isHeader(new byte[] {'Z', 'Q', 1, 0, 0, 0, 0, 1})).isFalse();
+        assertThat(PayloadCompression.isHeader(new byte[] {'Z', 'P', 1, 0, 0, 0, 0, 1})).isTrue();
+    }
+
+    @Test
+    void rejectsUnknownCodec() {
+        byte[] header = header(2, 16);
+
+        assertThatThrownBy(() -> PayloadCompression.decompress(header, new byte[16]))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("codec");
+    }
+
+    @Test
+    void rejectsNegativeOrOversizedLength() {
+        assertThatThrownBy(() -> PayloadCompression.decompress(header(1, -1), new byte[16]))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("length");
+        assertThatThrownBy(() -> PayloadCompression.decompress(header(1, 64 * 1024 * 1024 + 1), new byte[16]))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("length");
+    }
+
+    @Test
+    void rejectsCorruptData() {
+        byte[] garbage = new byte[64];
+        Arrays.fill(garbage, (byte) 0x5a);
+
+        assertThatThrownBy(() -> PayloadCompression.decompress(header(1, 100), garbage))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsHeaderClaimingMoreThanInflates() {
+        PayloadCompression compression = new PayloadCompression(List.of(""), 0, 6);
+        byte[] original = "x".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer output = ByteBuffer.allocate(original.length);
+        compression.compress(ByteBuffer.wrap(original), output);
+        byte[] compressed = new byte[output.remaining()];
+        output.get(compressed);
+
+        assertThatThrownBy(() -> PayloadCompression.decompress(header(1, 2000), compressed))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("1000 of 2000");
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+        assertThatThrownBy(() -> PayloadCompression.decompress(header(1, 1000), truncated))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private byte[] header(int codec, int length) {
+        return ByteBuffer.allocate(PayloadCompression.HEADER_BYTES)
+                .put((byte) 'Z').put((byte) 'P').put((byte) codec).put((byte) 0).putInt(length)
+                .array();
+    }
+}
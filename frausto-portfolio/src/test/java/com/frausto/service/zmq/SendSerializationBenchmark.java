@@ -0,0 +1,92 @@
+package com.frausto.service.zmq;
+
+import com.frausto.proto.service.DockerContainerStatus;
+import com.frausto.proto.service.DockerStatusEvent;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Message;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+/**
+ * Heap bytes allocated per send by the serialization step, before and after {@link DirectBufferPool}: a
+ * {@code toByteArray()} copy per message against encoding into a pooled direct buffer with
+ * {@link CodedOutputStream}. Allocation is read from the sending thread's allocation counter, so the numbers do not
+ * depend on GC timing.
+ * <p>
+ * Opt-in: {@code mvn test -Dtest=SendSerializationBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SendSerializationBenchmark {
+    private static final int WARMUP = 20_000;
+    private static final int SENDS = 100_000;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void allocationPerSend() throws IOException {
+        for (int statuses : new int[] {10, 500}) {
+            DockerStatusEvent event = event(statuses);
+            int size = event.getSerializedSize();
+            DirectBufferPool pool = new DirectBufferPool(4, Math.max(size, 64 * 1024));
+
+            long heap = measure(() -> heapSend(event));
+            long pooled = measure(() -> pooledSend(pool, event));
+            System.out.printf("%3d statuses (%6d bytes): toByteArray %8.1f B/send | pooled direct %8.1f B/send%n",
+                    statuses, size, heap / (double) SENDS, pooled / (double) SENDS);
+        }
+    }
+
+    private long measure(Send send) throws IOException {
+        for (int i = 0; i < WARMUP; i++) {
+            send.run();
+        }
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < SENDS; i++) {
+            send.run();
+        }
+        return threads.getThreadAllocatedBytes(thread) - before;
+    }
+
+    private static int heapSend(Message message) {
+        return message.toByteArray().length;
+    }
+
+    /** Mirrors SocketManager.createSendTask plus the processor releasing the buffer after the send. */
+    private static int pooledSend(DirectBufferPool pool, Message message) throws IOException {
+        ByteBuffer buffer = pool.acquire(message.getSerializedSize());
+        CodedOutputStream output = CodedOutputStream.newInstance(buffer);
+        message.writeTo(output);
+        output.flush();
+        buffer.flip();
+        int sent = buffer.remaining();
+        pool.release(buffer);
+        return sent;
+    }
+
+    private static DockerStatusEvent event(int statuses) {
+        DockerStatusEvent.Builder builder = DockerStatusEvent.newBuilder().setGeneratedAtEpochMs(1_700_000_000_000L);
+        for (int i = 0; i < statuses; i++) {
+            builder.addStatuses(DockerContainerStatus.newBuilder()
+                    .setConfigId(i)
+                    .setConfigName("service-" + i)
+                    .setContainerId(String.format("%064x", i))
+                    .setContainerName("/service-" + i)
+                    .setStatus("running")
+                    .setRunning(true)
+                    .setExpectedRunning(true)
+                    .setPid1Running(true));
+        }
+        return builder.build();
+    }
+
+    @FunctionalInterface
+    private interface Send {
+        int run() throws IOException;
+    }
+}
@@ -0,0 +1,217 @@
+package com.frausto.service.zmq;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskRingBufferTest {
+
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() {
+        assertThat(ring(5, TaskRingBuffer.OverflowPolicy.REJECT, null).capacity()).isEqualTo(8);
+        assertThat(ring(8, TaskRingBuffer.OverflowPolicy.REJECT, null).capacity()).isEqualTo(8);
+        assertThatThrownBy(() -> ring(1, TaskRingBuffer.OverflowPolicy.REJECT, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void emptyBufferPollsNull() {
+        TaskRingBuffer<Integer> ring = ring(4, TaskRingBuffer.OverflowPolicy.REJECT, null);
+
+        assertThat(ring.isEmpty()).isTrue();
+        assertThat(ring.poll()).isNull();
+        assertThat(ring.drain(e -> { }, 10)).isZero();
+        assertThat(ring.size()).isZero();
+    }
+
+    @Test
+    void keepsFifoOrderAcrossWraparound() {
+        TaskRingBuffer<Integer> ring = ring(4, TaskRingBuffer.OverflowPolicy.REJECT, null);
+        List<Integer> out = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(ring.offer(i)).isTrue();
+            if (i % 3 == 2) {
+                ring.drain(out::add, Integer.MAX_VALUE);
+            }
+        }
+        ring.drain(out::add, Integer.MAX_VALUE);
+
+        assertThat(out).hasSize(50);
+        for (int i = 0; i < 50; i++) {
+            assertThat(out.get(i)).isEqualTo(i);
+        }
+        assertThat(ring.isEmpty()).isTrue();
+    }
+
+    @Test
+    void rejectPolicyRefusesWhenFull() throws InterruptedException {
+        TaskRingBuffer<Integer> ring = ring(4, TaskRingBuffer.OverflowPolicy.REJECT, null);
+        for (int i = 0; i < 4; i++) {
+            assertThat(ring.publish(i)).isTrue();
+        }
+
+        assertThat(ring.publish(4)).isFalse();
+        assertThat(ring.size()).isEqualTo(4);
+        assertThat(ring.poll()).isZero();
+        assertThat(ring.publish(4)).isTrue();
+    }
+
+    @Test
+    void dropOldestEvictsHeadAndReportsIt() throws InterruptedException {
+        List<Integer> evicted = new ArrayList<>();
+        TaskRingBuffer<Integer> ring = ring(4, TaskRingBuffer.OverflowPolicy.DROP_OLDEST, evicted::add);
+        for (int i = 0; i < 6; i++) {
+            assertThat(ring.publish(i)).isTrue();
+        }
+
+        assertThat(evicted).containsExactly(0, 1);
+        assertThat(ring.droppedCount()).isEqualTo(2);
+        List<Integer> out = new ArrayList<>();
+        ring.drain(out::add, Integer.MAX_VALUE);
+        assertThat(out).containsExactly(2, 3, 4, 5);
+    }
+
+    @Test
+    void drainStopsAtLimit() {
+        TaskRingBuffer<Integer> ring = ring(8, TaskRingBuffer.OverflowPolicy.REJECT, null);
+        for (int i = 0; i < 5; i++) {
+            ring.offer(i);
+        }
+
+        List<Integer> out = new ArrayList<>();
+        assertThat(ring.drain(out::add, 3)).isEqualTo(3);
+        assertThat(out).containsExactly(0, 1, 2);
+        assertThat(ring.size()).isEqualTo(2);
+    }
+
+    @Test
+    void blockPolicyWaitsForConsumer() throws Exception {
+        TaskRingBuffer<Integer> ring = ring(2, TaskRingBuffer.OverflowPolicy.BLOCK, null);
+        ring.publish(0);
+        ring.publish(1);
+
+        AtomicBoolean published = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            try {
+                ring.publish(2);
+                published.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        producer.join(100);
+        assertThat(published).isFalse();
+
+        assertThat(ring.poll()).isZero();
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+        assertThat(published).isTrue();
+        assertThat(ring.poll()).isEqualTo(1);
+        assertThat(ring.poll()).isEqualTo(2);
+    }
+
+    @Test
+    void blockedPublishIsInterruptible() throws Exception {
+        TaskRingBuffer<Integer> ring = ring(2, TaskRingBuffer.OverflowPolicy.BLOCK, null);
+        ring.publish(0);
+        ring.publish(1);
+
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            try {
+                ring.publish(2);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        producer.start();
+        producer.interrupt();
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertThat(interrupted).isTrue();
+        assertThat(ring.size()).isEqualTo(2);
+    }
+
+    @Test
+    void awaitNotEmptyWakesOnPublish() throws Exception {
+        TaskRingBuffer<Integer> ring = new TaskRingBuffer<>(4, TaskRingBuffer.WaitStrategy.BLOCKING,
+                TaskRingBuffer.OverflowPolicy.REJECT, null);
+        CountDownLatch woke = new CountDownLatch(1);
+        Thread consumer = new Thread(() -> {
+            try {
+                ring.awaitNotEmpty();
+                woke.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+
+        ring.offer(42);
+
+        assertThat(woke.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(ring.poll()).isEqualTo(42);
+    }
+
+    @Test
+    void concurrentProducersLoseNothing() throws Exception {
+        TaskRingBuffer<Integer> ring = ring(64, TaskRingBuffer.OverflowPolicy.BLOCK, null);
+        int producers = 4;
+        int perProducer = 10_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        ring.publish(base + i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        boolean[] seen = new boolean[producers * perProducer];
+        int[] lastPerProducer = new int[producers];
+        Arrays.fill(lastPerProducer, -1);
+        int received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received < seen.length && System.nanoTime() < deadline) {
+            Integer value = ring.poll();
+            if (value == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            assertThat(seen[value]).isFalse();
+            seen[value] = true;
+            int producer = value / perProducer;
+            assertThat(value).isGreaterThan(lastPerProducer[producer]);  // per-producer order is kept
+            lastPerProducer[producer] = value;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(received).isEqualTo(seen.length);
+        assertThat(ring.isEmpty()).isTrue();
+    }
+
+    private TaskRingBuffer<Integer> ring(int capacity, TaskRingBuffer.OverflowPolicy policy,
+                                         Consumer<Integer> dropHandler) {
+        return new TaskRingBuffer<>(capacity, TaskRingBuffer.WaitStrategy.SPIN_THEN_PARK, policy, dropHandler);
+    }
+}
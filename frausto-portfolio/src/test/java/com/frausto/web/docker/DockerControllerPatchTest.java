@@ -0,0 +1,96 @@
+package com.frausto.web.docker;
+
+import com.frausto.model.docker.dto.DockerServiceConfigPatchRequest;
+import com.frausto.model.docker.entity.DockerServiceConfig;
+import com.frausto.service.docker.DockerConfigRevisionService;
+import com.frausto.service.docker.DockerService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(DockerController.class)
+class DockerControllerPatchTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockBean
+    private DockerService dockerService;
+
+    @MockBean
+    private DockerConfigRevisionService revisionService;
+
+    @Test
+    void missingVersionIsBadRequest() throws Exception {
+        mvc.perform(patch("/api/docker/configs/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"image\":\"nginx:1.25\"}"))
+                .andExpect(status().isBadRequest());
+
+        verify(dockerService, never()).updateConfig(any(), any());
+    }
+
+    @Test
+    void nonNumericIfMatchIsBadRequest() throws Exception {
+        mvc.perform(patch("/api/docker/configs/1")
+                        .header(HttpHeaders.IF_MATCH, "\"abc\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"image\":\"nginx:1.25\"}"))
+                .andExpect(status().isBadRequest());
+
+        verify(dockerService, never()).updateConfig(any(), any());
+    }
+
+    @Test
+    void ifMatchDisagreeingWithBodyVersionIsBadRequest() throws Exception {
+        mvc.perform(patch("/api/docker/configs/1")
+                        .header(HttpHeaders.IF_MATCH, "\"4\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\":3,\"image\":\"nginx:1.25\"}"))
+                .andExpect(status().isBadRequest());
+
+        verify(dockerService, never()).updateConfig(any(), any());
+    }
+
+    @Test
+    void ifMatchSuppliesTheVersion() throws Exception {
+        when(dockerService.updateConfig(eq(1L), any())).thenReturn(new DockerServiceConfig());
+
+        mvc.perform(patch("/api/docker/configs/1")
+                        .header(HttpHeaders.IF_MATCH, "W/\"7\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"image\":\"nginx:1.25\"}"))
+                .andExpect(status().isOk());
+
+        ArgumentCaptor<DockerServiceConfigPatchRequest> request =
+                ArgumentCaptor.forClass(DockerServiceConfigPatchRequest.class);
+        verify(dockerService).updateConfig(eq(1L), request.capture());
+        assertThat(request.getValue().getVersion()).isEqualTo(7L);
+    }
+
+    @Test
+    void staleVersionIsConflict() throws Exception {
+        when(dockerService.updateConfig(eq(1L), any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(DockerServiceConfig.class, 1L));
+
+        mvc.perform(patch("/api/docker/configs/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\":2,\"image\":\"nginx:1.25\"}"))
+                .andExpect(status().isConflict());
+    }
+}